@@ -0,0 +1,62 @@
+package histories;
+
+import org.openjdk.jmh.annotations.*;
+import task.AbstractTask;
+import task.Status;
+import task.Task;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+//добавление, перенос в конец, удаление и чтение истории разной длины
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@State(Scope.Benchmark)
+public class HistoryManagerBenchmark {
+    @Param({"IN_MEMORY", "CONCURRENT", "BOUNDED"})
+    public String implementation;
+
+    @Param({"100", "10000", "1000000"})
+    public int historyLength;
+
+    private HistoryManager history;
+    private Task[] tasks;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        history = switch (implementation) {
+            case "CONCURRENT" -> new ConcurrentHistoryManager();
+            case "BOUNDED" -> new BoundedHistoryManager(historyLength);
+            default -> new InMemoryHistoryManager();
+        };
+        tasks = new Task[historyLength];
+        for (int i = 0; i < historyLength; i++) {
+            tasks[i] = new Task("task" + i, "description", Status.NEW);
+            tasks[i].setId(i + 1);
+            history.add(tasks[i]);
+        }
+    }
+
+    //повторный просмотр: задача переносится в конец истории
+    @Benchmark
+    public void addExisting() {
+        history.add(tasks[cursor++ % historyLength]);
+    }
+
+    //удаление и повторное добавление задачи
+    @Benchmark
+    public void removeAndAdd() {
+        Task task = tasks[cursor++ % historyLength];
+        history.remove(task.getId());
+        history.add(task);
+    }
+
+    @Benchmark
+    public List<AbstractTask> getHistory() {
+        return history.getHistory();
+    }
+}
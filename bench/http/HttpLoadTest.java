@@ -0,0 +1,131 @@
+package http;
+
+import manager.Implementation;
+import manager.TaskManager;
+import task.Status;
+import task.Task;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+//нагрузочный прогон HttpTaskServer на этой же машине: clients виртуальных потоков шлют запросы
+//по переиспользуемым соединениям, сначала warmup секунд без замеров, затем seconds секунд с замером.
+//Смесь запросов: 80% GET /tasks/{id}, 10% POST /tasks, 10% GET /tasks?offset=...&limit=50.
+//java -cp <классы src и bench> http.HttpLoadTest [clients] [seconds] [tasks] [implementation] [warmup]
+public class HttpLoadTest {
+    public static void main(String[] args) throws Exception {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 64;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int tasks = args.length > 2 ? Integer.parseInt(args[2]) : 10_000;
+        Implementation implementation = args.length > 3 ? Implementation.valueOf(args[3]) : Implementation.CONCURRENT;
+        int warmup = args.length > 4 ? Integer.parseInt(args[4]) : 3;
+
+        TaskManager manager = implementation.create();
+        for (int i = 0; i < tasks; i++) {
+            manager.createTask(new Task("task" + i, "description " + i, Status.NEW));
+        }
+        HttpTaskServer.enableTcpNoDelay();
+        try (HttpTaskServer server = new HttpTaskServer(manager, 0)) {
+            server.start();
+            HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+            String base = "http://localhost:" + server.getPort();
+
+            run(client, base, clients, warmup, tasks);
+            Result result = run(client, base, clients, seconds, tasks);
+            result.print(implementation, clients, seconds);
+        } finally {
+            Implementation.close(manager);
+        }
+    }
+
+    private static Result run(HttpClient client, String base, int clients, int seconds, int tasks)
+            throws InterruptedException {
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        AtomicLong errors = new AtomicLong();
+        long[][] latencies = new long[clients][];
+        List<Thread> threads = new ArrayList<>(clients);
+        for (int c = 0; c < clients; c++) {
+            int index = c;
+            threads.add(Thread.ofVirtual().start(() -> {
+                long[] own = new long[1 << 14];
+                int count = 0;
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (System.nanoTime() < deadline) {
+                    HttpRequest request = request(base, random, tasks);
+                    long start = System.nanoTime();
+                    try {
+                        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                        if (response.statusCode() >= 300) {
+                            errors.incrementAndGet();
+                        }
+                    } catch (IOException e) {
+                        errors.incrementAndGet();
+                        continue;
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    if (count == own.length) {
+                        own = Arrays.copyOf(own, own.length * 2);
+                    }
+                    own[count++] = System.nanoTime() - start;
+                }
+                latencies[index] = Arrays.copyOf(own, count);
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        return new Result(merge(latencies), errors.get());
+    }
+
+    private static HttpRequest request(String base, ThreadLocalRandom random, int tasks) {
+        int kind = random.nextInt(10);
+        if (kind == 0) {
+            return HttpRequest.newBuilder(URI.create(base + "/tasks"))
+                    .POST(HttpRequest.BodyPublishers.ofString("{\"name\":\"load\",\"description\":\"test\"}")).build();
+        } else if (kind == 1) {
+            return HttpRequest.newBuilder(URI.create(base + "/tasks?offset=" + random.nextInt(tasks) + "&limit=50")).build();
+        }
+        return HttpRequest.newBuilder(URI.create(base + "/tasks/" + (1 + random.nextInt(tasks)))).build();
+    }
+
+    private static long[] merge(long[][] parts) {
+        int size = 0;
+        for (long[] part : parts) {
+            size += part.length;
+        }
+        long[] all = new long[size];
+        int position = 0;
+        for (long[] part : parts) {
+            System.arraycopy(part, 0, all, position, part.length);
+            position += part.length;
+        }
+        Arrays.sort(all);
+        return all;
+    }
+
+    private record Result(long[] latencies, long errors) {
+        void print(Implementation implementation, int clients, int seconds) {
+            System.out.printf("%s, %d клиентов, %d с: %,d запросов, %,.0f запросов/с, ошибок: %d%n",
+                    implementation, clients, seconds, latencies.length, latencies.length / (double) seconds, errors);
+            System.out.printf("задержка, мкс: p50 %,d  p90 %,d  p99 %,d  p99.9 %,d  max %,d%n",
+                    percentile(0.5), percentile(0.9), percentile(0.99), percentile(0.999),
+                    latencies.length == 0 ? 0 : latencies[latencies.length - 1] / 1000);
+        }
+
+        private long percentile(double p) {
+            if (latencies.length == 0) {
+                return 0;
+            }
+            return latencies[(int) Math.min(latencies.length - 1, Math.ceil(p * latencies.length) - 1)] / 1000;
+        }
+    }
+}
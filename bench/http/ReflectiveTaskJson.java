@@ -0,0 +1,180 @@
+package http;
+
+import task.AbstractTask;
+import task.Epic;
+import task.Status;
+import task.SubTask;
+import task.Task;
+import task.Type;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+//точка сравнения для json.TaskJsonWriter/TaskJsonReader: обычный подход библиотек сериализации.
+//Поля ищутся отражением (метаданные кешируются по классу), значения читаются и пишутся через Field,
+//запись идёт через универсальный JsonWriter, чтение - через дерево JsonParser из всего текста.
+//Формат тот же, что у json.TaskJsonWriter
+public class ReflectiveTaskJson {
+    private static final Set<String> FIELDS = Set.of("id", "name", "description", "status", "startTime", "duration", "epic");
+    private static final Map<Class<?>, List<Field>> fields = new HashMap<>();
+    private static final Map<Class<?>, Constructor<?>> constructors = new HashMap<>();
+
+    private ReflectiveTaskJson() {
+    }
+
+    public static void write(Writer out, List<? extends AbstractTask> tasks) throws IOException {
+        JsonWriter json = new JsonWriter(out);
+        json.beginArray();
+        for (AbstractTask task : tasks) {
+            json.beginObject().name("type").value(task.getType().name());
+            for (Field field : fields(task.getClass())) {
+                json.name(field.getName());
+                value(json, get(field, task));
+            }
+            json.name("endTime");
+            value(json, task.getEndTime());
+            json.endObject();
+        }
+        json.endArray();
+        json.flush();
+    }
+
+    public static String write(List<? extends AbstractTask> tasks) {
+        StringWriter out = new StringWriter();
+        try {
+            write(out, tasks);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toString();
+    }
+
+    public static List<AbstractTask> read(Reader in) throws IOException {
+        StringBuilder text = new StringBuilder();
+        char[] buffer = new char[8192];
+        for (int read = in.read(buffer); read >= 0; read = in.read(buffer)) {
+            text.append(buffer, 0, read);
+        }
+        List<AbstractTask> result = new ArrayList<>();
+        Map<Integer, Epic> epics = new HashMap<>();
+        for (Object item : (List<?>) JsonParser.parse(text.toString())) {
+            Map<?, ?> json = (Map<?, ?>) item;
+            Class<?> type = switch (Type.valueOf((String) json.get("type"))) {
+                case TASK -> Task.class;
+                case EPIC -> Epic.class;
+                case SUBTASK -> SubTask.class;
+            };
+            AbstractTask task = create(type);
+            for (Field field : fields(type)) {
+                if (json.containsKey(field.getName())) {
+                    set(field, task, convert(field.getType(), json.get(field.getName()), epics));
+                }
+            }
+            if (task instanceof Epic epic) {
+                epics.put(epic.getId(), epic);
+            } else if (task instanceof SubTask subTask && subTask.getEpic() != null) {
+                subTask.getEpic().addSubTask(subTask);
+            }
+            result.add(task);
+        }
+        return result;
+    }
+
+    //поля задачи из формата, от AbstractTask к наследникам
+    private static synchronized List<Field> fields(Class<?> type) {
+        return fields.computeIfAbsent(type, key -> {
+            List<Class<?>> hierarchy = new ArrayList<>();
+            for (Class<?> c = key; c != Object.class; c = c.getSuperclass()) {
+                hierarchy.add(0, c);
+            }
+            Map<String, Field> found = new LinkedHashMap<>();
+            for (Class<?> c : hierarchy) {
+                for (Field field : c.getDeclaredFields()) {
+                    if (!Modifier.isStatic(field.getModifiers()) && FIELDS.contains(field.getName())) {
+                        field.setAccessible(true);
+                        found.put(field.getName(), field);
+                    }
+                }
+            }
+            return new ArrayList<>(found.values());
+        });
+    }
+
+    private static synchronized AbstractTask create(Class<?> type) {
+        try {
+            Constructor<?> constructor = constructors.computeIfAbsent(type, key -> {
+                try {
+                    return key == SubTask.class
+                            ? key.getConstructor(Epic.class, String.class, String.class, Status.class)
+                            : key.getConstructor(String.class, String.class, Status.class);
+                } catch (NoSuchMethodException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            return (AbstractTask) (type == SubTask.class
+                    ? constructor.newInstance(null, null, null, Status.NEW)
+                    : constructor.newInstance(null, null, Status.NEW));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Object convert(Class<?> type, Object value, Map<Integer, Epic> epics) {
+        if (value == null) {
+            return null;
+        } else if (type == int.class) {
+            return ((Long) value).intValue();
+        } else if (type == Status.class) {
+            return Status.valueOf((String) value);
+        } else if (type == LocalDateTime.class) {
+            return LocalDateTime.parse((String) value);
+        } else if (type == Duration.class) {
+            return Duration.parse((String) value);
+        } else if (type == Epic.class) {
+            return epics.get(((Long) value).intValue());
+        }
+        return value;
+    }
+
+    private static void value(JsonWriter json, Object value) throws IOException {
+        if (value == null) {
+            json.nullValue();
+        } else if (value instanceof Number number) {
+            json.value(number.longValue());
+        } else if (value instanceof AbstractTask task) {
+            json.value(task.getId());
+        } else {
+            json.value(value.toString());
+        }
+    }
+
+    private static Object get(Field field, Object target) {
+        try {
+            return field.get(target);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void set(Field field, Object target, Object value) {
+        try {
+            field.set(target, value);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
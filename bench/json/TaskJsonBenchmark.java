@@ -0,0 +1,98 @@
+package json;
+
+import http.ReflectiveTaskJson;
+import org.openjdk.jmh.annotations.*;
+import task.AbstractTask;
+import task.Epic;
+import task.Status;
+import task.SubTask;
+import task.Task;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.io.Writer;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+//запись и чтение списка задач: потоковый кодек без отражения против ReflectiveTaskJson
+//(поля через отражение, универсальный JsonWriter, чтение через дерево). С GCProfiler (manager.Benchmarks)
+//видно и байты аллокаций на операцию
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Benchmark)
+public class TaskJsonBenchmark {
+    //сколько задач в списке: поровну задач, эпиков и подзадач
+    @Param({"100", "10000"})
+    public int tasks;
+
+    private List<AbstractTask> list;
+    private String json;
+    private Writer discard;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        list = new ArrayList<>(tasks);
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 9, 0);
+        Epic epic = null;
+        for (int i = 0; list.size() < tasks; i++) {
+            Task task = new Task("task" + i, "Задача \"" + i + "\" с описанием", Status.NEW);
+            task.setId(list.size() + 1);
+            task.setStartTime(start.plusMinutes(i * 30L));
+            task.setDuration(Duration.ofMinutes(15));
+            list.add(task);
+            if (i % 2 == 0 && list.size() < tasks) {
+                epic = new Epic("epic" + i, "description " + i, Status.NEW);
+                epic.setId(list.size() + 1);
+                list.add(epic);
+            } else if (list.size() < tasks) {
+                SubTask subTask = new SubTask(epic, "subTask" + i, "description " + i, list.size() + 1, Status.DONE);
+                subTask.setStartTime(start.plusMinutes(i * 30L + 15));
+                subTask.setDuration(Duration.ofSeconds(90));
+                epic.addSubTask(subTask);
+                list.add(subTask);
+            }
+        }
+        json = ReflectiveTaskJson.write(list);
+        //запись в никуда: меряется сериализация, а не рост буфера
+        discard = Writer.nullWriter();
+    }
+
+    @Benchmark
+    public Writer writeStreaming() throws IOException {
+        TaskJsonWriter writer = new TaskJsonWriter(discard);
+        writer.writeAll(list).flush();
+        return discard;
+    }
+
+    @Benchmark
+    public Writer writeReflective() throws IOException {
+        ReflectiveTaskJson.write(discard, list);
+        return discard;
+    }
+
+    //в байты UTF-8, как в HTTP-ответе
+    @Benchmark
+    public OutputStream writeStreamingUtf8() throws IOException {
+        OutputStream out = OutputStream.nullOutputStream();
+        TaskJsonWriter writer = new TaskJsonWriter(out);
+        writer.writeAll(list).flush();
+        return out;
+    }
+
+    @Benchmark
+    public List<AbstractTask> readStreaming() throws IOException {
+        return new TaskJsonReader(new StringReader(json)).readAll();
+    }
+
+    @Benchmark
+    public List<AbstractTask> readReflective() throws IOException {
+        return ReflectiveTaskJson.read(new StringReader(json));
+    }
+}
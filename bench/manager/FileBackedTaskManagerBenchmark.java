@@ -0,0 +1,83 @@
+package manager;
+
+import org.openjdk.jmh.annotations.*;
+import task.Epic;
+import task.Status;
+import task.SubTask;
+import task.Task;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+//сохранение и загрузка файла при разном числе задач, формате снимка и режиме хранения
+@BenchmarkMode({Mode.AverageTime, Mode.SingleShotTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@State(Scope.Benchmark)
+public class FileBackedTaskManagerBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    public int tasks;
+
+    //сколько подзадач приходится на эпик
+    @Param({"1", "100", "10000"})
+    public int epicSize;
+
+    @Param({"CSV", "BINARY"})
+    public SnapshotFormat format;
+
+    //SNAPSHOT переписывает весь файл, SEGMENTED - только сегмент изменённой задачи
+    @Param({"SNAPSHOT", "SEGMENTED"})
+    public PersistenceMode mode;
+
+    //потоки разбора и пересчёта эпиков при загрузке
+    @Param({"1", "4"})
+    public int restoreParallelism;
+
+    private File file;
+    private FileBackedTaskManager manager;
+    private StorageOptions options;
+    private Task probe;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        file = Implementation.tempFile();
+        options = new StorageOptions();
+        options.setDurability(DurabilityPolicy.manual());
+        options.setRestoreParallelism(restoreParallelism);
+        options.setFormat(format);
+        options.setMode(mode);
+        manager = Managers.getFileBacked(file, options);
+
+        Epic epic = null;
+        for (int i = 0; i < tasks; i++) {
+            if (i % (epicSize + 1) == 0) {
+                epic = new Epic("epic" + i, "description", Status.NEW);
+                manager.createEpic(epic);
+            } else {
+                manager.createSubTask(new SubTask(epic, "subTask" + i, "description", Status.DONE));
+            }
+        }
+        probe = new Task("probe", "description", Status.NEW);
+        manager.createTask(probe);
+        manager.flush();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        manager.close();
+    }
+
+    //одно изменение + запись снимка или изменённого сегмента
+    @Benchmark
+    public void save() {
+        manager.updateTask(probe);
+        manager.flush();
+    }
+
+    @Benchmark
+    public FileBackedTaskManager loadFromFile() {
+        return FileBackedTaskManager.loadFromFile(file, options);
+    }
+}
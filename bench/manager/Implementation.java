@@ -0,0 +1,51 @@
+package manager;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+//все реализации TaskManager, которые можно получить через Managers
+public enum Implementation {
+    IN_MEMORY,
+    CONCURRENT,
+    //журнал с групповой записью: единственный файловый режим, который выдерживает миллион задач
+    FILE_BACKED_JOURNAL;
+
+    public TaskManager create() {
+        switch (this) {
+            case IN_MEMORY:
+                return Managers.getDefault();
+            case CONCURRENT:
+                return Managers.getConcurrent();
+            case FILE_BACKED_JOURNAL:
+                StorageOptions options = new StorageOptions();
+                options.setMode(PersistenceMode.JOURNAL);
+                options.setDurability(DurabilityPolicy.groupCommit(1024, 50));
+                return Managers.getFileBacked(tempFile(), options);
+            default:
+                throw new IllegalStateException("Неизвестная реализация: " + this);
+        }
+    }
+
+    public static void close(TaskManager manager) {
+        if (manager instanceof AutoCloseable closeable) {
+            try {
+                closeable.close();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    static File tempFile() {
+        try {
+            File dir = Files.createTempDirectory("task-manager-bench").toFile();
+            dir.deleteOnExit();
+            File file = new File(dir, "tasks.csv");
+            file.deleteOnExit();
+            return file;
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
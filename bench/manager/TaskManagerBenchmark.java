@@ -0,0 +1,138 @@
+package manager;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import task.AbstractTask;
+import task.Epic;
+import task.Status;
+import task.SubTask;
+import task.Task;
+import task.Type;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+//горячие пути TaskManager на разных объёмах данных и во всех реализациях
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@State(Scope.Benchmark)
+public class TaskManagerBenchmark {
+    @Param({"IN_MEMORY", "CONCURRENT", "FILE_BACKED_JOURNAL"})
+    public Implementation implementation;
+
+    //сколько задач и подзадач лежит в менеджере
+    @Param({"1000", "100000", "1000000"})
+    public int tasks;
+
+    //сколько подзадач в эпике, с которым работает бенчмарк
+    @Param({"1", "100", "10000"})
+    public int epicSize;
+
+    private TaskManager manager;
+    private Epic epic;
+    private SubTask[] epicSubTasks;
+    private int[] taskIds;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        manager = implementation.create();
+        taskIds = new int[tasks];
+        for (int i = 0; i < tasks; i++) {
+            //каждая десятая задача выполнена - для выборок по статусу
+            Task task = new Task("task" + i, "description " + i, i % 10 == 0 ? Status.DONE : Status.NEW);
+            manager.createTask(task);
+            taskIds[i] = task.getId();
+        }
+
+        epic = new Epic("epic", "description", Status.NEW);
+        manager.createEpic(epic);
+        epicSubTasks = new SubTask[epicSize];
+        for (int i = 0; i < epicSize; i++) {
+            SubTask subTask = new SubTask(epic, "subTask" + i, "description", Status.NEW);
+            manager.createSubTask(subTask);
+            epicSubTasks[i] = subTask;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        Implementation.close(manager);
+    }
+
+    //создание и удаление подзадачи, чтобы размер эпика не рос во время замера
+    @Benchmark
+    public boolean createSubTask() {
+        SubTask subTask = new SubTask(epic, "new", "description", Status.IN_Progress);
+        boolean result = manager.createSubTask(subTask);
+        manager.deleteSubTaskById(subTask.getId());
+        return result;
+    }
+
+    //обновление подзадачи с пересчётом статуса эпика (changeStatusEpic)
+    @Benchmark
+    public boolean updateSubTaskStatus() {
+        int i = cursor++ % epicSize;
+        SubTask current = epicSubTasks[i];
+        Status next = current.getStatus() == Status.DONE ? Status.NEW : Status.DONE;
+        SubTask updated = new SubTask(epic, current.getName(), current.getDescription(), current.getId(), next);
+        epicSubTasks[i] = updated;
+        return manager.updateSubTask(updated);
+    }
+
+    //копия списка всех подзадач
+    @Benchmark
+    public List<SubTask> getSubTasks() {
+        return manager.getSubTasks();
+    }
+
+    //копия списка всех задач
+    @Benchmark
+    public List<Task> getTasks() {
+        return manager.getTasks();
+    }
+
+    //выполненные задачи из индекса статусов: O(k)
+    @Benchmark
+    public List<Task> getTasksByStatus() {
+        return manager.getTasks(Status.DONE);
+    }
+
+    //то же фильтрацией полной копии: O(n)
+    @Benchmark
+    public List<Task> filterTasksByStatus() {
+        return manager.getTasks().stream().filter(task -> task.getStatus() == Status.DONE).toList();
+    }
+
+    @Benchmark
+    public int countTasksByStatus() {
+        return manager.count(Type.TASK, Status.DONE);
+    }
+
+    //полнотекстовый поиск: пересечение списков вхождений двух слов
+    @Benchmark
+    public List<AbstractTask> searchTerms() {
+        return manager.search("description " + tasks / 2, 10);
+    }
+
+    //поиск по префиксу: объединение списков всех слов диапазона
+    @Benchmark
+    public List<AbstractTask> searchPrefix() {
+        return manager.search("task12*", 10);
+    }
+
+    //подзадачи одного эпика
+    @Benchmark
+    public List<SubTask> returnSubTasksInEpic() {
+        return manager.returnSubTasksInEpic(epic);
+    }
+
+    //получение по id записывает просмотр в историю
+    @Benchmark
+    public void getIdTask(Blackhole blackhole) {
+        blackhole.consume(manager.getIdTask(taskIds[cursor++ % tasks]));
+    }
+}
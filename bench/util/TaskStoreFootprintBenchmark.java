@@ -0,0 +1,113 @@
+package util;
+
+import org.openjdk.jmh.annotations.*;
+import task.Status;
+import task.Task;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+//хранилище задач по id: прежний HashMap<Integer, Task> против IntObjectMap.
+//Бенчмарки показывают скорость заполнения и поиска (с GCProfiler - байты аллокаций на операцию),
+//main - сколько байт кучи занимает одна запись хранилища без самих задач
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@State(Scope.Benchmark)
+public class TaskStoreFootprintBenchmark {
+    public enum Store {
+        HASH_MAP,
+        INT_OBJECT_MAP;
+
+        Map<Integer, Task> create() {
+            return this == HASH_MAP ? new HashMap<>() : new IntObjectMap<>();
+        }
+    }
+
+    @Param({"HASH_MAP", "INT_OBJECT_MAP"})
+    public Store store;
+
+    @Param({"100000", "1000000"})
+    public int tasks;
+
+    private Task[] values;
+    private Map<Integer, Task> filled;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        values = createTasks(tasks);
+        filled = fill(store, values);
+    }
+
+    @Benchmark
+    public Map<Integer, Task> fill() {
+        return fill(store, values);
+    }
+
+    //обращение по id так, как это делает InMemoryTaskManager
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public int getAll() {
+        int found = 0;
+        if (filled instanceof IntMap<Task> map) {
+            for (int id = 1; id <= tasks; id++) {
+                found += map.get(id) != null ? 1 : 0;
+            }
+        } else {
+            for (int id = 1; id <= tasks; id++) {
+                found += filled.get(id) != null ? 1 : 0;
+            }
+        }
+        return found;
+    }
+
+    private static Task[] createTasks(int count) {
+        Task[] result = new Task[count];
+        for (int i = 0; i < count; i++) {
+            result[i] = new Task("task" + i, "description", Status.NEW);
+            result[i].setId(i + 1);
+        }
+        return result;
+    }
+
+    private static Map<Integer, Task> fill(Store store, Task[] values) {
+        Map<Integer, Task> map = store.create();
+        if (map instanceof IntMap<Task> intMap) {
+            for (Task task : values) {
+                intMap.put(task.getId(), task);
+            }
+        } else {
+            for (Task task : values) {
+                map.put(task.getId(), task);
+            }
+        }
+        return map;
+    }
+
+    //java -Xmx4g -cp <классы src и bench> util.TaskStoreFootprintBenchmark 1000000
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        Task[] values = createTasks(count);
+
+        for (Store store : Store.values()) {
+            long before = usedHeap();
+            Map<Integer, Task> map = fill(store, values);
+            long after = usedHeap();
+            System.out.printf("%-15s %,d записей: %,d байт, %.1f байт на запись%n",
+                    store, map.size(), after - before, (after - before) / (double) count);
+        }
+    }
+
+    private static long usedHeap() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,11 @@
+package events;
+
+//что делает публикация, когда самый медленный подписчик отстал на всю ёмкость буфера
+public enum BackPressure {
+    //событие записывается поверх самого старого, отставший подписчик его пропускает (Subscription.getLost)
+    DROP_OLDEST,
+    //новое событие не публикуется (EventBus.getRejected); подписчики получают непрерывный префикс
+    DROP_NEWEST,
+    //изменение ждёт, пока подписчик освободит место; события не теряются, но медленный подписчик тормозит менеджер
+    BLOCK
+}
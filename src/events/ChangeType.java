@@ -0,0 +1,9 @@
+package events;
+
+public enum ChangeType {
+    CREATED,
+    UPDATED,
+    DELETED,
+    //статус эпика пересчитан по подзадачам и изменился
+    STATUS_CHANGED
+}
@@ -0,0 +1,157 @@
+package events;
+
+import task.AbstractTask;
+import task.Status;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+//кольцевой буфер событий без замков: публикующий поток занимает номер события через CAS и кладёт событие
+//в ячейку номер & mask, у каждого подписчика свой курсор и свой поток доставки.
+//Ячейка готова к чтению, когда номер лежащего в ней события равен курсору; больший номер значит,
+//что событие уже затёрто. Без подписчиков публикация - одно чтение volatile-поля
+public class EventBus implements AutoCloseable {
+    public static final int DEFAULT_CAPACITY = 1 << 14;
+    //сколько раз публикация в режиме BLOCK крутится, прежде чем уснуть
+    private static final int SPINS = 100;
+
+    private final AtomicReferenceArray<TaskEvent> ring;
+    private final int mask;
+    private final BackPressure policy;
+    //номер следующего события
+    private final AtomicLong next = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    //меняется целиком под this, читается без замка
+    private volatile Subscription[] subscribers = new Subscription[0];
+    private int threads;
+
+    public EventBus() {
+        this(DEFAULT_CAPACITY, BackPressure.DROP_OLDEST);
+    }
+
+    //ёмкость округляется вверх до степени двойки
+    public EventBus(int capacity, BackPressure policy) {
+        if (capacity < 2 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("Ёмкость буфера событий должна быть от 2 до 2^30");
+        } else if (policy == null) {
+            throw new NullPointerException("policy == null!!");
+        }
+        int size = Integer.highestOneBit(capacity - 1) << 1;
+        ring = new AtomicReferenceArray<>(size);
+        mask = size - 1;
+        this.policy = policy;
+    }
+
+    public int getCapacity() {
+        return mask + 1;
+    }
+
+    public BackPressure getPolicy() {
+        return policy;
+    }
+
+    //сколько событий не опубликовано из-за DROP_NEWEST
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    //подписчик получает события, опубликованные после подписки, пачками не больше maxBatch в отдельном потоке.
+    //Список пачки принадлежит подписчику; исключение подписчика не останавливает доставку
+    public synchronized Subscription subscribe(Consumer<List<TaskEvent>> listener, int maxBatch) {
+        if (listener == null) {
+            throw new NullPointerException("listener == null!!");
+        } else if (maxBatch < 1) {
+            throw new IllegalArgumentException("maxBatch < 1!!");
+        }
+        Subscription subscription = new Subscription(this, listener, maxBatch, next.get());
+        Subscription[] current = Arrays.copyOf(subscribers, subscribers.length + 1);
+        current[current.length - 1] = subscription;
+        subscribers = current;
+        subscription.start("task-events-" + threads++);
+        return subscription;
+    }
+
+    synchronized void unsubscribe(Subscription subscription) {
+        Subscription[] current = subscribers;
+        for (int i = 0; i < current.length; i++) {
+            if (current[i] == subscription) {
+                Subscription[] updated = new Subscription[current.length - 1];
+                System.arraycopy(current, 0, updated, 0, i);
+                System.arraycopy(current, i + 1, updated, i, updated.length - i);
+                subscribers = updated;
+                return;
+            }
+        }
+    }
+
+    //вызывается из изменения менеджера после того, как изменение сделано
+    public void publish(ChangeType change, AbstractTask task, Status previous) {
+        if (subscribers.length == 0) {
+            return;
+        }
+        long sequence;
+        int spins = 0;
+        while (true) {
+            Subscription[] current = subscribers;
+            if (current.length == 0) {
+                return;
+            }
+            sequence = next.get();
+            if (policy != BackPressure.DROP_OLDEST && sequence - slowest(current) > mask) {
+                if (policy == BackPressure.DROP_NEWEST) {
+                    rejected.incrementAndGet();
+                    return;
+                }
+                if (++spins < SPINS) {
+                    Thread.onSpinWait();
+                } else {
+                    LockSupport.parkNanos(10_000);
+                }
+                continue;
+            }
+            if (next.compareAndSet(sequence, sequence + 1)) {
+                break;
+            }
+        }
+        ring.set(slot(sequence), new TaskEvent(sequence, change, task.getType(), task.getId(), task.getStatus(), previous));
+        for (Subscription subscription : subscribers) {
+            subscription.wake();
+        }
+    }
+
+    //событие с номером sequence, null - ещё не опубликовано. Затёртое событие возвращается как есть:
+    //его номер больше запрошенного
+    TaskEvent get(long sequence) {
+        TaskEvent event = ring.get(slot(sequence));
+        return event == null || event.sequence() < sequence ? null : event;
+    }
+
+    //номер, с которого подписчик, отставший из-за затирания, снова может читать подряд
+    long oldestAvailable() {
+        return Math.max(0, next.get() - mask - 1);
+    }
+
+    private int slot(long sequence) {
+        return (int) sequence & mask;
+    }
+
+    private static long slowest(Subscription[] subscriptions) {
+        long min = Long.MAX_VALUE;
+        for (Subscription subscription : subscriptions) {
+            min = Math.min(min, subscription.cursor());
+        }
+        return min;
+    }
+
+    //закрывает все подписки, дождавшись доставки уже опубликованных событий
+    @Override
+    public void close() {
+        for (Subscription subscription : subscribers) {
+            subscription.close();
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package events;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+//подписка на EventBus: свой поток забирает из буфера всё, что успело накопиться (не больше maxBatch),
+//сдвигает курсор, освобождая место публикующим, и только потом отдаёт пачку подписчику
+public class Subscription implements AutoCloseable {
+    private static final int SPINS = 100;
+
+    private final EventBus bus;
+    private final Consumer<List<TaskEvent>> listener;
+    private final int maxBatch;
+    private Thread thread;
+    //номер следующего события для этого подписчика
+    private volatile long cursor;
+    private volatile boolean waiting;
+    private volatile boolean running = true;
+    private volatile long delivered;
+    private volatile long lost;
+    private volatile long failures;
+
+    Subscription(EventBus bus, Consumer<List<TaskEvent>> listener, int maxBatch, long cursor) {
+        this.bus = bus;
+        this.listener = listener;
+        this.maxBatch = maxBatch;
+        this.cursor = cursor;
+    }
+
+    void start(String name) {
+        thread = new Thread(this::run, name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    long cursor() {
+        return cursor;
+    }
+
+    //будит поток доставки, только если он уснул: иначе публикация не тратится на unpark
+    void wake() {
+        if (waiting) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    //сколько событий отдано подписчику
+    public long getDelivered() {
+        return delivered;
+    }
+
+    //сколько событий затёрто до того, как подписчик успел их забрать (BackPressure.DROP_OLDEST)
+    public long getLost() {
+        return lost;
+    }
+
+    //сколько пачек подписчик не обработал из-за исключения
+    public long getFailures() {
+        return failures;
+    }
+
+    private void run() {
+        int idle = 0;
+        while (true) {
+            List<TaskEvent> batch = take();
+            if (!batch.isEmpty()) {
+                idle = 0;
+                deliver(batch);
+            } else if (!running) {
+                return;
+            } else if (++idle < SPINS) {
+                Thread.onSpinWait();
+            } else {
+                //публикация сначала кладёт событие, потом читает waiting, а здесь наоборот,
+                //поэтому одна из сторон обязательно увидит другую
+                waiting = true;
+                if (bus.get(cursor) == null && running) {
+                    LockSupport.park(this);
+                }
+                waiting = false;
+            }
+        }
+    }
+
+    private List<TaskEvent> take() {
+        List<TaskEvent> batch = new ArrayList<>();
+        long position = cursor;
+        while (batch.size() < maxBatch) {
+            TaskEvent event = bus.get(position);
+            if (event == null) {
+                break;
+            } else if (event.sequence() != position) {
+                long oldest = Math.max(position + 1, bus.oldestAvailable());
+                lost += oldest - position;
+                position = oldest;
+                continue;
+            }
+            batch.add(event);
+            position++;
+        }
+        cursor = position;
+        return batch;
+    }
+
+    private void deliver(List<TaskEvent> batch) {
+        try {
+            listener.accept(batch);
+        } catch (RuntimeException e) {
+            failures++;
+        }
+        delivered += batch.size();
+    }
+
+    //отписывается, дождавшись доставки уже опубликованных событий; из самого подписчика не ждёт
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(thread);
+        if (Thread.currentThread() != thread) {
+            boolean interrupted = false;
+            while (thread.isAlive()) {
+                try {
+                    thread.join();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        bus.unsubscribe(this);
+    }
+}
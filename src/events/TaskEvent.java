@@ -0,0 +1,9 @@
+package events;
+
+import task.Status;
+import task.Type;
+
+//изменение задачи: sequence - номер события в шине, previous - статус до изменения (null у созданной задачи).
+//Задача не передаётся: к моменту доставки она уже могла измениться, поэтому в событии только её id и статус
+public record TaskEvent(long sequence, ChangeType change, Type type, int id, Status status, Status previous) {
+}
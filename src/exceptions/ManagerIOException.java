@@ -1,12 +1,11 @@
 package exceptions;
 
-import java.io.IOException;
-
 public class ManagerIOException extends RuntimeException {
     public ManagerIOException(String message) {
         super(message);
     }
 
-    public ManagerIOException(String message, IOException e) {
+    public ManagerIOException(String message, Exception e) {
+        super(message, e);
     }
 }
@@ -0,0 +1,7 @@
+package exceptions;
+
+public class SnapshotCorruptedException extends ManagerIOException {
+    public SnapshotCorruptedException(String message) {
+        super(message);
+    }
+}
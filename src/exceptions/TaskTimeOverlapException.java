@@ -0,0 +1,7 @@
+package exceptions;
+
+public class TaskTimeOverlapException extends RuntimeException {
+    public TaskTimeOverlapException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,126 @@
+package histories;
+
+import task.AbstractTask;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+//история ограниченного размера: записи упорядочены по последнему просмотру,
+//поэтому кандидат на вытеснение всегда в голове списка и проверяется за O(1)
+public class BoundedHistoryManager implements HistoryManager {
+    //узел списка хранит и время просмотра; повторный просмотр переставляет узел, не создавая новый
+    private static final class Entry {
+        private AbstractTask task;
+        private long viewedAt;
+        private Entry prev;
+        private Entry next;
+    }
+
+    private final Map<Integer, Entry> entries = new HashMap<>();
+    private final EvictionPolicy policy;
+    private final Clock clock;
+    private Entry head;
+    private Entry tail;
+
+    public BoundedHistoryManager(int capacity) {
+        this(EvictionPolicy.lru(capacity));
+    }
+
+    public BoundedHistoryManager(EvictionPolicy policy) {
+        this(policy, Clock.systemUTC());
+    }
+
+    public BoundedHistoryManager(EvictionPolicy policy, Clock clock) {
+        if (policy == null || clock == null) {
+            throw new NullPointerException("policy == null || clock == null!!");
+        }
+        this.policy = policy;
+        this.clock = clock;
+    }
+
+    @Override
+    public void add(AbstractTask task) {
+        long now = clock.millis();
+        Entry entry = entries.get(task.getId());
+
+        if (entry == null) {
+            entry = new Entry();
+            entries.put(task.getId(), entry);
+        } else {
+            unlink(entry);
+        }
+        entry.task = task;
+        entry.viewedAt = now;
+        linkLast(entry);
+        evict(now);
+    }
+
+    @Override
+    public void remove(int id) {
+        Entry entry = entries.remove(id);
+        if (entry != null) {
+            unlink(entry);
+        }
+    }
+
+    @Override
+    public List<AbstractTask> getHistory() {
+        evict(clock.millis());
+        List<AbstractTask> list = new ArrayList<>(entries.size());
+        for (Entry i = head; i != null; i = i.next) {
+            list.add(i.task);
+        }
+        return list;
+    }
+
+    @Override
+    public void forEach(Consumer<? super AbstractTask> action) {
+        evict(clock.millis());
+        for (Entry i = head; i != null; i = i.next) {
+            action.accept(i.task);
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    //вытесняет записи с головы, пока этого требует политика
+    private void evict(long now) {
+        while (head != null && policy.shouldEvict(entries.size(), now - head.viewedAt)) {
+            Entry eldest = head;
+            entries.remove(eldest.task.getId());
+            unlink(eldest);
+        }
+    }
+
+    private void linkLast(Entry entry) {
+        entry.prev = tail;
+        entry.next = null;
+        if (tail == null) {
+            head = entry;
+        } else {
+            tail.next = entry;
+        }
+        tail = entry;
+    }
+
+    private void unlink(Entry entry) {
+        if (entry.prev == null) {
+            head = entry.next;
+        } else {
+            entry.prev.next = entry.next;
+        }
+        if (entry.next == null) {
+            tail = entry.prev;
+        } else {
+            entry.next.prev = entry.prev;
+        }
+        entry.prev = null;
+        entry.next = null;
+    }
+}
@@ -0,0 +1,53 @@
+package histories;
+
+import task.AbstractTask;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+//потокобезопасная история: порядок просмотров задаётся возрастающей меткой,
+//поэтому перенос задачи в конец - это замена её метки, без общего замка на весь список
+public class ConcurrentHistoryManager implements HistoryManager {
+    //id задачи -> метка её последнего просмотра
+    private final ConcurrentHashMap<Integer, Long> stamps = new ConcurrentHashMap<>();
+    //метка -> задача, упорядочено по времени просмотра
+    private final ConcurrentSkipListMap<Long, AbstractTask> order = new ConcurrentSkipListMap<>();
+    private final AtomicLong stampGen = new AtomicLong();
+
+    //compute атомарен для одного id, поэтому одновременные просмотры одной задачи не оставляют дублей
+    @Override
+    public void add(AbstractTask task) {
+        stamps.compute(task.getId(), (id, old) -> {
+            if (old != null) {
+                order.remove(old);
+            }
+            long stamp = stampGen.incrementAndGet();
+            order.put(stamp, task);
+            return stamp;
+        });
+    }
+
+    @Override
+    public void remove(int id) {
+        stamps.computeIfPresent(id, (key, old) -> {
+            order.remove(old);
+            return null;
+        });
+    }
+
+    //слабо согласованный обход без копирования
+    @Override
+    public void forEach(Consumer<? super AbstractTask> action) {
+        order.values().forEach(action);
+    }
+
+    //слабо согласованный снимок: видны все просмотры, завершившиеся до вызова
+    @Override
+    public List<AbstractTask> getHistory() {
+        return new ArrayList<>(order.values());
+    }
+}
@@ -0,0 +1,30 @@
+package histories;
+
+import java.time.Duration;
+
+//когда BoundedHistoryManager вытесняет самую давнюю запись истории
+public interface EvictionPolicy {
+    //size - сколько записей в истории сейчас, ageMillis - сколько прошло с просмотра самой давней
+    boolean shouldEvict(int size, long ageMillis);
+
+    //не больше capacity записей, вытесняется давно не просмотренная
+    static EvictionPolicy lru(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Вместимость истории должна быть больше нуля");
+        }
+        return (size, ageMillis) -> size > capacity;
+    }
+
+    //запись живёт ttl с последнего просмотра
+    static EvictionPolicy expireAfter(Duration ttl) {
+        if (ttl == null || ttl.isNegative() || ttl.isZero()) {
+            throw new IllegalArgumentException("Время жизни записи должно быть больше нуля");
+        }
+        long ttlMillis = ttl.toMillis();
+        return (size, ageMillis) -> ageMillis > ttlMillis;
+    }
+
+    default EvictionPolicy or(EvictionPolicy other) {
+        return (size, ageMillis) -> shouldEvict(size, ageMillis) || other.shouldEvict(size, ageMillis);
+    }
+}
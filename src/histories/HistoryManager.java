@@ -3,9 +3,15 @@ package histories;
 import task.AbstractTask;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface HistoryManager {
     void add(AbstractTask task);
     List<AbstractTask> getHistory();
     void remove(int id);
+
+    //обход истории по порядку без копирования, если реализация это умеет
+    default void forEach(Consumer<? super AbstractTask> action) {
+        getHistory().forEach(action);
+    }
 }
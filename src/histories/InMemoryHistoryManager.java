@@ -1,82 +1,118 @@
 package histories;
 
-import exceptions.TaskNotExistsException;
 import task.AbstractTask;
+import util.IntIntMap;
 
 import java.util.*;
+import java.util.function.Consumer;
 
+//двусвязный список на массивах: узел - это номер ячейки, ссылки prev/next - тоже номера ячеек,
+//поэтому add/remove/перенос в конец не создают объектов; освободившиеся ячейки переиспользуются
 public class InMemoryHistoryManager implements HistoryManager {
-    private Map<Integer, Node<AbstractTask>> history = new HashMap<>();
-    private Node<AbstractTask> head;
-    private Node<AbstractTask> tail;
+    private static final int NONE = -1;
 
-    //добавляет task и в двусвязный список и в мапу
+    //id задачи -> номер ячейки
+    private final IntIntMap index = new IntIntMap(NONE);
+    private AbstractTask[] tasks = new AbstractTask[16];
+    private int[] prev = new int[16];
+    private int[] next = new int[16];
+    private int head = NONE;
+    private int tail = NONE;
+    //свободные ячейки связаны через next
+    private int free = NONE;
+    //ячейки с номерами >= used ещё ни разу не выдавались
+    private int used;
+
+    //добавляет task в конец; если задача уже была в истории, переставляет её ячейку
     @Override
     public void add(AbstractTask task) {
         int id = task.getId();
+        int slot = index.get(id);
 
-        if(history.containsKey(id)) {
-            remove(id);
+        if (slot == NONE) {
+            slot = allocate();
+            index.put(id, slot);
+        } else if (slot == tail) {
+            tasks[slot] = task;
+            return;
+        } else {
+            unlink(slot);
         }
-        history.put(id, linkLast(task));
+        tasks[slot] = task;
+        linkLast(slot);
     }
 
-    //удаляет и из двусвязного списка и из мапы
+    //удаляет и из списка и из индекса
     @Override
     public void remove(int id) {
-        if(!history.containsKey(id)) {
+        int slot = index.remove(id);
+        if (slot == NONE) {
             return;
         }
-        removeNode(history.get(id));
-        history.remove(id);
+        unlink(slot);
+        tasks[slot] = null;
+        next[slot] = free;
+        free = slot;
     }
 
+    @Override
+    public List<AbstractTask> getHistory() {
+        List<AbstractTask> list = new ArrayList<>(index.size());
 
-    //добавляет Node в конец двусвязного списка и мапы
-    private Node<AbstractTask> linkLast(AbstractTask task) {
-        Node<AbstractTask> node = new Node<>(task, tail, null);
-        if(tail == null) {
-            head = node;
-        } else {
-            tail.setNext(node);
+        for (int i = head; i != NONE; i = next[i]) {
+            list.add(tasks[i]);
         }
-        tail = node;
-        return node;
+        return list;
     }
 
-    //вырезает Node из двусвязного списка
-    private Node<AbstractTask> removeNode(Node<AbstractTask> node) {
-        if(node == head && node.getNext() != null) {
-            Node<AbstractTask> n = node.getNext();
-            n.setPrev(null);
-            head = n;
-        } else if(node == head && node == tail) {
-            head = null;
-            tail = null;
-        } else if (node == tail && (node.getPrev() != null)) {//ТУТ БЫЛА ОШИБКА
-            Node<AbstractTask> n = node.getPrev();
-            n.setNext(null);
-            tail = n;
-        } else if (node.getPrev() != null && node.getNext() != null) {
-            node.getPrev().setNext(node.getNext());
-            node.getNext().setPrev(node.getPrev());
+    //проходит по списку без копирования
+    @Override
+    public void forEach(Consumer<? super AbstractTask> action) {
+        for (int i = head; i != NONE; i = next[i]) {
+            action.accept(tasks[i]);
         }
-        return node;
     }
 
-    //собирает все задачи двусвязного списка и возвращает ArrayList с ними СДЕЛАНО i != null
-    private List<AbstractTask> getTasks() {
-        List<AbstractTask> list = new ArrayList<>();
+    //свободная ячейка из списка освобождённых или новая; массивы растут вдвое
+    private int allocate() {
+        if (free != NONE) {
+            int slot = free;
+            free = next[slot];
+            return slot;
+        }
+        if (used == tasks.length) {
+            int capacity = tasks.length * 2;
+            tasks = Arrays.copyOf(tasks, capacity);
+            prev = Arrays.copyOf(prev, capacity);
+            next = Arrays.copyOf(next, capacity);
+        }
+        return used++;
+    }
 
-        for(Node<AbstractTask> i = head; i != null; i = i.getNext()) {
-            list.add(i.getValue());
+    private void linkLast(int slot) {
+        prev[slot] = tail;
+        next[slot] = NONE;
+        if (tail == NONE) {
+            head = slot;
+        } else {
+            next[tail] = slot;
         }
-        return list;
+        tail = slot;
     }
 
-    //вызывает метод getTasks
-    @Override
-    public List<AbstractTask> getHistory() {
-        return getTasks();
+    //вырезает ячейку из списка
+    private void unlink(int slot) {
+        int p = prev[slot];
+        int n = next[slot];
+        if (p == NONE) {
+            head = n;
+        } else {
+            next[p] = n;
+        }
+        if (n == NONE) {
+            tail = p;
+        } else {
+            prev[n] = p;
+        }
     }
 }
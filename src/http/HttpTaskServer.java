@@ -0,0 +1,406 @@
+package http;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import exceptions.EpicNotFoundException;
+import exceptions.TaskNotExistsException;
+import exceptions.TaskTimeOverlapException;
+import json.TaskJsonWriter;
+import manager.ConcurrentTaskManager;
+import manager.Managers;
+import manager.TaskManager;
+import task.AbstractTask;
+import task.Epic;
+import task.Status;
+import task.SubTask;
+import task.Task;
+import task.Type;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+//HTTP/JSON доступ к TaskManager на com.sun.net.httpserver; каждый запрос выполняется в своём виртуальном потоке.
+//  GET    /tasks, /subtasks, /epics        список (?status=DONE или ?offset=0&limit=100)
+//  GET    /tasks/{id} ...                  задача, просмотр попадает в историю
+//  POST   /tasks ...                       без id (или id = 0) - создание, 201; с id - обновление
+//  DELETE /tasks ...                       все задачи типа; /tasks/{id} - одна
+//  GET    /epics/{id}/subtasks             подзадачи эпика
+//  GET    /history, /prioritized           история просмотров и задачи по времени начала
+//Списки снимаются под замком менеджера и пишутся в ответ кусками (chunked), соединения переиспользуются (keep-alive)
+public class HttpTaskServer implements AutoCloseable {
+    public static final int DEFAULT_PORT = 8080;
+    private static final String JSON = "application/json; charset=utf-8";
+
+    private final TaskManager manager;
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    //менеджер без своей синхронизации вызывается по одному запросу за раз; ReentrantLock, а не synchronized,
+    //чтобы ждущий виртуальный поток не занимал поток-носитель. У ConcurrentTaskManager замка нет
+    private final ReentrantLock lock;
+
+    //port 0 - любой свободный порт, см. getPort
+    public HttpTaskServer(TaskManager manager, int port) throws IOException {
+        if (manager == null) {
+            throw new NullPointerException("manager == null!!");
+        }
+        this.manager = manager;
+        lock = manager instanceof ConcurrentTaskManager ? null : new ReentrantLock();
+        server = HttpServer.create(new InetSocketAddress(port), 0);
+        server.setExecutor(executor);
+        server.createContext("/tasks", exchange -> handle(exchange, () -> tasks(exchange, Type.TASK)));
+        server.createContext("/subtasks", exchange -> handle(exchange, () -> tasks(exchange, Type.SUBTASK)));
+        server.createContext("/epics", exchange -> handle(exchange, () -> tasks(exchange, Type.EPIC)));
+        server.createContext("/history", exchange -> handle(exchange, () -> history(exchange)));
+        server.createContext("/prioritized", exchange -> handle(exchange, () -> prioritized(exchange)));
+    }
+
+    public static void main(String[] args) throws IOException {
+        enableTcpNoDelay();
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        HttpTaskServer server = new HttpTaskServer(Managers.getConcurrent(), port);
+        server.start();
+        System.out.println("HTTP-сервер задач запущен на порту " + server.getPort());
+    }
+
+    //без TCP_NODELAY заголовки и тело небольшого ответа уходят разными пакетами, и алгоритм Нейгла
+    //вместе с отложенным ACK клиента добавляет ~40 мс к каждому запросу на keep-alive соединении.
+    //Это системное свойство sun.net.httpserver.nodelay: оно действует на все серверы com.sun.net.httpserver
+    //в JVM и читается при создании первого из них, поэтому включается явно из запускающего кода до конструктора.
+    //Заданное вручную (-Dsun.net.httpserver.nodelay=false) не перезаписывается
+    public static void enableTcpNoDelay() {
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    //перестаёт принимать запросы и дожидается уже начатых
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.close();
+    }
+
+    private interface Handler {
+        void handle() throws IOException;
+    }
+
+    //ошибки менеджера превращаются в коды ответа; если ответ уже начат, соединение просто закрывается
+    private void handle(HttpExchange exchange, Handler handler) throws IOException {
+        try {
+            handler.handle();
+        } catch (TaskNotExistsException | EpicNotFoundException e) {
+            error(exchange, 404, e);
+        } catch (TaskTimeOverlapException e) {
+            error(exchange, 406, e);
+        } catch (IllegalArgumentException | NullPointerException e) {
+            error(exchange, 400, e);
+        } catch (RuntimeException e) {
+            error(exchange, 500, e);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void error(HttpExchange exchange, int code, RuntimeException e) throws IOException {
+        if (exchange.getResponseCode() == -1) {
+            String message = e.getMessage() == null ? e.getClass().getSimpleName() : e.getMessage();
+            send(exchange, code, json -> json.beginObject().name("error").value(message).endObject());
+        }
+    }
+
+    private void tasks(HttpExchange exchange, Type type) throws IOException {
+        String[] path = path(exchange);
+        String method = exchange.getRequestMethod();
+        if (path.length == 0) {
+            switch (method) {
+                case "GET" -> sendList(exchange, list(type, query(exchange)));
+                case "POST" -> save(exchange, type);
+                case "DELETE" -> {
+                    call(() -> {
+                        switch (type) {
+                            case TASK -> manager.deleteAllTasks();
+                            case SUBTASK -> manager.deleteAllSubTasks();
+                            case EPIC -> manager.deleteAllEpics();
+                        }
+                        return null;
+                    });
+                    exchange.sendResponseHeaders(204, -1);
+                }
+                default -> notAllowed(exchange);
+            }
+            return;
+        }
+        int id = id(path[0]);
+        if (path.length == 2 && type == Type.EPIC && path[1].equals("subtasks")) {
+            if (!method.equals("GET")) {
+                notAllowed(exchange);
+                return;
+            }
+            sendList(exchange, call(() -> manager.returnSubTasksInEpic(epic(id))));
+        } else if (path.length != 1) {
+            throw new TaskNotExistsException("Неизвестный путь: " + exchange.getRequestURI().getPath());
+        } else if (method.equals("GET")) {
+            AbstractTask task = call(() -> snapshot(switch (type) {
+                case TASK -> manager.getIdTask(id);
+                case SUBTASK -> manager.getIdSubtask(id);
+                case EPIC -> manager.getIdEpic(id);
+            }));
+            sendTask(exchange, 200, task);
+        } else if (method.equals("DELETE")) {
+            AbstractTask task = call(() -> snapshot(switch (type) {
+                case TASK -> manager.deleteTaskById(id);
+                case SUBTASK -> manager.deleteSubTaskById(id);
+                case EPIC -> manager.deleteEpicById(id);
+            }));
+            sendTask(exchange, 200, task);
+        } else {
+            notAllowed(exchange);
+        }
+    }
+
+    //без id задача создаётся, с id - обновляется
+    private void save(HttpExchange exchange, Type type) throws IOException {
+        String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+        Map<String, Object> json = JsonParser.parseObject(body);
+        //создание или обновление решается по разобранному id до вызова менеджера; эпик подзадачи ищется
+        //под замком, а менеджер при сохранении всё равно привязывает её к хранимому эпику по id
+        AbstractTask task = call(() -> TaskJson.read(json, type, this::epic));
+        boolean created = task.getId() == 0;
+        AbstractTask saved = call(() -> {
+            if (created) {
+                switch (type) {
+                    case TASK -> manager.createTask((Task) task);
+                    case SUBTASK -> manager.createSubTask((SubTask) task);
+                    case EPIC -> manager.createEpic((Epic) task);
+                }
+                return snapshot(task);
+            }
+            boolean updated = switch (type) {
+                case TASK -> manager.updateTask((Task) task);
+                case SUBTASK -> manager.updateSubTask((SubTask) task);
+                case EPIC -> manager.updateEpic((Epic) task);
+            };
+            if (!updated) {
+                throw new TaskNotExistsException("Задачи с id: " + task.getId() + " нет");
+            }
+            return snapshot(task);
+        });
+        sendTask(exchange, created ? 201 : 200, saved);
+    }
+
+    private Epic epic(int id) {
+        AbstractTask task = manager.findById(id);
+        if (!(task instanceof Epic epic)) {
+            throw new EpicNotFoundException("Эпика с id: " + id + " не существует!");
+        }
+        return epic;
+    }
+
+    private List<AbstractTask> list(Type type, Map<String, String> query) {
+        String status = query.get("status");
+        if (status != null) {
+            Status value = Status.valueOf(status);
+            return call(() -> snapshot(switch (type) {
+                case TASK -> manager.getTasks(value);
+                case SUBTASK -> manager.getSubTasks(value);
+                case EPIC -> manager.getEpics(value);
+            }));
+        }
+        if (query.containsKey("offset") || query.containsKey("limit")) {
+            int offset = Integer.parseInt(query.getOrDefault("offset", "0"));
+            int limit = Integer.parseInt(query.getOrDefault("limit", String.valueOf(Integer.MAX_VALUE)));
+            return call(() -> snapshot(switch (type) {
+                case TASK -> manager.getTasks(offset, limit);
+                case SUBTASK -> manager.getSubTasks(offset, limit);
+                case EPIC -> manager.getEpics(offset, limit);
+            }));
+        }
+        //снимок и так копирует список внутри call(), поэтому обходится живое представление
+        return call(() -> snapshot(switch (type) {
+            case TASK -> manager.viewTasks();
+            case SUBTASK -> manager.viewSubTasks();
+            case EPIC -> manager.viewEpics();
+        }));
+    }
+
+    private void history(HttpExchange exchange) throws IOException {
+        if (!exchange.getRequestMethod().equals("GET") || path(exchange).length != 0) {
+            notAllowed(exchange);
+            return;
+        }
+        List<AbstractTask> history = new ArrayList<>();
+        call(() -> {
+            manager.forEachInHistory(task -> history.add(snapshot(task)));
+            return null;
+        });
+        sendList(exchange, history);
+    }
+
+    private void prioritized(HttpExchange exchange) throws IOException {
+        if (!exchange.getRequestMethod().equals("GET") || path(exchange).length != 0) {
+            notAllowed(exchange);
+            return;
+        }
+        sendList(exchange, call(manager::getPrioritizedTasks));
+    }
+
+    //ответ пишется уже после call(), без замка менеджера. Задачи и подзадачи при обновлении заменяются
+    //новыми объектами и пишутся как есть, а эпик меняется на месте: статус, время и длительность считаются
+    //по его подзадачам. Поэтому они снимаются здесь, внутри call(), у ConcurrentTaskManager - под замком эпика
+    private AbstractTask snapshot(AbstractTask task) {
+        if (!(task instanceof Epic epic)) {
+            return task;
+        }
+        if (manager instanceof ConcurrentTaskManager concurrent) {
+            return concurrent.readEpic(epic, EpicSnapshot::new);
+        }
+        return new EpicSnapshot(epic);
+    }
+
+    private List<AbstractTask> snapshot(Collection<? extends AbstractTask> tasks) {
+        List<AbstractTask> result = new ArrayList<>(tasks.size());
+        for (AbstractTask task : tasks) {
+            result.add(snapshot(task));
+        }
+        return result;
+    }
+
+    //неизменяемые значения эпика на момент снимка; подзадач у снимка нет, в ответ они не пишутся
+    private static final class EpicSnapshot extends Epic {
+        private final LocalDateTime start;
+        private final Duration total;
+        private final LocalDateTime end;
+
+        EpicSnapshot(Epic epic) {
+            super(epic.getName(), epic.getDescription(), epic.getStatus());
+            setId(epic.getId());
+            start = epic.getStartTime();
+            total = epic.getDuration();
+            end = epic.getEndTime();
+        }
+
+        @Override
+        public LocalDateTime getStartTime() {
+            return start;
+        }
+
+        @Override
+        public Duration getDuration() {
+            return total;
+        }
+
+        @Override
+        public LocalDateTime getEndTime() {
+            return end;
+        }
+    }
+
+    private <R> R call(Supplier<R> action) {
+        if (lock == null) {
+            return action.get();
+        }
+        lock.lock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private interface Body {
+        void write(JsonWriter json) throws IOException;
+    }
+
+    //небольшой ответ собирается целиком, чтобы отдать его с Content-Length
+    private static void send(HttpExchange exchange, int code, Body body) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        Writer writer = new OutputStreamWriter(bytes, StandardCharsets.UTF_8);
+        JsonWriter json = new JsonWriter(writer);
+        body.write(json);
+        json.flush();
+        exchange.getResponseHeaders().set("Content-Type", JSON);
+        exchange.sendResponseHeaders(code, bytes.size());
+        bytes.writeTo(exchange.getResponseBody());
+    }
+
+    private static void sendTask(HttpExchange exchange, int code, AbstractTask task) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        TaskJsonWriter json = new TaskJsonWriter(bytes);
+        json.write(task).flush();
+        exchange.getResponseHeaders().set("Content-Type", JSON);
+        exchange.sendResponseHeaders(code, bytes.size());
+        bytes.writeTo(exchange.getResponseBody());
+    }
+
+    //список пишется по мере обхода кусками (chunked): ответ не собирается в памяти целиком
+    private static void sendList(HttpExchange exchange, Collection<? extends AbstractTask> tasks) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", JSON);
+        exchange.sendResponseHeaders(200, 0);
+        TaskJsonWriter json = new TaskJsonWriter(exchange.getResponseBody());
+        json.writeAll(tasks).flush();
+    }
+
+    private static void notAllowed(HttpExchange exchange) throws IOException {
+        send(exchange, 405, json -> json.beginObject().name("error")
+                .value("Метод " + exchange.getRequestMethod() + " не поддерживается").endObject());
+    }
+
+    //части пути после пути контекста: /epics/3/subtasks -> [3, subtasks]
+    private static String[] path(HttpExchange exchange) {
+        String path = exchange.getRequestURI().getPath().substring(exchange.getHttpContext().getPath().length());
+        if (path.startsWith("/")) {
+            path = path.substring(1);
+        }
+        if (path.endsWith("/")) {
+            path = path.substring(0, path.length() - 1);
+        }
+        return path.isEmpty() ? new String[0] : path.split("/");
+    }
+
+    private static int id(String value) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new TaskNotExistsException("Некорректный id: " + value);
+        }
+    }
+
+    private static Map<String, String> query(HttpExchange exchange) {
+        Map<String, String> result = new HashMap<>();
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null || query.isEmpty()) {
+            return result;
+        }
+        for (String pair : query.split("&")) {
+            int equals = pair.indexOf('=');
+            String name = equals < 0 ? pair : pair.substring(0, equals);
+            String value = equals < 0 ? "" : pair.substring(equals + 1);
+            result.put(URLDecoder.decode(name, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,72 @@
+package http;
+
+import task.AbstractTask;
+import task.Epic;
+import task.Status;
+import task.SubTask;
+import task.Task;
+import task.Type;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+//задача из тела запроса: поля как у json.TaskJsonWriter, но любое может отсутствовать, а тип задаёт путь.
+//Время эпика вычисляется по подзадачам и из запроса не читается
+final class TaskJson {
+    private TaskJson() {
+    }
+
+    //задача типа type из тела запроса; epics ищет эпик подзадачи по id
+    static AbstractTask read(Map<String, Object> json, Type type, IntFunction<Epic> epics) {
+        String name = string(json, "name");
+        String description = string(json, "description");
+        String statusName = string(json, "status");
+        Status status;
+        try {
+            status = statusName == null ? Status.NEW : Status.valueOf(statusName);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Неизвестный статус: " + statusName);
+        }
+
+        AbstractTask task = switch (type) {
+            case TASK -> new Task(name, description, status);
+            case EPIC -> new Epic(name, description, status);
+            case SUBTASK -> {
+                Long epicId = number(json, "epic");
+                yield new SubTask(epicId == null ? null : epics.apply(epicId.intValue()), name, description, status);
+            }
+        };
+        Long id = number(json, "id");
+        task.setId(id == null ? 0 : id.intValue());
+        if (type != Type.EPIC) {
+            try {
+                String start = string(json, "startTime");
+                String duration = string(json, "duration");
+                task.setStartTime(start == null ? null : LocalDateTime.parse(start));
+                task.setDuration(duration == null ? null : Duration.parse(duration));
+            } catch (DateTimeParseException e) {
+                throw new IllegalArgumentException("Некорректное время задачи: " + e.getParsedString());
+            }
+        }
+        return task;
+    }
+
+    private static String string(Map<String, Object> json, String field) {
+        Object value = json.get(field);
+        if (value != null && !(value instanceof String)) {
+            throw new IllegalArgumentException("Поле " + field + " должно быть строкой");
+        }
+        return (String) value;
+    }
+
+    private static Long number(Map<String, Object> json, String field) {
+        Object value = json.get(field);
+        if (value != null && !(value instanceof Long)) {
+            throw new IllegalArgumentException("Поле " + field + " должно быть целым числом");
+        }
+        return (Long) value;
+    }
+}
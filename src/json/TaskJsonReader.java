@@ -0,0 +1,522 @@
+package json;
+
+import task.AbstractTask;
+import task.Epic;
+import task.Status;
+import task.SubTask;
+import task.Task;
+import task.Type;
+import util.IntObjectMap;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntFunction;
+
+//потоковое чтение задач в формате TaskJsonWriter: по одной задаче за вызов read, из буфера символов,
+//без дерева JSON и без отражения. Имена полей и значения type/status сравниваются с буфером без создания строк,
+//время разбирается вручную. Неизвестные поля и "endTime" пропускаются, время эпика не читается - оно вычисляется.
+//Некорректный JSON - IllegalArgumentException
+public class TaskJsonReader implements Closeable {
+    private static final int BUFFER = 8192;
+
+    private static final char[] ID = "id".toCharArray();
+    private static final char[] TYPE = "type".toCharArray();
+    private static final char[] NAME = "name".toCharArray();
+    private static final char[] DESCRIPTION = "description".toCharArray();
+    private static final char[] STATUS = "status".toCharArray();
+    private static final char[] START_TIME = "startTime".toCharArray();
+    private static final char[] DURATION = "duration".toCharArray();
+    private static final char[] EPIC = "epic".toCharArray();
+
+    private static final Type[] TYPES = Type.values();
+    private static final Status[] STATUSES = Status.values();
+    private static final char[][] TYPE_NAMES = new char[TYPES.length][];
+    private static final char[][] STATUS_NAMES = new char[STATUSES.length][];
+
+    static {
+        for (Type type : TYPES) {
+            TYPE_NAMES[type.ordinal()] = type.name().toCharArray();
+        }
+        for (Status status : STATUSES) {
+            STATUS_NAMES[status.ordinal()] = status.name().toCharArray();
+        }
+    }
+
+    private final Reader in;
+    private final char[] buffer = new char[BUFFER];
+    private int position;
+    private int limit;
+    //последняя прочитанная строка или имя поля
+    private char[] scratch = new char[64];
+    private int length;
+
+    //эпик подзадачи по id; если null - эпики из этого же потока, и подзадачи добавляются в них
+    private final IntFunction<Epic> epics;
+    private final IntObjectMap<Epic> ownEpics;
+    //подзадачи, прочитанные раньше своего эпика
+    private final IntObjectMap<List<SubTask>> waiting;
+
+    private boolean started;
+    private boolean inArray;
+
+    //подзадачи связываются с эпиками из этого же потока в любом порядке
+    public TaskJsonReader(Reader in) {
+        this(in, null);
+    }
+
+    //в UTF-8
+    public TaskJsonReader(InputStream in) {
+        this(new InputStreamReader(in, StandardCharsets.UTF_8));
+    }
+
+    //эпик подзадачи ищется через epics (например, в менеджере), эпики при этом не меняются
+    public TaskJsonReader(Reader in, IntFunction<Epic> epics) {
+        if (in == null) {
+            throw new NullPointerException("in == null!!");
+        }
+        this.in = in;
+        this.epics = epics;
+        ownEpics = epics == null ? new IntObjectMap<>() : null;
+        waiting = epics == null ? new IntObjectMap<>() : null;
+    }
+
+    //следующая задача массива (или единственный объект), null - задачи кончились
+    public AbstractTask read() throws IOException {
+        int c = skipSpaces();
+        if (!started) {
+            started = true;
+            if (c == '[') {
+                position++;
+                inArray = true;
+                c = skipSpaces();
+                if (c == ']') {
+                    position++;
+                    inArray = false;
+                    return null;
+                }
+                return readTask();
+            }
+        }
+        if (c < 0) {
+            if (inArray) {
+                throw error("массив задач не закрыт");
+            }
+            return null;
+        } else if (!inArray) {
+            throw error("после задачи есть лишние символы");
+        } else if (c == ']') {
+            position++;
+            inArray = false;
+            return null;
+        } else if (c != ',') {
+            throw error("ожидалась ',' или ']'");
+        }
+        position++;
+        skipSpaces();
+        return readTask();
+    }
+
+    public List<AbstractTask> readAll() throws IOException {
+        List<AbstractTask> result = new ArrayList<>();
+        for (AbstractTask task = read(); task != null; task = read()) {
+            result.add(task);
+        }
+        return result;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private AbstractTask readTask() throws IOException {
+        expect('{');
+        int id = 0;
+        Type type = null;
+        String name = null;
+        String description = null;
+        Status status = null;
+        LocalDateTime startTime = null;
+        Duration duration = null;
+        int epicId = 0;
+
+        int c = skipSpaces();
+        if (c == '}') {
+            position++;
+        } else {
+            while (true) {
+                readString();
+                skipSpaces();
+                expect(':');
+                skipSpaces();
+                if (is(ID)) {
+                    id = (int) readNumber();
+                } else if (is(TYPE)) {
+                    type = readString() ? TYPES[match(TYPE_NAMES, "тип")] : null;
+                } else if (is(NAME)) {
+                    name = readString() ? new String(scratch, 0, length) : null;
+                } else if (is(DESCRIPTION)) {
+                    description = readString() ? new String(scratch, 0, length) : null;
+                } else if (is(STATUS)) {
+                    status = readString() ? STATUSES[match(STATUS_NAMES, "статус")] : null;
+                } else if (is(START_TIME)) {
+                    startTime = readString() ? parseTime() : null;
+                } else if (is(DURATION)) {
+                    duration = readString() ? parseDuration() : null;
+                } else if (is(EPIC)) {
+                    epicId = peek() == 'n' ? readNull(0) : (int) readNumber();
+                } else {
+                    skipValue();
+                }
+                c = skipSpaces();
+                position++;
+                if (c == '}') {
+                    break;
+                } else if (c != ',') {
+                    throw error("ожидалась ',' или '}'");
+                }
+                skipSpaces();
+            }
+        }
+        if (type == null) {
+            throw error("у задачи нет поля type");
+        } else if (status == null) {
+            //как и в HTTP-запросе: без статуса задача новая, иначе эпик не сможет её учесть
+            status = Status.NEW;
+        }
+
+        switch (type) {
+            case TASK -> {
+                Task task = new Task(name, description, status);
+                task.setId(id);
+                task.setStartTime(startTime);
+                task.setDuration(duration);
+                return task;
+            }
+            case EPIC -> {
+                Epic epic = new Epic(name, description, status);
+                epic.setId(id);
+                if (ownEpics != null) {
+                    ownEpics.put(id, epic);
+                    List<SubTask> linked = waiting.remove(id);
+                    if (linked != null) {
+                        for (SubTask subTask : linked) {
+                            subTask.setEpic(epic);
+                            epic.addSubTask(subTask);
+                        }
+                    }
+                }
+                return epic;
+            }
+            default -> {
+                Epic epic = epicId == 0 ? null : ownEpics != null ? ownEpics.get(epicId) : epics.apply(epicId);
+                SubTask subTask = new SubTask(epic, name, description, id, status);
+                subTask.setStartTime(startTime);
+                subTask.setDuration(duration);
+                if (ownEpics != null && epicId != 0) {
+                    if (epic != null) {
+                        epic.addSubTask(subTask);
+                    } else {
+                        List<SubTask> linked = waiting.get(epicId);
+                        if (linked == null) {
+                            linked = new ArrayList<>();
+                            waiting.put(epicId, linked);
+                        }
+                        linked.add(subTask);
+                    }
+                }
+                return subTask;
+            }
+        }
+    }
+
+    //строка в scratch; false - вместо строки null
+    private boolean readString() throws IOException {
+        if (peek() == 'n') {
+            readNull(0);
+            return false;
+        }
+        expect('"');
+        length = 0;
+        while (true) {
+            if (position == limit && !fill()) {
+                throw error("незакрытая строка");
+            }
+            int start = position;
+            while (position < limit) {
+                char c = buffer[position];
+                if (c == '"' || c == '\\') {
+                    break;
+                }
+                position++;
+            }
+            append(buffer, start, position - start);
+            if (position == limit) {
+                continue;
+            }
+            char c = buffer[position++];
+            if (c == '"') {
+                return true;
+            }
+            char escaped = next();
+            switch (escaped) {
+                case 'n' -> append('\n');
+                case 'r' -> append('\r');
+                case 't' -> append('\t');
+                case 'b' -> append('\b');
+                case 'f' -> append('\f');
+                case 'u' -> {
+                    int code = 0;
+                    for (int i = 0; i < 4; i++) {
+                        int digit = Character.digit(next(), 16);
+                        if (digit < 0) {
+                            throw error("неверная escape-последовательность");
+                        }
+                        code = code * 16 + digit;
+                    }
+                    append((char) code);
+                }
+                default -> append(escaped);
+            }
+        }
+    }
+
+    private long readNumber() throws IOException {
+        int c = peek();
+        boolean negative = c == '-';
+        if (negative) {
+            position++;
+        }
+        long value = 0;
+        int digits = 0;
+        while (true) {
+            c = peek();
+            if (c < '0' || c > '9') {
+                break;
+            }
+            value = value * 10 + (c - '0');
+            position++;
+            if (++digits > 18) {
+                throw error("слишком длинное число");
+            }
+        }
+        if (digits == 0) {
+            throw error("ожидалось число");
+        }
+        return negative ? -value : value;
+    }
+
+    private int readNull(int value) throws IOException {
+        for (char c : "null".toCharArray()) {
+            if (next() != c) {
+                throw error("неверное значение");
+            }
+        }
+        return value;
+    }
+
+    //значение неизвестного поля любого вида
+    private void skipValue() throws IOException {
+        int c = peek();
+        if (c == '"') {
+            readString();
+        } else if (c == '{' || c == '[') {
+            int depth = 0;
+            do {
+                c = next();
+                if (c == '"') {
+                    position--;
+                    readString();
+                } else if (c == '{' || c == '[') {
+                    depth++;
+                } else if (c == '}' || c == ']') {
+                    depth--;
+                }
+            } while (depth > 0);
+        } else {
+            while ((c = peek()) >= 0 && c != ',' && c != '}' && c != ']' && !Character.isWhitespace(c)) {
+                position++;
+            }
+        }
+    }
+
+    private boolean is(char[] field) {
+        if (length != field.length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (scratch[i] != field[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int match(char[][] names, String what) {
+        for (int i = 0; i < names.length; i++) {
+            if (is(names[i])) {
+                return i;
+            }
+        }
+        throw error("неизвестный " + what + " " + new String(scratch, 0, length));
+    }
+
+    //yyyy-MM-ddTHH:mm[:ss[.f]], остальные формы ISO-8601 - через LocalDateTime.parse
+    private LocalDateTime parseTime() {
+        if (length >= 16 && scratch[4] == '-' && scratch[7] == '-' && scratch[10] == 'T' && scratch[13] == ':'
+                && (length == 16 || scratch[16] == ':' && length >= 19 && (length == 19 || scratch[19] == '.'))) {
+            int year = digits(0, 4);
+            int month = digits(5, 2);
+            int day = digits(8, 2);
+            int hour = digits(11, 2);
+            int minute = digits(14, 2);
+            int second = length > 16 ? digits(17, 2) : 0;
+            int nanos = length > 20 && length <= 29 ? digits(20, length - 20) : length == 19 ? 0 : -1;
+            if (year >= 0 && month >= 0 && day >= 0 && hour >= 0 && minute >= 0 && second >= 0 && nanos >= 0) {
+                for (int i = length - 20; i < 9 && length > 20; i++) {
+                    nanos *= 10;
+                }
+                try {
+                    return LocalDateTime.of(year, month, day, hour, minute, second, nanos);
+                } catch (DateTimeException e) {
+                    throw error("неверное время " + new String(scratch, 0, length));
+                }
+            }
+        }
+        try {
+            return LocalDateTime.parse(new String(scratch, 0, length));
+        } catch (DateTimeParseException e) {
+            throw error("неверное время " + e.getParsedString());
+        }
+    }
+
+    //PT[nH][nM][n[.f]S], остальные формы ISO-8601 - через Duration.parse
+    private Duration parseDuration() {
+        if (length >= 3 && scratch[0] == 'P' && scratch[1] == 'T') {
+            long seconds = 0;
+            int nanos = 0;
+            int i = 2;
+            boolean valid = true;
+            while (i < length && valid) {
+                int start = i;
+                long value = 0;
+                while (i < length && scratch[i] >= '0' && scratch[i] <= '9' && i - start < 15) {
+                    value = value * 10 + (scratch[i++] - '0');
+                }
+                if (i == start || i == length) {
+                    valid = false;
+                } else if (scratch[i] == 'H') {
+                    seconds += value * 3600;
+                } else if (scratch[i] == 'M') {
+                    seconds += value * 60;
+                } else if (scratch[i] == 'S') {
+                    seconds += value;
+                    valid = i == length - 1;
+                } else if (scratch[i] == '.') {
+                    int fraction = ++i;
+                    while (i < length && scratch[i] >= '0' && scratch[i] <= '9' && i - fraction < 9) {
+                        nanos = nanos * 10 + (scratch[i++] - '0');
+                    }
+                    for (int k = i - fraction; k < 9; k++) {
+                        nanos *= 10;
+                    }
+                    seconds += value;
+                    valid = i > fraction && i == length - 1 && scratch[i] == 'S';
+                } else {
+                    valid = false;
+                }
+                i++;
+            }
+            if (valid) {
+                return Duration.ofSeconds(seconds, nanos);
+            }
+        }
+        try {
+            return Duration.parse(new String(scratch, 0, length));
+        } catch (DateTimeParseException e) {
+            throw error("неверная длительность " + e.getParsedString());
+        }
+    }
+
+    //число из count цифр scratch начиная с from, -1 - там не только цифры
+    private int digits(int from, int count) {
+        int value = 0;
+        for (int i = from; i < from + count; i++) {
+            char c = scratch[i];
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private void append(char c) {
+        if (length == scratch.length) {
+            scratch = Arrays.copyOf(scratch, length * 2);
+        }
+        scratch[length++] = c;
+    }
+
+    private void append(char[] chars, int from, int count) {
+        if (length + count > scratch.length) {
+            scratch = Arrays.copyOf(scratch, Math.max(scratch.length * 2, length + count));
+        }
+        System.arraycopy(chars, from, scratch, length, count);
+        length += count;
+    }
+
+    private void expect(char expected) throws IOException {
+        if (next() != expected) {
+            throw error("ожидался символ '" + expected + "'");
+        }
+    }
+
+    //первый не пробельный символ без вычитывания, -1 - конец потока
+    private int skipSpaces() throws IOException {
+        int c;
+        while ((c = peek()) >= 0 && Character.isWhitespace(c)) {
+            position++;
+        }
+        return c;
+    }
+
+    private int peek() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return buffer[position];
+    }
+
+    private char next() throws IOException {
+        if (position == limit && !fill()) {
+            throw error("неожиданный конец");
+        }
+        return buffer[position++];
+    }
+
+    private boolean fill() throws IOException {
+        int read = in.read(buffer, 0, BUFFER);
+        if (read <= 0) {
+            return false;
+        }
+        position = 0;
+        limit = read;
+        return true;
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException("Некорректный JSON задачи: " + message);
+    }
+}
@@ -0,0 +1,316 @@
+package json;
+
+import task.AbstractTask;
+import task.SubTask;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+//потоковая запись задач в JSON без отражения: поля AbstractTask пишутся прямо в буфер символов,
+//числа, время и длительность форматируются без промежуточных строк. Задача:
+//{"id":1,"type":"SUBTASK","name":"...","description":"...","status":"NEW",
+//"startTime":"2024-05-01T10:00","duration":"PT30M","endTime":"2024-05-01T10:30","epic":2}.
+//Время - как LocalDateTime.toString и Duration.toString (ISO-8601), "epic" - только у подзадачи.
+//У эпика нет списка подзадач: связь восстанавливается по "epic" подзадач (см. TaskJsonReader)
+public class TaskJsonWriter implements Closeable, Flushable {
+    private static final int BUFFER = 8192;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final Writer out;
+    private final char[] buffer = new char[BUFFER];
+    private int size;
+    //внутри массива и был ли в нём уже элемент
+    private boolean inArray;
+    private boolean first;
+
+    public TaskJsonWriter(Writer out) {
+        if (out == null) {
+            throw new NullPointerException("out == null!!");
+        }
+        this.out = out;
+    }
+
+    //в UTF-8
+    public TaskJsonWriter(OutputStream out) {
+        this(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+    }
+
+    public TaskJsonWriter beginArray() throws IOException {
+        if (inArray) {
+            throw new IllegalStateException("Массив задач уже открыт");
+        }
+        write('[');
+        inArray = true;
+        first = true;
+        return this;
+    }
+
+    public TaskJsonWriter endArray() throws IOException {
+        if (!inArray) {
+            throw new IllegalStateException("Массив задач не открыт");
+        }
+        write(']');
+        inArray = false;
+        return this;
+    }
+
+    //задача - отдельным объектом или очередным элементом открытого массива
+    public TaskJsonWriter write(AbstractTask task) throws IOException {
+        if (task == null) {
+            throw new NullPointerException("task == null!!");
+        }
+        if (inArray && !first) {
+            write(',');
+        }
+        first = false;
+
+        write("{\"id\":");
+        number(task.getId());
+        write(",\"type\":\"");
+        write(task.getType().name());
+        write("\",\"name\":");
+        string(task.getName());
+        write(",\"description\":");
+        string(task.getDescription());
+        write(",\"status\":");
+        if (task.getStatus() == null) {
+            write("null");
+        } else {
+            write('"');
+            write(task.getStatus().name());
+            write('"');
+        }
+        write(",\"startTime\":");
+        time(task.getStartTime());
+        write(",\"duration\":");
+        duration(task.getDuration());
+        write(",\"endTime\":");
+        time(task.getEndTime());
+        if (task instanceof SubTask subTask) {
+            write(",\"epic\":");
+            if (subTask.getEpic() == null) {
+                write("null");
+            } else {
+                number(subTask.getEpic().getId());
+            }
+        }
+        write('}');
+        return this;
+    }
+
+    //все задачи одним массивом; чтобы подзадачи при чтении сразу нашли эпик, эпики стоит передавать раньше
+    public TaskJsonWriter writeAll(Iterable<? extends AbstractTask> tasks) throws IOException {
+        beginArray();
+        for (AbstractTask task : tasks) {
+            write(task);
+        }
+        return endArray();
+    }
+
+    @Override
+    public void flush() throws IOException {
+        drain();
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        drain();
+        out.close();
+    }
+
+    private void drain() throws IOException {
+        if (size > 0) {
+            out.write(buffer, 0, size);
+            size = 0;
+        }
+    }
+
+    private void write(char c) throws IOException {
+        if (size == BUFFER) {
+            drain();
+        }
+        buffer[size++] = c;
+    }
+
+    private void write(String value) throws IOException {
+        int length = value.length();
+        if (size + length > BUFFER) {
+            drain();
+            if (length > BUFFER) {
+                out.write(value);
+                return;
+            }
+        }
+        value.getChars(0, length, buffer, size);
+        size += length;
+    }
+
+    private void string(String value) throws IOException {
+        if (value == null) {
+            write("null");
+            return;
+        }
+        write('"');
+        int start = 0;
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c >= 0x20 && c != '"' && c != '\\') {
+                continue;
+            }
+            chunk(value, start, i);
+            start = i + 1;
+            write('\\');
+            switch (c) {
+                case '"' -> write('"');
+                case '\\' -> write('\\');
+                case '\n' -> write('n');
+                case '\r' -> write('r');
+                case '\t' -> write('t');
+                default -> {
+                    write("u00");
+                    write(HEX[c >> 4]);
+                    write(HEX[c & 0xF]);
+                }
+            }
+        }
+        chunk(value, start, length);
+        write('"');
+    }
+
+    //часть строки без экранирования, кусками размером с буфер
+    private void chunk(String value, int from, int to) throws IOException {
+        while (from < to) {
+            if (size == BUFFER) {
+                drain();
+            }
+            int count = Math.min(to - from, BUFFER - size);
+            value.getChars(from, from + count, buffer, size);
+            size += count;
+            from += count;
+        }
+    }
+
+    private void number(long value) throws IOException {
+        if (value < 0) {
+            if (value == Long.MIN_VALUE) {
+                write(Long.toString(value));
+                return;
+            }
+            write('-');
+            value = -value;
+        }
+        if (size + 19 > BUFFER) {
+            drain();
+        }
+        int digits = 1;
+        for (long rest = value / 10; rest > 0; rest /= 10) {
+            digits++;
+        }
+        for (int i = size + digits - 1; i >= size; i--) {
+            buffer[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        size += digits;
+    }
+
+    private void digits(int value, int width) throws IOException {
+        if (size + width > BUFFER) {
+            drain();
+        }
+        for (int i = size + width - 1; i >= size; i--) {
+            buffer[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        size += width;
+    }
+
+    //как LocalDateTime.toString: секунды - только если не ноль, дробь - 3, 6 или 9 цифр
+    private void time(LocalDateTime time) throws IOException {
+        if (time == null) {
+            write("null");
+            return;
+        } else if (time.getYear() < 0 || time.getYear() > 9999) {
+            write('"');
+            write(time.toString());
+            write('"');
+            return;
+        }
+        write('"');
+        digits(time.getYear(), 4);
+        write('-');
+        digits(time.getMonthValue(), 2);
+        write('-');
+        digits(time.getDayOfMonth(), 2);
+        write('T');
+        digits(time.getHour(), 2);
+        write(':');
+        digits(time.getMinute(), 2);
+        int seconds = time.getSecond();
+        int nanos = time.getNano();
+        if (seconds > 0 || nanos > 0) {
+            write(':');
+            digits(seconds, 2);
+            if (nanos > 0) {
+                write('.');
+                if (nanos % 1_000_000 == 0) {
+                    digits(nanos / 1_000_000, 3);
+                } else if (nanos % 1000 == 0) {
+                    digits(nanos / 1000, 6);
+                } else {
+                    digits(nanos, 9);
+                }
+            }
+        }
+        write('"');
+    }
+
+    //как Duration.toString: PT8H6M12.345S; отрицательная длительность - через toString
+    private void duration(Duration duration) throws IOException {
+        if (duration == null) {
+            write("null");
+            return;
+        } else if (duration.isNegative()) {
+            write('"');
+            write(duration.toString());
+            write('"');
+            return;
+        }
+        long total = duration.getSeconds();
+        int nanos = duration.getNano();
+        long hours = total / 3600;
+        int minutes = (int) (total % 3600 / 60);
+        int seconds = (int) (total % 60);
+        write("\"PT");
+        if (hours != 0) {
+            number(hours);
+            write('H');
+        }
+        if (minutes != 0) {
+            number(minutes);
+            write('M');
+        }
+        if (seconds != 0 || nanos != 0 || (hours == 0 && minutes == 0)) {
+            number(seconds);
+            if (nanos > 0) {
+                int width = 9;
+                while (nanos % 10 == 0) {
+                    nanos /= 10;
+                    width--;
+                }
+                write('.');
+                digits(nanos, width);
+            }
+            write('S');
+        }
+        write('"');
+    }
+}
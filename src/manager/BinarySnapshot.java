@@ -0,0 +1,368 @@
+package manager;
+
+import exceptions.ManagerIOException;
+import task.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+
+//двоичный снимок: "TMSB", байт версии, varint число задач, задачи (эпики раньше подзадач), varint длина истории и id.
+//С версии 2 каждая задача и история обёрнуты в кадр: varint длина, данные, CRC32C данных (4 байта).
+//Задача: байт типа (Type.ordinal), varint id, строки name и description (varint длина + 1, 0 - null, затем UTF-8),
+//байт статуса (Status.ordinal), байт флагов времени, начало (zigzag-varint секунды UTC + varint наносекунды),
+//длительность (zigzag-varint секунды + varint наносекунды), у подзадачи - varint id эпика (0 - без эпика)
+final class BinarySnapshot {
+    private static final byte[] MAGIC = {'T', 'M', 'S', 'B'};
+    static final int VERSION = 2;
+    //версия 1 - без кадров и контрольных сумм
+    private static final int VERSION_UNFRAMED = 1;
+    //больше не бывает даже у задачи с очень длинным описанием; защищает от испорченной длины кадра
+    private static final int MAX_RECORD = 64 << 20;
+
+    private static final int HAS_START = 1;
+    private static final int HAS_DURATION = 2;
+
+    private static final Type[] TYPES = Type.values();
+    private static final Status[] STATUSES = Status.values();
+
+    private BinarySnapshot() {
+    }
+
+    //true, если файл начинается с сигнатуры двоичного снимка; ничего не вычитывает
+    static boolean isBinary(SnapshotInput input) throws IOException {
+        if (!input.request(MAGIC.length)) {
+            return false;
+        }
+        ByteBuffer in = input.buffer();
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (in.get(in.position() + i) != MAGIC[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static byte[] write(Collection<Task> tasks, Collection<Epic> epics, Collection<SubTask> subTasks,
+                        List<Integer> history) {
+        Output out = new Output(64 + (tasks.size() + epics.size() + subTasks.size()) * 48);
+        out.bytes(MAGIC);
+        out.writeByte(VERSION);
+        out.varint(tasks.size() + epics.size() + subTasks.size());
+        Output frame = new Output(256);
+        for (Task task : tasks) {
+            writeTask(frame.reset(), task);
+            out.frame(frame);
+        }
+        for (Epic epic : epics) {
+            writeTask(frame.reset(), epic);
+            out.frame(frame);
+        }
+        for (SubTask subTask : subTasks) {
+            writeTask(frame.reset(), subTask);
+            out.frame(frame);
+        }
+        frame = new Output(history.size() * 3 + 5);
+        frame.varint(history.size());
+        for (int id : history) {
+            frame.varint(id);
+        }
+        out.frame(frame);
+        return out.toByteArray();
+    }
+
+    //разбирает снимок, отдавая задачи в sink по порядку; epics ищет уже прочитанный эпик подзадачи.
+    //recover - задачи с неверной суммой пропускаются, а на обрыве файла чтение заканчивается без ошибки
+    static SnapshotIntegrity.ReadResult read(SnapshotInput in, boolean recover, IntFunction<Epic> epics,
+                                             Consumer<AbstractTask> sink) throws IOException {
+        int version = 0;
+        int records = 0;
+        int corrupt = 0;
+        try {
+            for (byte b : MAGIC) {
+                if (in.get() != b) {
+                    throw new ManagerIOException("Файл не является двоичным снимком");
+                }
+            }
+            version = in.get() & 0xFF;
+            if (version != VERSION && version != VERSION_UNFRAMED) {
+                throw new ManagerIOException("Неподдерживаемая версия снимка: " + version);
+            }
+            int count = readVarint(in);
+            for (; records < count; records++) {
+                if (version == VERSION_UNFRAMED) {
+                    sink.accept(readTask(in, epics));
+                    continue;
+                }
+                int length = openFrame(in, MAX_RECORD);
+                if (length >= 0) {
+                    int end = in.buffer().position() + length;
+                    sink.accept(readTask(in, epics));
+                    in.buffer().position(end + 4);
+                } else if (recover) {
+                    corrupt++;
+                } else {
+                    throw SnapshotIntegrity.corrupted("Не сходится контрольная сумма задачи №" + (records + 1) + " в снимке");
+                }
+            }
+            if (version != VERSION_UNFRAMED && openFrame(in, 5L * (count + 1)) < 0) {
+                if (!recover) {
+                    throw SnapshotIntegrity.corrupted("Не сходится контрольная сумма истории в снимке");
+                }
+                return new SnapshotIntegrity.ReadResult(new ArrayList<>(), records, corrupt);
+            }
+            int historySize = readVarint(in);
+            List<Integer> history = new ArrayList<>(historySize);
+            for (int i = 0; i < historySize; i++) {
+                history.add(readVarint(in));
+            }
+            if (version != VERSION_UNFRAMED) {
+                in.buffer().position(in.buffer().position() + 4);
+            }
+            return new SnapshotIntegrity.ReadResult(history, records, corrupt);
+        } catch (BufferUnderflowException | ArrayIndexOutOfBoundsException e) {
+            if (version == VERSION_UNFRAMED) {
+                throw new ManagerIOException("Двоичный снимок обрезан или повреждён", e);
+            } else if (!recover) {
+                throw SnapshotIntegrity.corrupted("Двоичный снимок оборван после " + records + " задач");
+            }
+            return new SnapshotIntegrity.ReadResult(new ArrayList<>(), records, corrupt);
+        }
+    }
+
+    //одна задача в кодировке снимка, без кадра - для записей журнала
+    static byte[] encode(AbstractTask task) {
+        Output out = new Output(64);
+        writeTask(out, task);
+        return out.toByteArray();
+    }
+
+    static AbstractTask decode(byte[] bytes, IntFunction<Epic> epics) {
+        SnapshotInput in = new SnapshotInput(Channels.newChannel(new ByteArrayInputStream(bytes)), Math.max(1, bytes.length));
+        try {
+            AbstractTask task = readTask(in, epics);
+            if (in.request(1)) {
+                throw new ManagerIOException("Лишние байты после задачи в записи журнала");
+            }
+            return task;
+        } catch (IOException | BufferUnderflowException | ArrayIndexOutOfBoundsException e) {
+            throw new ManagerIOException("Повреждённая запись задачи в журнале", e);
+        }
+    }
+
+    //читает длину кадра и подгружает его целиком; возвращает длину, если сумма сошлась и данные готовы к разбору,
+    //-1 - кадр пропущен. Испорченная длина кадра - это обрыв: дальше границы задач не найти
+    private static int openFrame(SnapshotInput in, long maxLength) throws IOException {
+        int length = readVarint(in);
+        if (length < 0 || length > maxLength || !in.request(length + 4)) {
+            throw new BufferUnderflowException();
+        }
+        ByteBuffer buffer = in.buffer();
+        int start = buffer.position();
+        if (SnapshotIntegrity.crc(buffer.array(), buffer.arrayOffset() + start, length) == buffer.getInt(start + length)) {
+            return length;
+        }
+        buffer.position(start + length + 4);
+        return -1;
+    }
+
+    private static void writeTask(Output out, AbstractTask task) {
+        Type type = task.getType();
+        out.writeByte(type.ordinal());
+        out.varint(task.getId());
+        out.string(task.getName());
+        out.string(task.getDescription());
+        out.writeByte(task.getStatus().ordinal());
+
+        //у эпика время вычисляется по подзадачам, поэтому не сохраняется
+        LocalDateTime start = type == Type.EPIC ? null : task.getStartTime();
+        Duration duration = type == Type.EPIC ? null : task.getDuration();
+        out.writeByte((start != null ? HAS_START : 0) | (duration != null ? HAS_DURATION : 0));
+        if (start != null) {
+            out.varlong(zigzag(start.toEpochSecond(ZoneOffset.UTC)));
+            out.varint(start.getNano());
+        }
+        if (duration != null) {
+            out.varlong(zigzag(duration.getSeconds()));
+            out.varint(duration.getNano());
+        }
+        if (type == Type.SUBTASK) {
+            Epic epic = ((SubTask) task).getEpic();
+            out.varint(epic == null ? 0 : epic.getId());
+        }
+    }
+
+    private static AbstractTask readTask(SnapshotInput in, IntFunction<Epic> epics) throws IOException {
+        Type type = TYPES[in.get()];
+        int id = readVarint(in);
+        String name = readString(in);
+        String description = readString(in);
+        Status status = STATUSES[in.get()];
+
+        int flags = in.get();
+        LocalDateTime start = null;
+        Duration duration = null;
+        if ((flags & HAS_START) != 0) {
+            long seconds = unzigzag(readVarlong(in));
+            start = LocalDateTime.ofEpochSecond(seconds, readVarint(in), ZoneOffset.UTC);
+        }
+        if ((flags & HAS_DURATION) != 0) {
+            long seconds = unzigzag(readVarlong(in));
+            duration = Duration.ofSeconds(seconds, readVarint(in));
+        }
+
+        AbstractTask task;
+        switch (type) {
+            case TASK:
+                task = new Task(name, description, status);
+                task.setId(id);
+                break;
+            case EPIC:
+                task = new Epic(name, description, status);
+                task.setId(id);
+                break;
+            default:
+                int epicId = readVarint(in);
+                task = new SubTask(epicId == 0 ? null : epics.apply(epicId), name, description, id, status);
+        }
+        task.setStartTime(start);
+        task.setDuration(duration);
+        return task;
+    }
+
+    //строка декодируется прямо из окна, без промежуточного массива
+    private static String readString(SnapshotInput input) throws IOException {
+        int length = readVarint(input) - 1;
+        if (length < 0) {
+            return null;
+        }
+        if (!input.request(length)) {
+            throw new BufferUnderflowException();
+        }
+        ByteBuffer in = input.buffer();
+        String value = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+        in.position(in.position() + length);
+        return value;
+    }
+
+    private static int readVarint(SnapshotInput in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = in.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new ManagerIOException("Слишком длинный varint в снимке");
+    }
+
+    private static long readVarlong(SnapshotInput in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 70; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new ManagerIOException("Слишком длинный varint в снимке");
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    //растущий буфер без синхронизации ByteArrayOutputStream
+    private static final class Output {
+        private byte[] buffer;
+        private int size;
+
+        Output(int capacity) {
+            buffer = new byte[Math.max(16, capacity)];
+        }
+
+        void writeByte(int b) {
+            ensure(1);
+            buffer[size++] = (byte) b;
+        }
+
+        void bytes(byte[] bytes) {
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, buffer, size, bytes.length);
+            size += bytes.length;
+        }
+
+        void varint(int value) {
+            ensure(5);
+            while ((value & ~0x7F) != 0) {
+                buffer[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[size++] = (byte) value;
+        }
+
+        void varlong(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                buffer[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[size++] = (byte) value;
+        }
+
+        void string(String value) {
+            if (value == null) {
+                varint(0);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            varint(bytes.length + 1);
+            bytes(bytes);
+        }
+
+        Output reset() {
+            size = 0;
+            return this;
+        }
+
+        //кадр: varint длина, содержимое frame, CRC32C содержимого
+        void frame(Output frame) {
+            varint(frame.size);
+            ensure(frame.size + 4);
+            System.arraycopy(frame.buffer, 0, buffer, size, frame.size);
+            size += frame.size;
+            int crc = SnapshotIntegrity.crc(frame.buffer, 0, frame.size);
+            buffer[size++] = (byte) (crc >>> 24);
+            buffer[size++] = (byte) (crc >>> 16);
+            buffer[size++] = (byte) (crc >>> 8);
+            buffer[size++] = (byte) crc;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, size);
+        }
+
+        private void ensure(int extra) {
+            if (size + extra > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + extra));
+            }
+        }
+    }
+}
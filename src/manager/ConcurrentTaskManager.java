@@ -0,0 +1,369 @@
+package manager;
+
+import histories.ConcurrentHistoryManager;
+import task.AbstractTask;
+import task.Epic;
+import task.Status;
+import task.SubTask;
+import task.Task;
+import task.Type;
+import util.ConcurrentIntMap;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+//потокобезопасный менеджер: хранилища - ConcurrentIntMap, id выдаются атомарно,
+//а подзадачи и статус эпика защищены замком эпика из набора полос,
+//поэтому изменения в разных эпиках идут параллельно
+public class ConcurrentTaskManager extends InMemoryTaskManager {
+    private static final int STRIPES = 64;
+
+    private final ReentrantLock[] stripes = new ReentrantLock[STRIPES];
+    private final AtomicInteger idGen = new AtomicInteger(1);
+    //проверка пересечения и вставка в индекс интервалов должны быть одним атомарным шагом
+    private final Object timeLock = new Object();
+    //индексы статусов и слов не потокобезопасны: изменения и выборки идут под их замками
+    private final Object statusLock = new Object();
+    private final Object textLock = new Object();
+    //очистка типа снимает задачи с индексов, а затем очищает хранилище; задачи и эпики без замка эпика
+    //меняются под общим замком, а очистка берёт исключительный, чтобы между этими шагами не вклинилось изменение
+    private final ReentrantReadWriteLock clearLock = new ReentrantReadWriteLock();
+
+    public ConcurrentTaskManager() {
+        super(new ConcurrentHistoryManager());
+        subTasks = new ConcurrentIntMap<>();
+        tasks = new ConcurrentIntMap<>();
+        epics = new ConcurrentIntMap<>();
+        byId = new ConcurrentIntMap<>();
+        prioritized = TimeIndex.concurrent();
+
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    @Override
+    protected int nextId() {
+        return idGen.getAndIncrement();
+    }
+
+    private ReentrantLock stripe(int epicId) {
+        return stripes[Math.floorMod(epicId, STRIPES)];
+    }
+
+    //замки двух эпиков берутся в порядке номеров полос, чтобы не было взаимной блокировки
+    private void lock(int firstEpicId, int secondEpicId) {
+        int first = Math.floorMod(firstEpicId, STRIPES);
+        int second = Math.floorMod(secondEpicId, STRIPES);
+        stripes[Math.min(first, second)].lock();
+        if (first != second) {
+            stripes[Math.max(first, second)].lock();
+        }
+    }
+
+    private void unlock(int firstEpicId, int secondEpicId) {
+        int first = Math.floorMod(firstEpicId, STRIPES);
+        int second = Math.floorMod(secondEpicId, STRIPES);
+        if (first != second) {
+            stripes[Math.max(first, second)].unlock();
+        }
+        stripes[Math.min(first, second)].unlock();
+    }
+
+    private void lockAll() {
+        for (ReentrantLock stripe : stripes) {
+            stripe.lock();
+        }
+    }
+
+    private void unlockAll() {
+        for (int i = STRIPES - 1; i >= 0; i--) {
+            stripes[i].unlock();
+        }
+    }
+
+    @Override
+    public void deleteAllSubTasks() {
+        lockAll();
+        try {
+            super.deleteAllSubTasks();
+        } finally {
+            unlockAll();
+        }
+    }
+
+    @Override
+    public void deleteAllEpics() {
+        clearLock.writeLock().lock();
+        lockAll();
+        try {
+            super.deleteAllEpics();
+        } finally {
+            unlockAll();
+            clearLock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void deleteAllTasks() {
+        clearLock.writeLock().lock();
+        try {
+            super.deleteAllTasks();
+        } finally {
+            clearLock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean createTask(Task task) {
+        clearLock.readLock().lock();
+        try {
+            return super.createTask(task);
+        } finally {
+            clearLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean updateTask(Task task) {
+        clearLock.readLock().lock();
+        try {
+            return super.updateTask(task);
+        } finally {
+            clearLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Task deleteTaskById(int id) {
+        clearLock.readLock().lock();
+        try {
+            return super.deleteTaskById(id);
+        } finally {
+            clearLock.readLock().unlock();
+        }
+    }
+
+    //id нового эпика ещё неизвестен, поэтому замок его полосы взять нельзя
+    @Override
+    public boolean createEpic(Epic epic) {
+        clearLock.readLock().lock();
+        try {
+            return super.createEpic(epic);
+        } finally {
+            clearLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean createSubTask(SubTask subTask) {
+        Epic epic = subTask.getEpic();
+        if (epic == null) {
+            return super.createSubTask(subTask);
+        }
+        ReentrantLock lock = stripe(epic.getId());
+        lock.lock();
+        try {
+            return super.createSubTask(subTask);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    //подзадача может переехать в другой эпик, поэтому берутся замки старого и нового
+    @Override
+    public boolean updateSubTask(SubTask subTask) {
+        if (subTask == null || subTask.getEpic() == null) {
+            return super.updateSubTask(subTask);
+        }
+        SubTask old = subTasks.get(subTask.getId());
+        int newEpicId = subTask.getEpic().getId();
+        int oldEpicId = old == null || old.getEpic() == null ? newEpicId : old.getEpic().getId();
+
+        lock(oldEpicId, newEpicId);
+        try {
+            return super.updateSubTask(subTask);
+        } finally {
+            unlock(oldEpicId, newEpicId);
+        }
+    }
+
+    @Override
+    public boolean updateEpic(Epic epic) {
+        if (epic == null) {
+            return super.updateEpic(epic);
+        }
+        ReentrantLock lock = stripe(epic.getId());
+        lock.lock();
+        try {
+            return super.updateEpic(epic);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public SubTask deleteSubTaskById(int id) {
+        SubTask subTask = subTasks.get(id);
+        if (subTask == null || subTask.getEpic() == null) {
+            return super.deleteSubTaskById(id);
+        }
+        ReentrantLock lock = stripe(subTask.getEpic().getId());
+        lock.lock();
+        try {
+            return super.deleteSubTaskById(id);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Epic deleteEpicById(int id) {
+        ReentrantLock lock = stripe(id);
+        lock.lock();
+        try {
+            return super.deleteEpicById(id);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public List<SubTask> returnSubTasksInEpic(Epic epic) {
+        if (epic == null) {
+            return super.returnSubTasksInEpic(epic);
+        }
+        ReentrantLock lock = stripe(epic.getId());
+        lock.lock();
+        try {
+            return super.returnSubTasksInEpic(epic);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    //чтение эпика под его замком: статус, время и подзадачи эпика в это время не меняются
+    public <R> R readEpic(Epic epic, Function<? super Epic, R> reader) {
+        if (epic == null || reader == null) {
+            throw new NullPointerException("epic == null || reader == null!!");
+        }
+        ReentrantLock lock = stripe(epic.getId());
+        lock.lock();
+        try {
+            return reader.apply(epic);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    //подзадачи эпика лежат в непотокобезопасной IntObjectMap, поэтому живое представление заменяется копией под замком
+    @Override
+    public Collection<SubTask> viewSubTasksInEpic(Epic epic) {
+        return returnSubTasksInEpic(epic);
+    }
+
+    //пакет не откладывает пересчёт эпиков: его состояние общее для всех потоков, а каждое изменение
+    //и так пересчитывает статус за O(1) под замком эпика. Изменения пакета не изолированы от других потоков
+    @Override
+    public void batch(Consumer<TaskManager> work) {
+        if (work == null) {
+            throw new NullPointerException("work == null!!");
+        }
+        work.accept(this);
+    }
+
+    //статус эпика всегда пересчитывается под его замком (замок реентерабельный)
+    @Override
+    protected void changeStatusEpic(Epic epic) {
+        ReentrantLock lock = stripe(epic.getId());
+        lock.lock();
+        try {
+            super.changeStatusEpic(epic);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    protected void indexTime(AbstractTask task) {
+        synchronized (timeLock) {
+            super.indexTime(task);
+        }
+    }
+
+    @Override
+    protected void unindexTime(int id) {
+        synchronized (timeLock) {
+            super.unindexTime(id);
+        }
+    }
+
+    @Override
+    protected void indexStatus(AbstractTask task) {
+        synchronized (statusLock) {
+            super.indexStatus(task);
+        }
+    }
+
+    @Override
+    protected void unindexStatus(int id) {
+        synchronized (statusLock) {
+            super.unindexStatus(id);
+        }
+    }
+
+    @Override
+    protected <T extends AbstractTask> List<T> byStatus(Type type, Status status) {
+        synchronized (statusLock) {
+            return super.byStatus(type, status);
+        }
+    }
+
+    @Override
+    public int count(Type type) {
+        synchronized (statusLock) {
+            return super.count(type);
+        }
+    }
+
+    @Override
+    public int count(Type type, Status status) {
+        synchronized (statusLock) {
+            return super.count(type, status);
+        }
+    }
+
+    @Override
+    protected void indexText(AbstractTask task) {
+        synchronized (textLock) {
+            super.indexText(task);
+        }
+    }
+
+    @Override
+    protected void unindexText(int id) {
+        synchronized (textLock) {
+            super.unindexText(id);
+        }
+    }
+
+    @Override
+    public List<AbstractTask> search(String query, int limit) {
+        synchronized (textLock) {
+            return super.search(query, limit);
+        }
+    }
+
+    @Override
+    public List<AbstractTask> getOverlappingTasks(LocalDateTime from, LocalDateTime to) {
+        synchronized (timeLock) {
+            return super.getOverlappingTasks(from, to);
+        }
+    }
+}
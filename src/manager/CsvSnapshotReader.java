@@ -0,0 +1,256 @@
+package manager;
+
+import exceptions.ManagerIOException;
+import exceptions.TaskNotExistsException;
+import task.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+
+//потоковый разбор CSV-снимка прямо из окна SnapshotInput: id, тип и статус читаются по байтам,
+//в String превращаются только название и описание, строки файла целиком не создаются
+final class CsvSnapshotReader {
+    private static final int FIELDS = 6;
+    static final String CHECKSUM_COLUMN = "crc";
+
+    private static final byte[] TASK = bytes(Type.TASK.name());
+    private static final byte[] EPIC = bytes(Type.EPIC.name());
+    private static final byte[] SUBTASK = bytes(Type.SUBTASK.name());
+
+    private static final Status[] STATUSES = Status.values();
+    private static final byte[][] STATUS_NAMES = new byte[STATUSES.length][];
+
+    static {
+        for (Status status : STATUSES) {
+            STATUS_NAMES[status.ordinal()] = bytes(status.name());
+        }
+    }
+
+    private final SnapshotInput input;
+    private final boolean recover;
+    //окно input на время разбора одной строки
+    private ByteBuffer in;
+    //у строк есть последний столбец crc - контрольная сумма остальной строки
+    private boolean checksums;
+    private int records;
+    private int corrupt;
+    //границы полей текущей строки: поле i - [starts[i], ends[i])
+    private final int[] starts = new int[FIELDS];
+    private final int[] ends = new int[FIELDS];
+
+    private CsvSnapshotReader(SnapshotInput input, boolean checksums, boolean recover) {
+        this.input = input;
+        this.checksums = checksums;
+        this.recover = recover;
+    }
+
+    //отдаёт задачи в sink по порядку; epics ищет уже прочитанный эпик подзадачи.
+    //recover - повреждённые записи и оборванный конец файла пропускаются, а не считаются ошибкой
+    static SnapshotIntegrity.ReadResult read(SnapshotInput input, boolean recover, IntFunction<Epic> epics,
+                                             Consumer<AbstractTask> sink) throws IOException {
+        CsvSnapshotReader reader = new CsvSnapshotReader(input, false, recover);
+        List<Integer> history = reader.read(true, epics, sink);
+        return new SnapshotIntegrity.ReadResult(history, reader.records, reader.corrupt);
+    }
+
+    //кусок файла из строк задач без заголовка и истории - для параллельного разбора
+    static SnapshotIntegrity.ReadResult readChunk(SnapshotInput input, boolean checksums, boolean recover,
+                                                  IntFunction<Epic> epics, Consumer<AbstractTask> sink)
+            throws IOException {
+        CsvSnapshotReader reader = new CsvSnapshotReader(input, checksums, recover);
+        reader.read(false, epics, sink);
+        return new SnapshotIntegrity.ReadResult(new ArrayList<>(), reader.records, reader.corrupt);
+    }
+
+    //снимок с контрольными суммами узнаётся по последнему столбцу заголовка
+    static boolean hasChecksums(String header) {
+        return header.strip().endsWith("," + CHECKSUM_COLUMN);
+    }
+
+    //whole - весь файл: первая строка является заголовком, после пустой строки идёт история
+    private List<Integer> read(boolean whole, IntFunction<Epic> epics, Consumer<AbstractTask> sink)
+            throws IOException {
+        boolean header = whole;
+
+        while (input.request(1)) {
+            int lineEnd = input.lineEnd();
+            in = input.buffer();
+            int pos = in.position();
+            int contentEnd = lineEnd > pos && in.get(lineEnd - 1) == '\r' ? lineEnd - 1 : lineEnd;
+
+            if (header) {
+                header = false;
+                checksums = hasChecksums(string(pos, contentEnd));
+            } else if (contentEnd == pos) {
+                if (!whole) {
+                    break;
+                }
+                // история - строка после пустой
+                in.position(Math.min(lineEnd + 1, in.limit()));
+                if (!input.request(1)) {
+                    return torn();
+                }
+                int historyEnd = input.lineEnd();
+                in = input.buffer();
+                pos = in.position();
+                if (historyEnd > pos && in.get(historyEnd - 1) == '\r') {
+                    historyEnd--;
+                }
+                return history(in.array(), in.arrayOffset() + pos, historyEnd - pos, checksums, records, recover);
+            } else {
+                records++;
+                readRecord(pos, contentEnd, epics, sink);
+            }
+            in.position(Math.min(lineEnd + 1, in.limit()));
+        }
+        return whole ? torn() : new ArrayList<>();
+    }
+
+    //файл кончился раньше строки истории: для снимка с суммами это обрыв записи
+    private List<Integer> torn() {
+        if (checksums && !recover) {
+            throw SnapshotIntegrity.corrupted("Снимок оборван: нет строки истории");
+        }
+        return new ArrayList<>();
+    }
+
+    private void readRecord(int pos, int contentEnd, IntFunction<Epic> epics, Consumer<AbstractTask> sink) {
+        if (checksums) {
+            int comma = lastComma(pos, contentEnd);
+            long expected = comma < 0 ? -1L
+                    : SnapshotIntegrity.parseHex(in.array(), in.arrayOffset() + comma + 1, contentEnd - comma - 1);
+            if (expected < 0 || (int) expected != SnapshotIntegrity.crc(in.array(), in.arrayOffset() + pos, comma - pos)) {
+                if (!recover) {
+                    throw SnapshotIntegrity.corrupted("Не сходится контрольная сумма записи снимка: " + string(pos, contentEnd));
+                }
+                corrupt++;
+                return;
+            }
+            contentEnd = comma;
+        }
+        sink.accept(parseTask(pos, contentEnd, epics));
+    }
+
+    //строка истории; в снимке с суммами последним столбцом идёт сумма истории и числа записей
+    static List<Integer> history(byte[] bytes, int offset, int length, boolean checksums, int records, boolean recover) {
+        if (checksums) {
+            int comma = offset + length - 1;
+            while (comma >= offset && bytes[comma] != ',') {
+                comma--;
+            }
+            long expected = comma < offset ? -1L : SnapshotIntegrity.parseHex(bytes, comma + 1, offset + length - comma - 1);
+            if (expected < 0 || (int) expected != SnapshotIntegrity.historyCrc(bytes, offset, comma - offset, records)) {
+                if (!recover) {
+                    throw SnapshotIntegrity.corrupted("Снимок оборван или повреждён: не сходится контрольная сумма истории");
+                }
+                return new ArrayList<>();
+            }
+            length = comma - offset;
+        }
+        return FileBackedTaskManager.historyFromString(new String(bytes, offset, length, StandardCharsets.UTF_8));
+    }
+
+    private int lastComma(int from, int to) {
+        for (int i = to - 1; i >= from; i--) {
+            if (in.get(i) == ',') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    //то же, что FileBackedTaskManager.fromString, но без split и valueOf
+    private AbstractTask parseTask(int from, int to, IntFunction<Epic> epics) {
+        int count = split(from, to);
+        if (count < FIELDS - 1) {
+            throw new ManagerIOException("Некорректная строка снимка: " + string(from, to));
+        }
+        int id = parseInt(starts[0], ends[0]);
+        String name = string(starts[2], ends[2]);
+        Status status = status(starts[3], ends[3]);
+        String description = string(starts[4], ends[4]);
+
+        if (equals(starts[1], ends[1], TASK)) {
+            Task task = new Task(name, description, status);
+            task.setId(id);
+            return task;
+        } else if (equals(starts[1], ends[1], EPIC)) {
+            Epic epic = new Epic(name, description, status);
+            epic.setId(id);
+            return epic;
+        } else if (equals(starts[1], ends[1], SUBTASK)) {
+            Epic epic = count == FIELDS && ends[5] > starts[5] ? epics.apply(parseInt(starts[5], ends[5])) : null;
+            return new SubTask(epic, name, description, id, status);
+        }
+        throw new TaskNotExistsException("такой задачи нет!!!");
+    }
+
+    //делит строку по запятым на не больше FIELDS полей, возвращает их число
+    private int split(int from, int to) {
+        int count = 0;
+        starts[0] = from;
+        for (int i = from; i < to && count < FIELDS - 1; i++) {
+            if (in.get(i) == ',') {
+                ends[count++] = i;
+                starts[count] = i + 1;
+            }
+        }
+        ends[count] = to;
+        return count + 1;
+    }
+
+    private Status status(int from, int to) {
+        for (Status status : STATUSES) {
+            if (equals(from, to, STATUS_NAMES[status.ordinal()])) {
+                return status;
+            }
+        }
+        return Status.valueOf(string(from, to));
+    }
+
+    private boolean equals(int from, int to, byte[] expected) {
+        if (to - from != expected.length) {
+            return false;
+        }
+        for (int i = 0; i < expected.length; i++) {
+            if (in.get(from + i) != expected[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int parseInt(int from, int to) {
+        boolean negative = to > from && in.get(from) == '-';
+        int i = negative ? from + 1 : from;
+        if (i == to || to - i > 10) {
+            return Integer.parseInt(string(from, to));
+        }
+        long value = 0;
+        for (; i < to; i++) {
+            int digit = in.get(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return Integer.parseInt(string(from, to));
+            }
+            value = value * 10 + digit;
+        }
+        value = negative ? -value : value;
+        if (value != (int) value) {
+            return Integer.parseInt(string(from, to));
+        }
+        return (int) value;
+    }
+
+    private String string(int from, int to) {
+        return new String(in.array(), in.arrayOffset() + from, to - from, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+}
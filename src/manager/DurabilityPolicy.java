@@ -0,0 +1,60 @@
+package manager;
+
+//политика долговечности FileBackedTaskManager: когда изменения попадают на диск
+public final class DurabilityPolicy {
+    enum Kind {
+        PER_OPERATION,
+        GROUP_COMMIT,
+        MANUAL
+    }
+
+    private final Kind kind;
+    private final int maxOperations;
+    private final long maxDelayMillis;
+
+    private DurabilityPolicy(Kind kind, int maxOperations, long maxDelayMillis) {
+        this.kind = kind;
+        this.maxOperations = maxOperations;
+        this.maxDelayMillis = maxDelayMillis;
+    }
+
+    //каждое изменение записывается сразу в потоке вызывающего
+    public static DurabilityPolicy perOperation() {
+        return new DurabilityPolicy(Kind.PER_OPERATION, 1, 0);
+    }
+
+    //изменения копятся и записываются фоновым потоком одной пачкой с fsync:
+    //после operations изменений или через millis миллисекунд после первого незаписанного (0 - без ограничения)
+    public static DurabilityPolicy groupCommit(int operations, long millis) {
+        if (operations < 0 || millis < 0 || (operations == 0 && millis == 0)) {
+            throw new IllegalArgumentException("Нужно задать число операций или задержку для групповой записи");
+        }
+        return new DurabilityPolicy(Kind.GROUP_COMMIT, operations, millis);
+    }
+
+    //изменения записываются только по flush() и при закрытии менеджера
+    public static DurabilityPolicy manual() {
+        return new DurabilityPolicy(Kind.MANUAL, 0, 0);
+    }
+
+    Kind getKind() {
+        return kind;
+    }
+
+    int getMaxOperations() {
+        return maxOperations;
+    }
+
+    long getMaxDelayMillis() {
+        return maxDelayMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "DurabilityPolicy{" +
+                "kind=" + kind +
+                ", maxOperations=" + maxOperations +
+                ", maxDelayMillis=" + maxDelayMillis +
+                '}';
+    }
+}
@@ -4,110 +4,593 @@ import exceptions.ManagerIOException;
 import exceptions.TaskNotExistsException;
 import histories.HistoryManager;
 import task.*;
+import util.IntIntMap;
 
-import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileWriter;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+//final: конструктор отдаёт this фоновым писателям (HistoryStore, GroupCommitter) и пишет первый снимок,
+//поэтому наследник получил бы вызовы на недостроенном объекте
+public final class FileBackedTaskManager extends InMemoryTaskManager implements AutoCloseable {
+    private static final String HEADER = "id,type,name,status,description,epic";
 
-public class FileBackedTaskManager extends InMemoryTaskManager {
     private File file;
+    private final StorageOptions options;
+    //в режиме JOURNAL: журнал изменений поверх последнего снимка
+    private TaskJournal journal;
+    //журнал от прошлого запуска, который надо удалить после первого полного сохранения
+    private boolean staleJournal;
+    //в режиме SEGMENTED: сегменты и изменённые с последней записи страницы
+    private SegmentStore segments;
+    //сегменты, из которых загружен менеджер в другом режиме; удаляются после первого полного сохранения
+    private SegmentStore staleSegments;
+
+    //при групповой и ручной записи: накопленные изменения и фоновый писатель
+    private GroupCommitter committer;
+    private boolean dirty;
+    private List<String> pendingRecords = new ArrayList<>();
+    //изменения текущего пакета, сохраняются одним проходом в его конце
+    private List<String> batchRecords = new ArrayList<>();
+    private boolean batchChanged;
+    //история просмотров хранится отдельно и пишется лениво
+    private final HistoryStore historyStore;
+
+    private ExecutorService compactor;
+    private volatile boolean compacting;
+    private volatile ManagerIOException compactionError;
+    //сколько повреждённых записей снимка пропущено при загрузке в режиме восстановления
+    private int corruptRecords;
 
     public FileBackedTaskManager(File file) {
+        this(file, new StorageOptions());
+    }
+
+    public FileBackedTaskManager(File file, StorageOptions options) {
+        this(file, options, false);
+    }
+
+    private FileBackedTaskManager(File file, StorageOptions options, boolean restored) {
         super();
+        if (options == null) {
+            throw new NullPointerException("options == null!!");
+        }
         this.file = file;
+        this.options = options;
+        this.staleJournal = TaskJournal.exists(file);
+
+        long historyFlushMillis = options.getDurability().getKind() == DurabilityPolicy.Kind.MANUAL
+                ? 0 : options.getHistoryFlushMillis();
+        historyStore = new HistoryStore(file, this, historyFlushMillis, () -> historyToString(history));
+        if (!restored) {
+            historyStore.reset();
+        }
+
+        if (options.getMode() == PersistenceMode.SEGMENTED && !restored) {
+            segments = SegmentStore.create(file, options.getSegmentSize());
+        }
+        if (options.getMode() == PersistenceMode.JOURNAL) {
+            //новый менеджер начинает журнал с пустого снимка
+            if (!restored) {
+                save();
+            }
+            journal = new TaskJournal(file);
+        }
+        if (options.getDurability().getKind() != DurabilityPolicy.Kind.PER_OPERATION) {
+            committer = new GroupCommitter(this, options.getDurability(), this::captureBatch);
+        }
     }
 
+    //снимок пишется во временный файл и атомарно подменяет старый, поэтому сбой посреди записи его не портит
     private void save() {
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(file))) {
-            writer.write("id,type,name,status,description,epic");
-            writer.newLine();
+        if (segments != null) {
+            Runnable write = segments.capture(this::findById, options.getFormat());
+            if (write != null) {
+                write.run();
+            }
+        } else {
+            writeDurably(file, snapshotBytes());
+            if (staleSegments != null) {
+                staleSegments.deleteFiles();
+                staleSegments = null;
+            }
+        }
+        if (staleJournal) {
+            TaskJournal.deleteFiles(file);
+            staleJournal = false;
+        }
+    }
+
+    //в режиме SEGMENTED отмечает страницу задачи как изменённую
+    private void touch(int id) {
+        if (segments != null) {
+            segments.touch(id);
+        }
+    }
+
+    //снимок текущего состояния в формате из настроек
+    private byte[] snapshotBytes() {
+        List<Integer> historyIds = new ArrayList<>();
+        history.forEach(task -> historyIds.add(task.getId()));
+        return snapshot(options.getFormat(), tasks.values(), epics.values(), subTasks.values(), historyIds);
+    }
+
+    //эпики записываются раньше подзадач, чтобы при чтении подзадача сразу находила свой эпик
+    static byte[] snapshot(SnapshotFormat format, Collection<Task> tasks, Collection<Epic> epics,
+                           Collection<SubTask> subTasks, List<Integer> history) {
+        if (format == SnapshotFormat.BINARY) {
+            return BinarySnapshot.write(tasks, epics, subTasks, history);
+        }
+        //последний столбец каждой строки - CRC32C остальной строки, у истории - ещё и числа записей
+        StringBuilder csv = new StringBuilder(HEADER).append(',').append(CsvSnapshotReader.CHECKSUM_COLUMN)
+                .append(System.lineSeparator());
+        for (Task task : tasks) {
+            appendRecord(csv, toString(task));
+        }
+        for (Epic epic : epics) {
+            appendRecord(csv, toString(epic));
+        }
+        for (SubTask subTask : subTasks) {
+            appendRecord(csv, toString(subTask));
+        }
+        csv.append(System.lineSeparator());
+        String ids = history.stream().map(String::valueOf).collect(Collectors.joining(","));
+        int records = tasks.size() + epics.size() + subTasks.size();
+        csv.append(ids).append(',').append(SnapshotIntegrity.hex(SnapshotIntegrity.historyCrc(ids, records)));
+        return csv.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void appendRecord(StringBuilder csv, String record) {
+        csv.append(record).append(',').append(SnapshotIntegrity.hex(SnapshotIntegrity.crc(record)))
+                .append(System.lineSeparator());
+    }
 
-            for (Task task : getTasks()) {
-                writer.write(toString(task));
-                writer.newLine();
+    //читает снимок любого формата и отдаёт задачи в sink по порядку; epics ищет уже прочитанный эпик подзадачи.
+    //Файл читается окном через FileChannel за один проход, поэтому в куче оказываются только сами задачи.
+    //Возвращает id истории из снимка; контрольные суммы проверяются строго
+    static List<Integer> readSnapshot(File file, IntFunction<Epic> epics, Consumer<AbstractTask> sink) {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            SnapshotInput input = new SnapshotInput(channel, SnapshotInput.DEFAULT_CAPACITY);
+            if (BinarySnapshot.isBinary(input)) {
+                return BinarySnapshot.read(input, false, epics, sink).history();
             }
-            for (Epic epic : getEpics()) {
-                writer.write(toString(epic));
-                writer.newLine();
+            return CsvSnapshotReader.read(input, false, epics, sink).history();
+        } catch (IOException e) {
+            throw new ManagerIOException("Ошибка чтения файла", e);
+        }
+    }
+
+    //сохраняет одно изменение: в режиме SNAPSHOT перезаписывает файл, в режиме JOURNAL дописывает запись в журнал
+    private void persist(String type, String payload) {
+        persistRecord(journal != null ? TaskJournal.record(type, payload) : null);
+    }
+
+    //создание или обновление задачи: в журнал она пишется целиком, со временем
+    private void persist(AbstractTask task) {
+        persistRecord(journal != null ? TaskJournal.task(task) : null);
+    }
+
+    //record - запись журнала (в режимах без журнала null)
+    private void persistRecord(String record) {
+        if (inBatch()) {
+            if (record != null) {
+                batchRecords.add(record);
             }
-            for (SubTask subTask : getSubTasks()) {
-                writer.write(toString(subTask));
-                writer.newLine();
+            batchChanged = true;
+            return;
+        }
+        persist(record != null ? List.of(record) : List.<String>of());
+    }
+
+    //records - записи журнала (в режимах без журнала пустой список)
+    private void persist(List<String> records) {
+        if (committer != null) {
+            if (journal != null) {
+                pendingRecords.addAll(records);
             }
+            dirty = true;
+            committer.changed();
+            return;
+        }
+        if (journal == null) {
+            save();
+            return;
+        }
+        for (String record : records) {
+            journal.append(record);
+        }
+        journal.flush();
+        if (journal.size() >= options.getCompactionThreshold()) {
+            compact();
+        }
+    }
 
-            writer.newLine();
-            writer.write(historyToString(history));
-        } catch (IOException e) {
-            throw new ManagerIOException("Ошибка сохранения в файл", e);
+    //снимает накопленные изменения под монитором менеджера; запись выполняет писатель вне монитора
+    private Runnable captureBatch() {
+        if (!dirty) {
+            return null;
+        }
+        dirty = false;
+
+        if (journal == null) {
+            Runnable write = segments != null ? segments.capture(this::findById, options.getFormat()) : null;
+            byte[] content = segments != null ? null : snapshotBytes();
+            SegmentStore deleteSegments = staleSegments;
+            staleSegments = null;
+            boolean deleteJournal = staleJournal;
+            staleJournal = false;
+            return () -> {
+                if (write != null) {
+                    write.run();
+                } else if (content != null) {
+                    writeDurably(file, content);
+                }
+                if (deleteSegments != null) {
+                    deleteSegments.deleteFiles();
+                }
+                if (deleteJournal) {
+                    TaskJournal.deleteFiles(file);
+                }
+            };
         }
+        List<String> records = pendingRecords;
+        pendingRecords = new ArrayList<>();
+        return () -> {
+            for (String record : records) {
+                journal.append(record);
+            }
+            journal.sync();
+            if (journal.size() >= options.getCompactionThreshold()) {
+                compact();
+            }
+        };
     }
 
-    // загружает состояние менеджера из файла
-    public static FileBackedTaskManager loadFromFile(File file) {
-        FileBackedTaskManager manager = new FileBackedTaskManager(file);
-        List<String> lines;
+    //записывает содержимое во временный файл с fsync и атомарно подменяет им целевой
+    static void writeDurably(File target, String content) {
+        writeDurably(target, content.getBytes(StandardCharsets.UTF_8));
+    }
 
+    static void writeDurably(File target, byte[] content) {
+        File tmp = new File(target.getPath() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(tmp)) {
+            out.write(content);
+            out.getFD().sync();
+        } catch (IOException e) {
+            throw new ManagerIOException("Ошибка записи файла " + target, e);
+        }
         try {
-            lines = Files.readAllLines(file.toPath());
+            Files.move(tmp.toPath(), target.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
         } catch (IOException e) {
-            throw new ManagerIOException("Ошибка чтения файла", e);
+            throw new ManagerIOException("Ошибка замены файла " + target, e);
         }
+        syncDirectory(target.getAbsoluteFile().getParentFile());
+    }
 
-        // обработка всех тасков
-        for (int i = 1; i < lines.size() && !lines.get(i).isEmpty(); i++) {
-            AbstractTask task = manager.fromString(lines.get(i));
+    //fsync каталога закрепляет на диске само переименование; не все системы позволяют открыть каталог,
+    //поэтому ошибка здесь не считается ошибкой записи
+    private static void syncDirectory(File directory) {
+        if (directory == null) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(directory.toPath(), StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException | UnsupportedOperationException e) {
+            //переименование уже выполнено, нет только гарантии его сохранности при сбое питания
+        }
+    }
 
-            if (task instanceof Task) {
-                manager.tasks.put(task.getId(), (Task) task);
-            } else if (task instanceof Epic) {
-                manager.epics.put(task.getId(), (Epic) task);
-            } else if (task instanceof SubTask subTask) {
-                manager.subTasks.put(subTask.getId(), subTask);
+    //сворачивает журнал в новый снимок: состояние снимается сразу, а пишется на диск в фоне
+    private void compact() {
+        byte[] content;
+        SegmentStore stale;
+        synchronized (this) {
+            if (compacting) {
+                return;
+            }
+            compacting = true;
+            journal.rotate();
+            content = snapshotBytes();
+            stale = staleSegments;
+            staleSegments = null;
+        }
 
-                Epic epic = subTask.getEpic();
-                if (epic != null && manager.epics.containsKey(epic.getId())) {
-                    epic.getSubTasks().put(subTask.getId(), subTask);
-                    manager.changeStatusEpic(epic);
+        if (compactor == null) {
+            compactor = Executors.newSingleThreadExecutor(r -> {
+                Thread thread = new Thread(r, "journal-compactor");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        compactor.execute(() -> {
+            try {
+                writeDurably(file, content);
+                journal.compacted();
+                if (stale != null) {
+                    stale.deleteFiles();
                 }
+            } catch (ManagerIOException e) {
+                //отложенный журнал остаётся на диске и будет применён поверх старого снимка
+                compactionError = e;
+            } finally {
+                compacting = false;
             }
+        });
+    }
+
+    //сколько повреждённых записей снимка было пропущено при загрузке (только в режиме восстановления)
+    public int getCorruptRecords() {
+        return corruptRecords;
+    }
+
+    //записывает на диск всё, что накоплено при групповой или ручной записи, и историю
+    public void flush() {
+        if (committer != null) {
+            committer.flush();
         }
+        historyStore.flush();
+    }
+
+    // загружает состояние менеджера из файла
+    public static FileBackedTaskManager loadFromFile(File file) {
+        return loadFromFile(file, new StorageOptions());
+    }
+
+    // загружает снимок и применяет поверх него журнал, если он есть
+    public static FileBackedTaskManager loadFromFile(File file, StorageOptions options) {
+        return loadFromFile(file, options, ParallelSnapshotLoader.DEFAULT_CHUNK_SIZE);
+    }
 
-        // история
-        if (lines.size() > 1 && !lines.get(lines.size()-1).isEmpty()) {
-            for (int id : historyFromString(lines.get(lines.size()-1))) {
-                if (manager.tasks.containsKey(id)) {
-                    manager.history.add(manager.tasks.get(id));
-                } else if (manager.subTasks.containsKey(id)) {
-                    manager.history.add(manager.subTasks.get(id));
-                } else if (manager.epics.containsKey(id)) {
-                    manager.history.add(manager.epics.get(id));
+    //chunkSize - размер куска CSV-снимка для параллельного разбора
+    static FileBackedTaskManager loadFromFile(File file, StorageOptions options, int chunkSize) {
+        FileBackedTaskManager manager = new FileBackedTaskManager(file, options, true);
+
+        //без снимка можно подняться только из журнала
+        SegmentStore loaded = null;
+        if (file.exists() || !TaskJournal.exists(file)) {
+            ForkJoinPool pool = new ForkJoinPool(options.getRestoreParallelism());
+            try {
+                loaded = SegmentStore.isManifest(file) ? SegmentStore.open(file) : null;
+                ParallelSnapshotLoader.Parsed parsed = loaded != null
+                        ? ParallelSnapshotLoader.parseSegments(loaded, pool, options.isRecoveryMode())
+                        : ParallelSnapshotLoader.parse(file, pool, chunkSize, options.isRecoveryMode());
+                manager.corruptRecords = parsed.corrupt();
+                manager.restoreAll(parsed.chunks(), pool);
+                if (!parsed.history().isEmpty()) {
+                    manager.restoreHistory(parsed.history());
                 }
+            } finally {
+                pool.shutdown();
             }
         }
+        for (String record : TaskJournal.readRecords(file)) {
+            manager.replay(record);
+        }
+        //отдельный файл истории новее строки истории в снимке
+        String savedHistory = HistoryStore.read(file);
+        if (savedHistory != null) {
+            manager.restoreHistory(historyFromString(savedHistory));
+        }
+
+        manager.idGen = manager.maxId() + 1;
 
+        if (options.getMode() == PersistenceMode.SEGMENTED) {
+            manager.segments = loaded != null ? loaded : SegmentStore.create(file, options.getSegmentSize());
+            //снимок другого формата или изменения из журнала ещё не разложены по сегментам
+            if (loaded == null || manager.staleJournal) {
+                manager.byId.keySet().forEach(manager::touch);
+            }
+        } else {
+            manager.staleSegments = loaded;
+        }
         return manager;
     }
 
+    //восстановление снимка целиком: задачи кладутся в хранилища в порядке файла, затем подзадачи связываются
+    //с эпиками по id (эпик может стоять в файле и после подзадачи), и подзадачи добавляются в эпики параллельно -
+    //каждый эпик целиком в одном потоке, поэтому результат не зависит от числа потоков
+    private void restoreAll(List<List<AbstractTask>> chunks, ForkJoinPool pool) {
+        for (List<AbstractTask> chunk : chunks) {
+            for (AbstractTask task : chunk) {
+                byId.put(task.getId(), task);
+                switch (task.getType()) {
+                    case TASK -> tasks.put(task.getId(), (Task) task);
+                    case EPIC -> epics.put(task.getId(), (Epic) task);
+                    case SUBTASK -> subTasks.put(task.getId(), (SubTask) task);
+                }
+                indexStatus(task);
+            }
+        }
+        //индекс слов строится целиком: без поиска места для каждого вхождения
+        text.build(byId.values());
+
+        //подзадачи эпика в порядке файла; при повторе id учитывается только последняя запись
+        List<Epic> linkedEpics = new ArrayList<>();
+        List<List<SubTask>> groups = new ArrayList<>();
+        IntIntMap groupOf = new IntIntMap(-1);
+        for (List<AbstractTask> chunk : chunks) {
+            for (AbstractTask task : chunk) {
+                if (byId.get(task.getId()) != task) {
+                    continue;
+                }
+                if (task.getType() != Type.EPIC) {
+                    indexTime(task);
+                }
+                if (task instanceof SubTask subTask) {
+                    Epic placeholder = subTask.getEpic();
+                    Epic epic = placeholder == null ? null : epics.get(placeholder.getId());
+                    subTask.setEpic(epic);
+                    if (epic == null) {
+                        continue;
+                    }
+                    int group = groupOf.get(epic.getId());
+                    if (group < 0) {
+                        group = groups.size();
+                        groupOf.put(epic.getId(), group);
+                        linkedEpics.add(epic);
+                        groups.add(new ArrayList<>());
+                    }
+                    groups.get(group).add(subTask);
+                }
+            }
+        }
+
+        pool.submit(() -> IntStream.range(0, groups.size()).parallel().forEach(i -> {
+            Epic epic = linkedEpics.get(i);
+            for (SubTask subTask : groups.get(i)) {
+                epic.addSubTask(subTask);
+            }
+        })).join();
+        //пересчёт по готовым счётчикам - O(1) на эпик, но он обновляет индекс статусов, поэтому в одном потоке
+        for (Epic epic : linkedEpics) {
+            changeStatusEpic(epic);
+        }
+    }
+
+    // применение одной записи журнала
+    private void replay(String record) {
+        int comma = record.indexOf(',');
+        if (comma < 0) {
+            return;
+        }
+        String payload = record.substring(comma + 1);
+
+        switch (record.substring(0, comma)) {
+            case TaskJournal.TASK:
+                restore(TaskJournal.readTask(payload, epics::get));
+                break;
+            case TaskJournal.PUT:
+                restore(fromString(payload, epics::get));
+                break;
+            case TaskJournal.DELETE:
+                restoreDelete(Integer.parseInt(payload));
+                break;
+            case TaskJournal.CLEAR:
+                restoreClear(Type.valueOf(payload));
+                break;
+            case TaskJournal.HISTORY:
+                restoreHistory(historyFromString(payload));
+                break;
+            default:
+                throw new ManagerIOException("Неизвестная запись журнала: " + record);
+        }
+    }
+
+    // кладёт задачу в хранилище и связывает подзадачу с эпиком
+    private void restore(AbstractTask task) {
+        byId.put(task.getId(), task);
+        indexStatus(task);
+        indexText(task);
+        if (task instanceof Task) {
+            tasks.put(task.getId(), (Task) task);
+            indexTime(task);
+        } else if (task instanceof Epic epic) {
+            Epic previous = epics.put(epic.getId(), epic);
+
+            //обновлённый эпик забирает подзадачи старого
+            if (previous != null && previous != epic) {
+                for (SubTask subTask : previous.getSubTasks().values()) {
+                    subTask.setEpic(epic);
+                    epic.addSubTask(subTask);
+                }
+            }
+            if (!epic.getSubTasks().isEmpty()) {
+                changeStatusEpic(epic);
+            }
+        } else if (task instanceof SubTask subTask) {
+            SubTask previous = subTasks.put(subTask.getId(), subTask);
+            indexTime(subTask);
+            Epic epic = subTask.getEpic();
+
+            if (previous != null && previous.getEpic() != null && previous.getEpic() != epic) {
+                previous.getEpic().removeSubTask(subTask.getId());
+                changeStatusEpic(previous.getEpic());
+            }
+            if (epic != null && epics.containsKey(epic.getId())) {
+                epic.addSubTask(subTask);
+                changeStatusEpic(epic);
+            }
+        }
+    }
+
+    private void restoreDelete(int id) {
+        AbstractTask task = findById(id);
+        if (task == null) {
+            return;
+        }
+        switch (task.getType()) {
+            case TASK:
+                super.deleteTaskById(id);
+                break;
+            case SUBTASK:
+                super.deleteSubTaskById(id);
+                break;
+            case EPIC:
+                super.deleteEpicById(id);
+                break;
+        }
+    }
+
+    private void restoreClear(Type type) {
+        switch (type) {
+            case TASK:
+                super.deleteAllTasks();
+                break;
+            case SUBTASK:
+                super.deleteAllSubTasks();
+                break;
+            case EPIC:
+                super.deleteAllEpics();
+                break;
+        }
+    }
+
+    private void restoreHistory(List<Integer> ids) {
+        for (AbstractTask task : history.getHistory()) {
+            history.remove(task.getId());
+        }
+        for (int id : ids) {
+            AbstractTask task = findById(id);
+            if (task != null) {
+                history.add(task);
+            }
+        }
+    }
+
+    private int maxId() {
+        int max = 0;
+        for (Integer id : byId.keySet()) {
+            max = Math.max(max, id);
+        }
+        return max;
+    }
+
     // превращение задачи в строку
-    private String toString(AbstractTask task) {
+    static String toString(AbstractTask task) {
         String epicInfo = "";
-        Type type;
-        Class<? extends AbstractTask> clazz = task.getClass();
-
-        if (clazz == SubTask.class) {
-            SubTask subTask = (SubTask) task;
-            epicInfo += subTask.getEpic().getId();
-            type = Type.SUBTASK;
-        } else if (clazz == Task.class) {
-            type = Type.TASK;
-        } else {
-            type = Type.EPIC;
+        Type type = task.getType();
+
+        //подзадача без эпика пишется с пустым столбцом epic
+        if (type == Type.SUBTASK && ((SubTask) task).getEpic() != null) {
+            epicInfo += ((SubTask) task).getEpic().getId();
         }
         return new StringBuilder()
                 .append(task.getId()).append(",")
@@ -119,7 +602,7 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
     }
 
     // создание задачи из строки
-    private AbstractTask fromString(String value) {
+    static AbstractTask fromString(String value, IntFunction<Epic> epics) {
         String[] values = value.split(",");//6 элементов
         Status status = Status.valueOf(values[3]);
         int id = Integer.parseInt(values[0]);
@@ -135,7 +618,7 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
             case "SUBTASK":
                 Epic subTaskEpic = null;
                 if(!values[5].isEmpty()) {
-                    subTaskEpic = epics.get(Integer.parseInt(values[5]));//возможно тут ошибка
+                    subTaskEpic = epics.apply(Integer.parseInt(values[5]));//возможно тут ошибка
                 }
                 SubTask subTask = new SubTask(subTaskEpic, values[2], values[4], id, status);
                 subTask.setId(Integer.parseInt(values[0]));
@@ -183,109 +666,198 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
     }
 
     @Override//ЕСТЬ SAVE
-    public void deleteAllSubTasks() {
+    public synchronized void deleteAllSubTasks() {
+        subTasks.keySet().forEach(this::touch);
+        //статус всех эпиков сбрасывается
+        epics.keySet().forEach(this::touch);
         super.deleteAllSubTasks();
-        save();
+        persist(TaskJournal.CLEAR, Type.SUBTASK.name());
     }
 
     @Override//ЕСТЬ SAVE
-    public void deleteAllTasks() {
+    public synchronized void deleteAllTasks() {
+        tasks.keySet().forEach(this::touch);
         super.deleteAllTasks();
-        save();
+        persist(TaskJournal.CLEAR, Type.TASK.name());
     }
 
     @Override//ЕСТЬ SAVE
-    public void deleteAllEpics() {
+    public synchronized void deleteAllEpics() {
+        epics.keySet().forEach(this::touch);
+        subTasks.keySet().forEach(this::touch);
         super.deleteAllEpics();
-        save();
+        persist(TaskJournal.CLEAR, Type.EPIC.name());
     }
 
     @Override
-    public SubTask getIdSubtask(int id) {
-        return super.getIdSubtask(id);
+    public synchronized SubTask getIdSubtask(int id) {
+        SubTask result = super.getIdSubtask(id);
+        historyStore.changed();
+        return result;
+    }
+
+    @Override
+    public synchronized Task getIdTask(int id) {
+        Task result = super.getIdTask(id);
+        historyStore.changed();
+        return result;
     }
 
     @Override
-    public Task getIdTask(int id) {
-        return super.getIdTask(id);
+    public synchronized Epic getIdEpic(int id) {
+        Epic result = super.getIdEpic(id);
+        historyStore.changed();
+        return result;
     }
 
     @Override
-    public Epic getIdEpic(int id) {
-        return super.getIdEpic(id);
+    public synchronized AbstractTask getById(int id) {
+        AbstractTask result = super.getById(id);
+        historyStore.changed();
+        return result;
     }
 
     @Override//ЕСТЬ SAVE
-    public boolean createSubTask(SubTask subTask) {
+    public synchronized boolean createSubTask(SubTask subTask) {
         boolean result = super.createSubTask(subTask);
-        save();
+        touch(subTask.getId());
+        touch(subTask.getEpic().getId());
+        persist(subTask);
         return result;
     }
 
     @Override//ЕСТЬ SAVE
-    public boolean createTask(Task task) {
+    public synchronized boolean createTask(Task task) {
         boolean result = super.createTask(task);
-        save();
+        touch(task.getId());
+        persist(task);
         return result;
     }
 
     @Override//ЕСТЬ SAVE
-    public boolean createEpic(Epic epic) {
+    public synchronized boolean createEpic(Epic epic) {
         boolean result = super.createEpic(epic);
-        save();
+        touch(epic.getId());
+        persist(epic);
         return result;
     }
 
     @Override//ЕСТЬ SAVE
-    public boolean updateSubTask(SubTask subTask) {
+    public synchronized boolean updateSubTask(SubTask subTask) {
+        SubTask old = subTask == null ? null : subTasks.get(subTask.getId());
         boolean result = super.updateSubTask(subTask);
-        save();
+        if (result) {
+            touch(subTask.getId());
+            touch(subTask.getEpic().getId());
+            //статус старого эпика пересчитан, если подзадача переехала
+            if (old.getEpic() != null) {
+                touch(old.getEpic().getId());
+            }
+            persist(subTask);
+        }
         return result;
     }
 
     @Override//ЕСТЬ SAVE
-    public boolean updateTask(Task task) {
+    public synchronized boolean updateTask(Task task) {
         boolean result = super.updateTask(task);
-        save();
+        if (result) {
+            touch(task.getId());
+            persist(task);
+        }
         return result;
     }
 
     @Override//ЕСТЬ SAVE
-    public boolean updateEpic(Epic epic) {
+    public synchronized boolean updateEpic(Epic epic) {
         boolean result = super.updateEpic(epic);
-        save();
+        if (result) {
+            touch(epic.getId());
+            persist(epic);
+        }
         return result;
     }
 
     @Override//ЕСТЬ SAVE
-    public SubTask deleteSubTaskById(int id) {
+    public synchronized SubTask deleteSubTaskById(int id) {
         SubTask result = super.deleteSubTaskById(id);
-        save();
+        touch(id);
+        if (result.getEpic() != null) {
+            touch(result.getEpic().getId());
+        }
+        persist(TaskJournal.DELETE, String.valueOf(id));
         return result;
     }
 
     @Override//ЕСТЬ SAVE
-    public Task deleteTaskById(int id) {
+    public synchronized Task deleteTaskById(int id) {
         Task result = super.deleteTaskById(id);
-        save();
+        touch(id);
+        persist(TaskJournal.DELETE, String.valueOf(id));
         return result;
     }
 
     @Override//ЕСТЬ SAVE
-    public Epic deleteEpicById(int id) {
+    public synchronized Epic deleteEpicById(int id) {
         Epic result = super.deleteEpicById(id);
-        save();
+        touch(id);
+        result.getSubTasks().keySet().forEach(this::touch);
+        persist(TaskJournal.DELETE, String.valueOf(id));
         return result;
     }
 
+    //весь пакет выполняется под монитором менеджера
+    @Override
+    public synchronized void batch(Consumer<TaskManager> work) {
+        super.batch(work);
+    }
+
+    //пакет сохраняется одной перезаписью снимка или сегментов, одной пачкой журнала или одним изменением для писателя
+    @Override
+    protected void batchCompleted() {
+        if (!batchChanged) {
+            return;
+        }
+        List<String> records = batchRecords;
+        batchRecords = new ArrayList<>();
+        batchChanged = false;
+        persist(records);
+    }
+
     @Override
     public List<SubTask> returnSubTasksInEpic(Epic epic) {
         return super.returnSubTasksInEpic(epic);
     }
 
     @Override
-    public List<AbstractTask> getHistory() {
-        save();
+    public synchronized List<AbstractTask> getHistory() {
         return super.getHistory();
     }
+
+    //записывает накопленные изменения и историю, дожидается фонового сжатия и закрывает журнал
+    @Override
+    public void close() {
+        if (committer != null) {
+            committer.close();
+        }
+        historyStore.close();
+        synchronized (this) {
+            if (compactor != null) {
+                compactor.shutdown();
+            }
+        }
+        if (compactor != null) {
+            try {
+                compactor.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (journal != null) {
+            journal.close();
+        }
+        if (compactionError != null) {
+            throw compactionError;
+        }
+    }
 }
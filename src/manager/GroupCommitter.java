@@ -0,0 +1,129 @@
+package manager;
+
+import exceptions.ManagerIOException;
+
+import java.util.function.Supplier;
+
+//копит изменения менеджера и сбрасывает их на диск одной пачкой по политике долговечности
+class GroupCommitter implements AutoCloseable {
+    //монитор менеджера: под ним меняется состояние и снимается пачка
+    private final Object lock;
+    //порядок записей на диск совпадает с порядком снятия пачек
+    private final Object writeLock = new Object();
+    private final DurabilityPolicy policy;
+    //вызывается под lock, возвращает запись пачки на диск или null, если писать нечего
+    private final Supplier<Runnable> capture;
+    private final Thread writer;
+
+    private int pending;
+    private long firstPendingAt;
+    private boolean closed;
+    private volatile ManagerIOException error;
+
+    GroupCommitter(Object lock, DurabilityPolicy policy, Supplier<Runnable> capture) {
+        this.lock = lock;
+        this.policy = policy;
+        this.capture = capture;
+
+        if (policy.getKind() == DurabilityPolicy.Kind.GROUP_COMMIT) {
+            writer = new Thread(this::run, "group-commit-writer");
+            writer.setDaemon(true);
+            writer.start();
+        } else {
+            writer = null;
+        }
+    }
+
+    //вызывается под lock после каждого изменения
+    void changed() {
+        rethrow();
+        if (++pending == 1) {
+            firstPendingAt = System.nanoTime();
+        }
+        if (writer != null && (pending == 1 || isDue())) {
+            lock.notifyAll();
+        }
+    }
+
+    //записывает всё накопленное; нельзя вызывать, удерживая lock из другого потока
+    void flush() {
+        synchronized (writeLock) {
+            Runnable batch;
+            synchronized (lock) {
+                batch = capture.get();
+                pending = 0;
+            }
+            if (batch != null) {
+                batch.run();
+            }
+        }
+    }
+
+    private boolean isDue() {
+        if (pending == 0) {
+            return false;
+        }
+        int maxOperations = policy.getMaxOperations();
+        long maxDelayMillis = policy.getMaxDelayMillis();
+        return (maxOperations > 0 && pending >= maxOperations)
+                || (maxDelayMillis > 0 && elapsedMillis() >= maxDelayMillis);
+    }
+
+    private long elapsedMillis() {
+        return (System.nanoTime() - firstPendingAt) / 1_000_000;
+    }
+
+    private void run() {
+        while (true) {
+            synchronized (lock) {
+                try {
+                    while (!closed && !isDue()) {
+                        long maxDelayMillis = policy.getMaxDelayMillis();
+                        //без изменений или без ограничения по времени ждём сигнала от changed()
+                        if (pending == 0 || maxDelayMillis == 0) {
+                            lock.wait();
+                        } else {
+                            lock.wait(Math.max(1, maxDelayMillis - elapsedMillis()));
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    return;
+                }
+                if (closed) {
+                    return;
+                }
+            }
+            try {
+                flush();
+            } catch (ManagerIOException e) {
+                error = e;
+            }
+        }
+    }
+
+    private void rethrow() {
+        ManagerIOException e = error;
+        if (e != null) {
+            error = null;
+            throw e;
+        }
+    }
+
+    //останавливает фоновый поток и записывает остаток
+    @Override
+    public void close() {
+        if (writer != null) {
+            synchronized (lock) {
+                closed = true;
+                lock.notifyAll();
+            }
+            try {
+                writer.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        flush();
+        rethrow();
+    }
+}
@@ -0,0 +1,110 @@
+package manager;
+
+import exceptions.ManagerIOException;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+//файл истории просмотров рядом со снимком: переписывается в фоне и только если история менялась
+class HistoryStore implements AutoCloseable {
+    private final File file;
+    //монитор менеджера: под ним меняется и снимается история
+    private final Object lock;
+    //вызывается под lock, возвращает id истории через запятую
+    private final Supplier<String> capture;
+    //0 - только по flush() и при закрытии
+    private final long flushMillis;
+    private final Object writeLock = new Object();
+
+    private ScheduledExecutorService flusher;
+    private boolean dirty;
+
+    HistoryStore(File snapshot, Object lock, long flushMillis, Supplier<String> capture) {
+        this.file = historyFile(snapshot);
+        this.lock = lock;
+        this.flushMillis = flushMillis;
+        this.capture = capture;
+    }
+
+    static File historyFile(File snapshot) {
+        return new File(snapshot.getPath() + ".history");
+    }
+
+    //сохранённая история или null, если файла нет
+    static String read(File snapshot) {
+        File f = historyFile(snapshot);
+        if (!f.exists()) {
+            return null;
+        }
+        try {
+            return Files.readString(f.toPath()).trim();
+        } catch (IOException e) {
+            throw new ManagerIOException("Ошибка чтения истории " + f, e);
+        }
+    }
+
+    //удаляет историю прошлого запуска, чтобы она не наложилась на новый менеджер
+    void reset() {
+        file.delete();
+    }
+
+    //вызывается под lock после изменения истории; сама запись откладывается
+    void changed() {
+        dirty = true;
+        if (flusher == null && flushMillis > 0) {
+            flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "history-flusher");
+                thread.setDaemon(true);
+                return thread;
+            });
+            flusher.scheduleWithFixedDelay(this::flushQuietly, flushMillis, flushMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    void flush() {
+        synchronized (writeLock) {
+            String ids;
+            synchronized (lock) {
+                if (!dirty) {
+                    return;
+                }
+                dirty = false;
+                ids = capture.get();
+            }
+            FileBackedTaskManager.writeDurably(file, ids);
+        }
+    }
+
+    //ошибка фоновой записи не теряет изменения: история останется грязной до следующей попытки
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (ManagerIOException e) {
+            synchronized (lock) {
+                dirty = true;
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        ScheduledExecutorService f;
+        synchronized (lock) {
+            f = flusher;
+        }
+        if (f != null) {
+            f.shutdown();
+            try {
+                f.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        flush();
+    }
+}
@@ -1,22 +1,61 @@
 package manager;
 
+import events.ChangeType;
+import events.EventBus;
+import events.Subscription;
+import events.TaskEvent;
 import exceptions.HistoryIsEmpty;
 import exceptions.TaskNotExistsException;
 import exceptions.EpicNotFoundException;
+import exceptions.TaskTimeOverlapException;
+import histories.HistoryManager;
 import histories.InMemoryHistoryManager;
 import task.*;
-import task.Status.*;
+import util.IntMap;
+import util.IntObjectMap;
 
+import java.time.LocalDateTime;
 import java.util.*;
+import java.util.function.Consumer;
 
 public class InMemoryTaskManager implements TaskManager {
-    protected Map<Integer, SubTask> subTasks = new HashMap<>();
-    protected Map<Integer, Task> tasks = new HashMap<>();
-    protected Map<Integer, Epic> epics = new HashMap<>();
-    protected InMemoryHistoryManager history = new InMemoryHistoryManager();
+    //хранилища с int-ключами: обращение по id не упаковывает его в Integer
+    protected IntMap<SubTask> subTasks = new IntObjectMap<>();
+    protected IntMap<Task> tasks = new IntObjectMap<>();
+    protected IntMap<Epic> epics = new IntObjectMap<>();
+    //все задачи, подзадачи и эпики по id: поиск без угадывания типа за одно обращение
+    protected IntMap<AbstractTask> byId = new IntObjectMap<>();
+    protected HistoryManager history;
+    //задачи и подзадачи по времени начала
+    protected TimeIndex prioritized = new TimeIndex();
+    //непересекающиеся интервалы выполнения задач и подзадач
+    protected IntervalIndex intervals = new IntervalIndex();
+    //задачи по типу и статусу
+    protected StatusIndex statuses = new StatusIndex();
+    //слова названий и описаний для полнотекстового поиска
+    protected TextIndex text = new TextIndex();
+    //события об изменениях для асинхронных подписчиков
+    protected EventBus events = new EventBus();
 
     //private / protected
-    private int idGen = 1;
+    protected int idGen = 1;
+
+    //вложенность пакетов и эпики, статус которых пересчитывается в конце внешнего пакета
+    private int batchDepth;
+    private IntObjectMap<Epic> deferredEpics;
+
+    public InMemoryTaskManager() {
+        this(new InMemoryHistoryManager());
+    }
+
+    public InMemoryTaskManager(HistoryManager history) {
+        this.history = history;
+    }
+
+    //выдаёт следующий свободный идентификатор
+    protected int nextId() {
+        return idGen++;
+    }
 
     //получение списка задач
     @Override
@@ -32,24 +71,139 @@ public class InMemoryTaskManager implements TaskManager {
         return new ArrayList<>(epics.values());
     }
 
+    //представления без копирования
+    @Override
+    public Collection<SubTask> viewSubTasks() {
+        return Collections.unmodifiableCollection(subTasks.values());
+    }
+    @Override
+    public Collection<Task> viewTasks() {
+        return Collections.unmodifiableCollection(tasks.values());
+    }
+    @Override
+    public Collection<Epic> viewEpics() {
+        return Collections.unmodifiableCollection(epics.values());
+    }
+    @Override
+    public Collection<SubTask> viewSubTasksInEpic(Epic epic) {
+        if (epic == null) {
+            throw new NullPointerException("epic == null!!");
+        } else if(!epics.containsKey(epic.getId())) {
+            throw new TaskNotExistsException("Эпика с id: " + epic.getId() + " нет");
+        }
+        return epic.getSubTasks().values();
+    }
+
+    //постраничное получение
+    @Override
+    public List<SubTask> getSubTasks(int offset, int limit) {
+        return page(subTasks.values(), offset, limit);
+    }
+    @Override
+    public List<Task> getTasks(int offset, int limit) {
+        return page(tasks.values(), offset, limit);
+    }
+    @Override
+    public List<Epic> getEpics(int offset, int limit) {
+        return page(epics.values(), offset, limit);
+    }
+
+    //копирует только нужную страницу
+    private static <T> List<T> page(Collection<T> values, int offset, int limit) {
+        if (offset < 0 || limit < 0) {
+            throw new IllegalArgumentException("offset и limit не могут быть отрицательными");
+        }
+        List<T> result = new ArrayList<>(Math.max(0, Math.min(limit, values.size() - offset)));
+        int position = 0;
+        for (T value : values) {
+            if (result.size() >= limit) {
+                break;
+            }
+            if (position++ >= offset) {
+                result.add(value);
+            }
+        }
+        return result;
+    }
+
+    //выборка по статусу из вторичного индекса, без обхода всех задач
+    @Override
+    public List<SubTask> getSubTasks(Status status) {
+        return byStatus(Type.SUBTASK, status);
+    }
+    @Override
+    public List<Task> getTasks(Status status) {
+        return byStatus(Type.TASK, status);
+    }
+    @Override
+    public List<Epic> getEpics(Status status) {
+        return byStatus(Type.EPIC, status);
+    }
+
+    protected <T extends AbstractTask> List<T> byStatus(Type type, Status status) {
+        if (type == null || status == null) {
+            throw new NullPointerException("type == null || status == null!!");
+        }
+        return statuses.members(type, status);
+    }
+
+    @Override
+    public int count(Type type) {
+        if (type == null) {
+            throw new NullPointerException("type == null!!");
+        }
+        return statuses.count(type);
+    }
+    @Override
+    public int count(Type type, Status status) {
+        if (type == null || status == null) {
+            throw new NullPointerException("type == null || status == null!!");
+        }
+        return statuses.count(type, status);
+    }
+
     //удаление всех задач в списке
     @Override
     public void deleteAllSubTasks() {
         for (Epic epic : epics.values()) {
-            epic.getSubTasks().clear();
+            Status previous = epic.getStatus();
+            epic.clearSubTasks();
             epic.setStatus(Status.NEW);
+            indexStatus(epic);
+            if (previous != Status.NEW) {
+                publish(ChangeType.STATUS_CHANGED, epic, previous);
+            }
         }
+        subTasks.values().forEach(this::publishDeleted);
+        subTasks.keySet().forEach(this::unindexStatus);
+        subTasks.keySet().forEach(this::unindexText);
+        subTasks.keySet().forEach(this::unindexTime);
+        subTasks.keySet().forEach(byId::remove);
         subTasks.clear();
     }
     @Override
     public void deleteAllTasks() {
+        tasks.values().forEach(this::publishDeleted);
+        tasks.keySet().forEach(this::unindexStatus);
+        tasks.keySet().forEach(this::unindexText);
+        tasks.keySet().forEach(this::unindexTime);
+        tasks.keySet().forEach(byId::remove);
         tasks.clear();
     }
     @Override
     public void deleteAllEpics() {
         epics.keySet().forEach(history::remove);
         subTasks.keySet().forEach(history::remove);
+        subTasks.keySet().forEach(this::unindexTime);
+        epics.keySet().forEach(this::unindexStatus);
+        subTasks.keySet().forEach(this::unindexStatus);
+        epics.keySet().forEach(this::unindexText);
+        subTasks.keySet().forEach(this::unindexText);
+        epics.keySet().forEach(byId::remove);
+        subTasks.keySet().forEach(byId::remove);
 
+        subTasks.values().forEach(this::publishDeleted);
+        epics.values().forEach(this::publishDeleted);
         epics.clear();
         subTasks.clear();
     }
@@ -57,32 +211,49 @@ public class InMemoryTaskManager implements TaskManager {
     //получение по идентификатору --- ИСПРАВИТЬ НАЗВАНИЕ: getTaskById
     @Override
     public SubTask getIdSubtask(int id) {
-        if(!subTasks.containsKey(id)) {
+        SubTask st = subTasks.get(id);
+        if(st == null) {
             throw new TaskNotExistsException("Задачи с идентификатором " + id + " нет в списке задач");
         }
-        SubTask st = subTasks.get(id);
         history.add(st);
         return st;
     }
     @Override
     public Task getIdTask(int id) {
-        if(!tasks.containsKey(id)) {
+        Task t = tasks.get(id);
+        if(t == null) {
             throw new TaskNotExistsException("Задачи с идентификатором " + id + " нет в списке задач");
         }
-        Task t = tasks.get(id);
         history.add(t);
         return t;
     }
     @Override
     public Epic getIdEpic(int id) {
-        if(!epics.containsKey(id)) {
+        Epic e = epics.get(id);
+        if(e == null) {
             throw new TaskNotExistsException("Задачи с идентификатором " + id + " нет в списке задач");
         }
-        Epic e = epics.get(id);
         history.add(e);
         return e;
     }
 
+    //получение по идентификатору без знания типа
+    @Override
+    public AbstractTask getById(int id) {
+        AbstractTask task = findById(id);
+        if (task == null) {
+            throw new TaskNotExistsException("Задачи с идентификатором " + id + " нет");
+        }
+        history.add(task);
+        return task;
+    }
+
+    //задача любого типа или null, в историю не попадает
+    @Override
+    public AbstractTask findById(int id) {
+        return byId.get(id);
+    }
+
     //создание задачи return - не может не быть true
     @Override
     public boolean createSubTask(SubTask subTask) {
@@ -93,14 +264,22 @@ public class InMemoryTaskManager implements TaskManager {
         } else if(!epics.containsKey(gE.getId())) {
             throw new EpicNotFoundException("Эпика с id: " + gE.getId() + " не существует!");
         }
-        int id = idGen++;
+        //подзадача привязывается к хранимому эпику, даже если передан его прежний объект (см. updateEpic)
+        gE = epics.get(gE.getId());
+        subTask.setEpic(gE);
+        int id = nextId();
 
         subTask.setId(id);
-        gE.getSubTasks().put(id, subTask);
-        changeStatusEpic(gE);
+        indexTime(subTask);
+        gE.addSubTask(subTask);
 
         subTasks.put(id, subTask);
-        return subTasks.containsKey(id);
+        byId.put(id, subTask);
+        indexStatus(subTask);
+        indexText(subTask);
+        publish(ChangeType.CREATED, subTask, null);
+        changeStatusEpic(gE);
+        return true;
     }
 
     //return бесполезен так как нет false
@@ -109,10 +288,15 @@ public class InMemoryTaskManager implements TaskManager {
         if (task == null) {
             throw new NullPointerException("Task == null!!");
         }
-        int id = idGen++;
+        int id = nextId();
         task.setId(id);
+        indexTime(task);
 
-        tasks.put(task.getId(), task);
+        tasks.put(id, task);
+        byId.put(id, task);
+        indexStatus(task);
+        indexText(task);
+        publish(ChangeType.CREATED, task, null);
         return true;
     }
 
@@ -122,10 +306,14 @@ public class InMemoryTaskManager implements TaskManager {
         if (epic == null) {
             throw new NullPointerException("Epic == null!!");
         }
-        int id = idGen++;
+        int id = nextId();
         epic.setId(id);
 
-        epics.put(epic.getId(), epic);
+        epics.put(id, epic);
+        byId.put(id, epic);
+        indexStatus(epic);
+        indexText(epic);
+        publish(ChangeType.CREATED, epic, null);
         changeStatusEpic(epic);
         return true;
     }
@@ -148,8 +336,23 @@ public class InMemoryTaskManager implements TaskManager {
         } else if (!epics.containsKey(epic.getId())) {
             throw new EpicNotFoundException("Эпика новой подзадачи нет!!");
         }
+        epic = epics.get(epic.getId());
+        subTask.setEpic(epic);
+        indexTime(subTask);
+
+        //подзадача переехала в другой эпик - убираем её из старого
+        SubTask old = subTasks.get(id);
+        Epic oldEpic = old.getEpic();
+        if (oldEpic != null && oldEpic.getId() != epic.getId()) {
+            oldEpic.removeSubTask(id);
+            changeStatusEpic(oldEpic);
+        }
         subTasks.put(id, subTask);
-        epic.getSubTasks().put(id, subTask);//добавление в новый эпик
+        byId.put(id, subTask);
+        indexStatus(subTask);
+        indexText(subTask);
+        publish(ChangeType.UPDATED, subTask, old.getStatus());
+        epic.addSubTask(subTask);//добавление в новый эпик
         changeStatusEpic(epic);
         return true;
     }
@@ -163,7 +366,12 @@ public class InMemoryTaskManager implements TaskManager {
         if(!tasks.containsKey(id)) {
             return false;
         }
-        tasks.put(id, task);
+        indexTime(task);
+        Task old = tasks.put(id, task);
+        byId.put(id, task);
+        indexStatus(task);
+        indexText(task);
+        publish(ChangeType.UPDATED, task, old.getStatus());
         return true;
     }
     @Override
@@ -176,40 +384,217 @@ public class InMemoryTaskManager implements TaskManager {
         if(!epics.containsKey(id)) {
             return false;
         }
+        //подзадачи переезжают в новый объект эпика и ссылаются на него, иначе удаление подзадачи и пересчёт
+        //статуса работали бы со старым, уже не хранимым объектом. Статус эпика по-прежнему считается по подзадачам
+        Epic old = epics.get(id);
+        if (old != epic) {
+            List<SubTask> moved = new ArrayList<>(old.getSubTasks().values());
+            old.clearSubTasks();
+            epic.clearSubTasks();
+            for (SubTask subTask : moved) {
+                subTask.setEpic(epic);
+                epic.addSubTask(subTask);
+            }
+        }
+        epic.setStatus(epic.calculateStatus());
         epics.put(id, epic);
+        byId.put(id, epic);
+        indexStatus(epic);
+        indexText(epic);
+        publish(ChangeType.UPDATED, epic, old.getStatus());
         return true;
     }
 
     //удаление по идентификатору
     @Override
     public SubTask deleteSubTaskById(int id) {
-        if(!subTasks.containsKey(id)) {
+        SubTask st = subTasks.remove(id);
+        if(st == null) {
             throw new TaskNotExistsException("Подзадачи с id: " + id + " нет");
         }
-        Epic epic = subTasks.get(id).getEpic();
-        epic.getSubTasks().remove(id);
-        changeStatusEpic(epic);
+        //эпика может не быть: загрузка оставляет подзадачи, эпик которых не нашёлся
+        Epic epic = st.getEpic();
+        if (epic != null) {
+            epic.removeSubTask(id);
+        }
         history.remove(id);
-        return subTasks.remove(id);
+        unindexTime(id);
+        unindexStatus(id);
+        unindexText(id);
+        byId.remove(id);
+        publishDeleted(st);
+        if (epic != null) {
+            changeStatusEpic(epic);
+        }
+        return st;
     }
     @Override
     public Task deleteTaskById(int id) {
-        if(!tasks.containsKey(id)) {
+        Task t = tasks.remove(id);
+        if(t == null) {
             throw new TaskNotExistsException("Задачи с id: " + id + " нет");
         }
         history.remove(id);
-        return tasks.remove(id);
+        unindexTime(id);
+        unindexStatus(id);
+        unindexText(id);
+        byId.remove(id);
+        publishDeleted(t);
+        return t;
     }
     @Override
     public Epic deleteEpicById(int id) {
-        if(!epics.containsKey(id)) {
+        Epic e = epics.remove(id);
+        if(e == null) {
             throw new TaskNotExistsException("Эпика с id: " + id + " нет");
         }
-        for (SubTask st : epics.get(id).getSubTasks().values()) {
+        for (SubTask st : e.getSubTasks().values()) {
             subTasks.remove(st.getId());
+            unindexTime(st.getId());
+            unindexStatus(st.getId());
+            unindexText(st.getId());
+            byId.remove(st.getId());
+            publishDeleted(st);
         }
         history.remove(id);
-        return epics.remove(id);
+        unindexStatus(id);
+        unindexText(id);
+        byId.remove(id);
+        publishDeleted(e);
+        return e;
+    }
+
+    //удаление по идентификатору без знания типа
+    @Override
+    public AbstractTask deleteById(int id) {
+        AbstractTask task = findById(id);
+        if (task == null) {
+            throw new TaskNotExistsException("Задачи с id: " + id + " нет");
+        }
+        return switch (task.getType()) {
+            case TASK -> deleteTaskById(id);
+            case SUBTASK -> deleteSubTaskById(id);
+            case EPIC -> deleteEpicById(id);
+        };
+    }
+
+    @Override
+    public void createAll(Collection<? extends AbstractTask> tasks) {
+        if (tasks == null) {
+            throw new NullPointerException("tasks == null!!");
+        }
+        batch(manager -> {
+            List<AbstractTask> created = new ArrayList<>(tasks.size());
+            try {
+                for (AbstractTask task : tasks) {
+                    if (task == null) {
+                        throw new NullPointerException("task == null!!");
+                    }
+                    switch (task.getType()) {
+                        case TASK -> createTask((Task) task);
+                        case EPIC -> createEpic((Epic) task);
+                        case SUBTASK -> createSubTask((SubTask) task);
+                    }
+                    created.add(task);
+                }
+            } catch (RuntimeException e) {
+                //подзадачи созданного эпика удаляются вместе с ним
+                for (int i = created.size() - 1; i >= 0; i--) {
+                    AbstractTask task = created.get(i);
+                    if (findById(task.getId()) == task) {
+                        deleteById(task.getId());
+                    }
+                }
+                throw e;
+            }
+        });
+    }
+
+    @Override
+    public void updateAll(Collection<? extends AbstractTask> tasks) {
+        if (tasks == null) {
+            throw new NullPointerException("tasks == null!!");
+        }
+        batch(manager -> {
+            List<AbstractTask> previous = new ArrayList<>(tasks.size());
+            try {
+                for (AbstractTask task : tasks) {
+                    if (task == null) {
+                        throw new NullPointerException("task == null!!");
+                    }
+                    AbstractTask old = findById(task.getId());
+                    if (old == null || old.getType() != task.getType() || !update(task)) {
+                        throw new TaskNotExistsException("Задачи с id: " + task.getId() + " нет");
+                    }
+                    previous.add(old);
+                }
+            } catch (RuntimeException e) {
+                for (int i = previous.size() - 1; i >= 0; i--) {
+                    update(previous.get(i));
+                }
+                throw e;
+            }
+        });
+    }
+
+    private boolean update(AbstractTask task) {
+        return switch (task.getType()) {
+            case TASK -> updateTask((Task) task);
+            case EPIC -> updateEpic((Epic) task);
+            case SUBTASK -> updateSubTask((SubTask) task);
+        };
+    }
+
+    @Override
+    public List<AbstractTask> deleteAllById(Collection<Integer> ids) {
+        if (ids == null) {
+            throw new NullPointerException("ids == null!!");
+        }
+        for (int id : ids) {
+            if (findById(id) == null) {
+                throw new TaskNotExistsException("Задачи с id: " + id + " нет");
+            }
+        }
+        List<AbstractTask> removed = new ArrayList<>(ids.size());
+        batch(manager -> {
+            for (int id : ids) {
+                if (findById(id) != null) {
+                    removed.add(deleteById(id));
+                }
+            }
+        });
+        return removed;
+    }
+
+    //внутри пакета статусы эпиков не пересчитываются и могут быть устаревшими до его конца
+    @Override
+    public void batch(Consumer<TaskManager> work) {
+        if (work == null) {
+            throw new NullPointerException("work == null!!");
+        }
+        if (batchDepth++ == 0) {
+            deferredEpics = new IntObjectMap<>();
+        }
+        try {
+            work.accept(this);
+        } finally {
+            if (--batchDepth == 0) {
+                IntObjectMap<Epic> deferred = deferredEpics;
+                deferredEpics = null;
+                for (Epic epic : deferred.values()) {
+                    changeStatusEpic(epic);
+                }
+                batchCompleted();
+            }
+        }
+    }
+
+    protected boolean inBatch() {
+        return batchDepth > 0;
+    }
+
+    //вызывается в конце внешнего пакета, когда статусы эпиков уже пересчитаны
+    protected void batchCompleted() {
     }
 
     //все подзадачи определённого эпика
@@ -234,34 +619,131 @@ public class InMemoryTaskManager implements TaskManager {
         return getH;
     }
 
-    //расчёт status для эпика
-    protected void changeStatusEpic(Epic epic) {
-        boolean ifDONE = true;
-        boolean ifNEW = true;
-
-        for (SubTask subTask : epic.getSubTasks().values()) {
-            Status status = subTask.getStatus();
-            switch(status) {
-                case Status.IN_Progress:
-                    ifDONE = false;
-                    ifNEW = false;
-                    break;
-                case Status.NEW:
-                    ifDONE = false;
-                    break;
-                case Status.DONE:
-                    ifNEW = false;
-                    break;
+    //проверяет, что задача не пересекается по времени с другими, и заносит её в индексы времени
+    protected void indexTime(AbstractTask task) {
+        AbstractTask conflict = intervals.findConflict(task);
+        if (conflict != null) {
+            throw new TaskTimeOverlapException("Задача с id: " + task.getId()
+                    + " пересекается по времени с задачей с id: " + conflict.getId());
+        }
+        intervals.put(task);
+        prioritized.put(task);
+    }
+
+    protected void unindexTime(int id) {
+        intervals.remove(id);
+        prioritized.remove(id);
+    }
+
+    //все задачи и подзадачи, время выполнения которых пересекается с [from, to)
+    @Override
+    public List<AbstractTask> getOverlappingTasks(LocalDateTime from, LocalDateTime to) {
+        if (from == null || to == null) {
+            throw new NullPointerException("from == null || to == null!!");
+        }
+        return intervals.overlapping(from, to);
+    }
+
+    //обход истории без копирования; в отличие от getHistory пустая история не ошибка
+    @Override
+    public void forEachInHistory(Consumer<? super AbstractTask> action) {
+        history.forEach(action);
+    }
+
+    //задачи и подзадачи по времени начала, без задач без времени и без эпиков
+    @Override
+    public List<AbstractTask> getPrioritizedTasks() {
+        return prioritized.all();
+    }
+
+    //ближайшие limit задач, начинающихся не раньше from
+    @Override
+    public List<AbstractTask> getPrioritizedTasks(LocalDateTime from, int limit) {
+        if (from == null) {
+            throw new NullPointerException("from == null!!");
+        } else if (limit < 0) {
+            throw new IllegalArgumentException("limit < 0!!");
+        }
+        return prioritized.from(from, limit);
+    }
+
+    //заносит задачу в индекс статусов или переносит после смены статуса
+    protected void indexStatus(AbstractTask task) {
+        statuses.put(task);
+    }
+
+    protected void unindexStatus(int id) {
+        statuses.remove(id);
+    }
+
+    protected void indexText(AbstractTask task) {
+        text.put(task);
+    }
+
+    protected void unindexText(int id) {
+        text.remove(id);
+    }
+
+    //подписчик получает события об изменениях пачками не больше maxBatch в своём потоке, не задерживая изменения
+    @Override
+    public Subscription subscribe(Consumer<List<TaskEvent>> listener, int maxBatch) {
+        return events.subscribe(listener, maxBatch);
+    }
+
+    public EventBus getEvents() {
+        return events;
+    }
+
+    //заменяет шину событий, например на другую ёмкость или политику; прежние подписки остаются на старой шине
+    public void setEvents(EventBus events) {
+        if (events == null) {
+            throw new NullPointerException("events == null!!");
+        }
+        this.events = events;
+    }
+
+    protected void publish(ChangeType change, AbstractTask task, Status previous) {
+        events.publish(change, task, previous);
+    }
+
+    private void publishDeleted(AbstractTask task) {
+        publish(ChangeType.DELETED, task, task.getStatus());
+    }
+
+    //полнотекстовый поиск по названию и описанию; слова через пробел - AND, группы через OR - любая,
+    //слово со * - префикс. Не больше limit задач по убыванию релевантности, в историю не попадают
+    @Override
+    public List<AbstractTask> search(String query, int limit) {
+        if (query == null) {
+            throw new NullPointerException("query == null!!");
+        } else if (limit < 0) {
+            throw new IllegalArgumentException("limit < 0!!");
+        }
+        int[] ids = text.search(query, limit);
+        List<AbstractTask> result = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            AbstractTask task = byId.get(id);
+            if (task != null) {
+                result.add(task);
             }
         }
+        return result;
+    }
 
-        //инициализация status
-        if (epic.getSubTasks().isEmpty() || ifNEW) {
-            epic.setStatus(Status.NEW);
-        } else if (ifDONE) {
-            epic.setStatus(Status.DONE);
-        } else {
-            epic.setStatus(Status.IN_Progress);
+    //расчёт status для эпика: эпик сам ведёт счётчики статусов подзадач, поэтому O(1)
+    protected void changeStatusEpic(Epic epic) {
+        if (deferredEpics != null) {
+            deferredEpics.put(epic.getId(), epic);
+            return;
+        }
+        Status previous = epic.getStatus();
+        epic.setStatus(epic.calculateStatus());
+        //эпик из аргумента может быть не тем объектом, что лежит в хранилище
+        if (epics.get(epic.getId()) == epic) {
+            indexStatus(epic);
+            if (previous != epic.getStatus()) {
+                publish(ChangeType.STATUS_CHANGED, epic, previous);
+            }
         }
     }
 }
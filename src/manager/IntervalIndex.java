@@ -0,0 +1,85 @@
+package manager;
+
+import task.AbstractTask;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+//интервалы [начало, конец) задач и подзадач, у которых задано и начало, и длительность.
+//Интервалы в индексе не пересекаются (это проверяется при каждой вставке), поэтому при сортировке
+//по началу отсортированы и концы: для проверки пересечения достаточно ближайшего соседа слева, O(log n)
+class IntervalIndex {
+    record Interval(LocalDateTime start, LocalDateTime end, int id) implements Comparable<Interval> {
+        @Override
+        public int compareTo(Interval other) {
+            int byStart = start.compareTo(other.start);
+            return byStart != 0 ? byStart : Integer.compare(id, other.id);
+        }
+    }
+
+    private final TreeMap<Interval, AbstractTask> byStart = new TreeMap<>();
+    private final Map<Integer, Interval> intervals = new HashMap<>();
+
+    private static Interval probe(LocalDateTime time) {
+        return new Interval(time, time, Integer.MIN_VALUE);
+    }
+
+    //задача, с которой пересекается task (сама task не в счёт), или null
+    AbstractTask findConflict(AbstractTask task) {
+        LocalDateTime start = task.getStartTime();
+        LocalDateTime end = task.getEndTime();
+        if (start == null || end == null || !end.isAfter(start)) {
+            return null;
+        }
+        Map.Entry<Interval, AbstractTask> left = byStart.lowerEntry(probe(end));
+        while (left != null && left.getKey().id() == task.getId()) {
+            left = byStart.lowerEntry(left.getKey());
+        }
+        if (left != null && left.getKey().end().isAfter(start)) {
+            return left.getValue();
+        }
+        return null;
+    }
+
+    //добавляет задачу или переносит её интервал; задача без времени или с нулевой длительностью из индекса убирается
+    void put(AbstractTask task) {
+        remove(task.getId());
+        LocalDateTime start = task.getStartTime();
+        LocalDateTime end = task.getEndTime();
+        if (start == null || end == null || !end.isAfter(start)) {
+            return;
+        }
+        Interval interval = new Interval(start, end, task.getId());
+        byStart.put(interval, task);
+        intervals.put(task.getId(), interval);
+    }
+
+    void remove(int id) {
+        Interval old = intervals.remove(id);
+        if (old != null) {
+            byStart.remove(old);
+        }
+    }
+
+    //все задачи, интервал которых пересекается с [from, to)
+    List<AbstractTask> overlapping(LocalDateTime from, LocalDateTime to) {
+        List<AbstractTask> result = new ArrayList<>();
+        if (!to.isAfter(from)) {
+            return result;
+        }
+        Map.Entry<Interval, AbstractTask> left = byStart.lowerEntry(probe(from));
+        if (left != null && left.getKey().end().isAfter(from)) {
+            result.add(left.getValue());
+        }
+        for (Map.Entry<Interval, AbstractTask> e : byStart.subMap(probe(from), true, probe(to), false).entrySet()) {
+            if (e.getKey().end().isAfter(from)) {
+                result.add(e.getValue());
+            }
+        }
+        return result;
+    }
+}
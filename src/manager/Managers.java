@@ -1,18 +1,51 @@
 package manager;
 
+import histories.BoundedHistoryManager;
+import histories.EvictionPolicy;
 import histories.HistoryManager;
 import histories.InMemoryHistoryManager;
 
+import java.io.File;
+import java.time.Duration;
+
 public class Managers {
 
     private Managers() {
     }
 
     public static TaskManager getDefault() {
-        return new InMemoryTaskManager();
+        return new InMemoryTaskManager(getDefaultHistory());
+    }
+
+    public static TaskManager getDefault(HistoryManager history) {
+        return new InMemoryTaskManager(history);
+    }
+
+    //менеджер для одновременной работы из нескольких потоков
+    public static TaskManager getConcurrent() {
+        return new ConcurrentTaskManager();
+    }
+
+    //менеджер, сохраняющий состояние в файл
+    public static FileBackedTaskManager getFileBacked(File file) {
+        return new FileBackedTaskManager(file);
+    }
+
+    public static FileBackedTaskManager getFileBacked(File file, StorageOptions options) {
+        return new FileBackedTaskManager(file, options);
     }
 
     public static HistoryManager getDefaultHistory() {
         return new InMemoryHistoryManager();
     }
+
+    //история не длиннее capacity записей, вытесняются давно не просмотренные
+    public static HistoryManager getDefaultHistory(int capacity) {
+        return new BoundedHistoryManager(capacity);
+    }
+
+    //то же, но запись ещё и забывается через ttl после последнего просмотра
+    public static HistoryManager getDefaultHistory(int capacity, Duration ttl) {
+        return new BoundedHistoryManager(EvictionPolicy.lru(capacity).or(EvictionPolicy.expireAfter(ttl)));
+    }
 }
@@ -0,0 +1,269 @@
+package manager;
+
+import exceptions.ManagerIOException;
+import task.AbstractTask;
+import task.Epic;
+import task.Status;
+import util.IntObjectMap;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.IntFunction;
+
+//разбор снимка для FileBackedTaskManager.restoreAll: CSV-файл делится по границам строк на куски,
+//которые разбираются параллельно на ForkJoinPool. Эпики подзадач на этом шаге не ищутся:
+//подзадача получает эпик-заглушку с нужным id, а настоящий эпик подставляется при связывании
+final class ParallelSnapshotLoader {
+    static final int DEFAULT_CHUNK_SIZE = 4 << 20;
+    private static final int SCAN_BLOCK = 64 * 1024;
+
+    //задачи в порядке файла (по кускам), id истории и число пропущенных повреждённых записей
+    record Parsed(List<List<AbstractTask>> chunks, List<Integer> history, int corrupt) {
+    }
+
+    private ParallelSnapshotLoader() {
+    }
+
+    //recover - повреждённые записи пропускаются, см. StorageOptions.setRecoveryMode
+    static Parsed parse(File file, ForkJoinPool pool, int chunkSize, boolean recover) {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            SnapshotInput head = new SnapshotInput(new RangeChannel(channel, 0, size), SCAN_BLOCK);
+            boolean parallel = pool.getParallelism() > 1 && size >= 2L * chunkSize && !BinarySnapshot.isBinary(head);
+            long[] layout = parallel ? layout(channel, size) : null;
+
+            //двоичный снимок и небольшие или нестандартные файлы читаются одним куском
+            if (layout == null) {
+                List<AbstractTask> tasks = new ArrayList<>();
+                SnapshotInput input = new SnapshotInput(new RangeChannel(channel, 0, size), SnapshotInput.DEFAULT_CAPACITY);
+                SnapshotIntegrity.ReadResult result = BinarySnapshot.isBinary(input)
+                        ? BinarySnapshot.read(input, recover, placeholders(), tasks::add)
+                        : CsvSnapshotReader.read(input, recover, placeholders(), tasks::add);
+                return new Parsed(List.of(tasks), result.history(), result.corrupt());
+            }
+            long headerEnd = layout[0];
+            long sectionEnd = layout[1];
+            long historyStart = layout[2];
+            boolean checksums = CsvSnapshotReader.hasChecksums(readString(channel, 0, headerEnd));
+
+            List<List<AbstractTask>> chunks = new ArrayList<>();
+            List<Callable<SnapshotIntegrity.ReadResult>> parts = new ArrayList<>();
+            long start = headerEnd;
+            while (start < sectionEnd) {
+                long end = start + chunkSize >= sectionEnd ? sectionEnd : nextLineStart(channel, start + chunkSize, sectionEnd);
+                long from = start;
+                List<AbstractTask> tasks = new ArrayList<>();
+                chunks.add(tasks);
+                parts.add(() -> {
+                    SnapshotInput input = new SnapshotInput(new RangeChannel(channel, from, end),
+                            (int) Math.min(SnapshotInput.DEFAULT_CAPACITY, end - from + 1));
+                    return CsvSnapshotReader.readChunk(input, checksums, recover, placeholders(), tasks::add);
+                });
+                start = end;
+            }
+
+            SnapshotIntegrity.ReadResult total = invokeAll(pool, parts);
+            int records = total.records();
+            List<Integer> history;
+            if (historyStart < 0) {
+                if (checksums && !recover) {
+                    throw SnapshotIntegrity.corrupted("Снимок оборван: нет строки истории");
+                }
+                history = new ArrayList<>();
+            } else {
+                byte[] line = readString(channel, historyStart, size).strip().getBytes(StandardCharsets.UTF_8);
+                history = CsvSnapshotReader.history(line, 0, line.length, checksums, records, recover);
+            }
+            return new Parsed(chunks, history, total.corrupt());
+        } catch (IOException e) {
+            throw new ManagerIOException("Ошибка чтения файла", e);
+        }
+    }
+
+    //сегменты SegmentStore разбираются параллельно, каждый своим куском; история хранится отдельно от них
+    static Parsed parseSegments(SegmentStore store, ForkJoinPool pool, boolean recover) {
+        List<List<AbstractTask>> chunks = new ArrayList<>();
+        List<Callable<SnapshotIntegrity.ReadResult>> parts = new ArrayList<>();
+        for (int page : store.pages()) {
+            List<AbstractTask> tasks = new ArrayList<>();
+            chunks.add(tasks);
+            parts.add(() -> {
+                byte[] bytes = store.read(page, recover);
+                if (bytes == null) {
+                    return new SnapshotIntegrity.ReadResult(List.of(), 0, store.records(page));
+                }
+                SnapshotInput input = new SnapshotInput(Channels.newChannel(new ByteArrayInputStream(bytes)), bytes.length + 1);
+                return BinarySnapshot.isBinary(input)
+                        ? BinarySnapshot.read(input, recover, placeholders(), tasks::add)
+                        : CsvSnapshotReader.read(input, recover, placeholders(), tasks::add);
+            });
+        }
+        return new Parsed(chunks, new ArrayList<>(), invokeAll(pool, parts).corrupt());
+    }
+
+    //выполняет разбор кусков на pool и складывает их итоги
+    private static SnapshotIntegrity.ReadResult invokeAll(ForkJoinPool pool,
+                                                          List<Callable<SnapshotIntegrity.ReadResult>> parts) {
+        int records = 0;
+        int corrupt = 0;
+        try {
+            for (Future<SnapshotIntegrity.ReadResult> part : pool.invokeAll(parts)) {
+                SnapshotIntegrity.ReadResult result = part.get();
+                records += result.records();
+                corrupt += result.corrupt();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ManagerIOException("Загрузка прервана", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new ManagerIOException("Ошибка разбора файла", e);
+        }
+        return new SnapshotIntegrity.ReadResult(new ArrayList<>(), records, corrupt);
+    }
+
+    //эпик-заглушка на каждый id, одна на кусок
+    private static IntFunction<Epic> placeholders() {
+        IntObjectMap<Epic> placeholders = new IntObjectMap<>();
+        return id -> {
+            Epic epic = placeholders.get(id);
+            if (epic == null) {
+                epic = new Epic(null, null, Status.NEW);
+                epic.setId(id);
+                placeholders.put(id, epic);
+            }
+            return epic;
+        };
+    }
+
+    //{конец заголовка, начало пустой строки перед историей, начало строки истории (-1 - истории нет)}
+    //или null, если файл не похож на снимок, записанный менеджером
+    private static long[] layout(FileChannel channel, long size) throws IOException {
+        long headerEnd = nextLineStart(channel, 0, size);
+        long lastNewline = previousNewline(channel, size);
+        if (lastNewline < 0 || headerEnd >= size) {
+            return null;
+        }
+        long previous = previousNewline(channel, lastNewline);
+        long blankLength = lastNewline - previous - 1;
+        boolean blank = blankLength == 0 || (blankLength == 1 && byteAt(channel, previous + 1) == '\r');
+
+        if (blank && previous + 1 >= headerEnd) {
+            return new long[]{headerEnd, previous + 1, lastNewline + 1};
+        }
+        //без истории файл кончается переводом строки после последней задачи
+        if (lastNewline == size - 1) {
+            return new long[]{headerEnd, size, -1};
+        }
+        return null;
+    }
+
+    private static String readString(FileChannel channel, long from, long to) throws IOException {
+        ByteBuffer line = ByteBuffer.allocate((int) (to - from));
+        while (line.hasRemaining() && channel.read(line, from + line.position()) >= 0) {
+        }
+        return new String(line.array(), 0, line.position(), StandardCharsets.UTF_8);
+    }
+
+    //начало первой строки, которая начинается не раньше from, или limit
+    private static long nextLineStart(FileChannel channel, long from, long limit) throws IOException {
+        if (from == 0) {
+            from = 1;
+        }
+        ByteBuffer block = ByteBuffer.allocate(SCAN_BLOCK);
+        for (long offset = from - 1; offset < limit; ) {
+            block.clear();
+            int read = channel.read(block, offset);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read && offset + i < limit; i++) {
+                if (block.get(i) == '\n') {
+                    return offset + i + 1;
+                }
+            }
+            offset += read;
+        }
+        return limit;
+    }
+
+    //позиция последнего '\n' раньше before или -1
+    private static long previousNewline(FileChannel channel, long before) throws IOException {
+        ByteBuffer block = ByteBuffer.allocate(SCAN_BLOCK);
+        for (long end = before; end > 0; ) {
+            long start = Math.max(0, end - SCAN_BLOCK);
+            block.clear().limit((int) (end - start));
+            while (block.hasRemaining() && channel.read(block, start + block.position()) > 0) {
+            }
+            for (int i = block.position() - 1; i >= 0; i--) {
+                if (block.get(i) == '\n') {
+                    return start + i;
+                }
+            }
+            end = start;
+        }
+        return -1;
+    }
+
+    private static byte byteAt(FileChannel channel, long position) throws IOException {
+        ByteBuffer one = ByteBuffer.allocate(1);
+        channel.read(one, position);
+        return one.get(0);
+    }
+
+    //канал только на участок [position, end) файла; позиционное чтение позволяет
+    //нескольким потокам читать один FileChannel одновременно
+    private static final class RangeChannel implements ReadableByteChannel {
+        private final FileChannel channel;
+        private final long end;
+        private long position;
+
+        RangeChannel(FileChannel channel, long position, long end) {
+            this.channel = channel;
+            this.position = position;
+            this.end = end;
+        }
+
+        @Override
+        public int read(ByteBuffer dst) throws IOException {
+            if (position >= end) {
+                return -1;
+            }
+            int limit = dst.limit();
+            dst.limit((int) Math.min(limit, dst.position() + (end - position)));
+            try {
+                int read = channel.read(dst, position);
+                if (read > 0) {
+                    position += read;
+                }
+                return read;
+            } finally {
+                dst.limit(limit);
+            }
+        }
+
+        @Override
+        public boolean isOpen() {
+            return channel.isOpen();
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package manager;
+
+public enum PersistenceMode {
+    SNAPSHOT,
+    JOURNAL,
+    //задачи лежат в сегментах по диапазонам id, переписываются только изменённые сегменты
+    SEGMENTED
+}
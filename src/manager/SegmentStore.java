@@ -0,0 +1,228 @@
+package manager;
+
+import exceptions.ManagerIOException;
+import task.AbstractTask;
+import task.Epic;
+import task.SubTask;
+import task.Task;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.IntFunction;
+
+//хранилище для PersistenceMode.SEGMENTED: задачи лежат в файлах-сегментах по диапазонам id
+//(страница p - id от p * pageSize + 1 до (p + 1) * pageSize), а файл менеджера - манифест со списком сегментов.
+//Изменённая страница пишется в файл следующего поколения, затем атомарно подменяется манифест,
+//и только после этого удаляются старые файлы, поэтому сбой в любой момент оставляет целый набор сегментов
+final class SegmentStore {
+    private static final String MAGIC = "TMSEGMENTS";
+    private static final String CHECKSUM = "crc";
+
+    //поколение файла страницы, число задач в нём и CRC32C его содержимого
+    private record Segment(long generation, int records, int crc) {
+    }
+
+    private final File manifest;
+    private final int pageSize;
+    private long generation;
+    private final TreeMap<Integer, Segment> segments = new TreeMap<>();
+    //страницы, изменившиеся после последней записи
+    private final TreeSet<Integer> dirty = new TreeSet<>();
+    //файлы, которые больше не нужны после записи следующего манифеста
+    private List<File> garbage = new ArrayList<>();
+
+    private SegmentStore(File manifest, int pageSize) {
+        this.manifest = manifest;
+        this.pageSize = pageSize;
+    }
+
+    //новое пустое хранилище; сегменты прежнего хранилища на этом месте удаляются после первой записи
+    static SegmentStore create(File manifest, int pageSize) {
+        SegmentStore store = new SegmentStore(manifest, pageSize);
+        store.garbage.addAll(store.segmentFiles());
+        return store;
+    }
+
+    //хранилище по манифесту; сегменты, не попавшие в манифест из-за сбоя, сразу удаляются
+    static SegmentStore open(File manifest) {
+        List<String> lines;
+        try {
+            lines = Files.readAllLines(manifest.toPath(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new ManagerIOException("Ошибка чтения манифеста " + manifest, e);
+        }
+        if (lines.size() < 2 || !lines.get(0).startsWith(MAGIC + ",")
+                || !lines.get(lines.size() - 1).equals(CHECKSUM + "," + SnapshotIntegrity.hex(
+                        SnapshotIntegrity.crc(String.join("\n", lines.subList(0, lines.size() - 1)))))) {
+            throw SnapshotIntegrity.corrupted("Манифест сегментов " + manifest + " повреждён");
+        }
+        String[] header = lines.get(0).split(",");
+        SegmentStore store = new SegmentStore(manifest, Integer.parseInt(header[1]));
+        store.generation = Long.parseLong(header[2]);
+        for (String line : lines.subList(1, lines.size() - 1)) {
+            String[] values = line.split(",");
+            store.segments.put(Integer.parseInt(values[0]), new Segment(Long.parseLong(values[1]),
+                    Integer.parseInt(values[2]), (int) Long.parseLong(values[3], 16)));
+        }
+
+        List<File> referenced = new ArrayList<>();
+        store.segments.forEach((page, segment) -> referenced.add(store.file(page, segment.generation())));
+        for (File file : store.segmentFiles()) {
+            if (!referenced.contains(file)) {
+                file.delete();
+            }
+        }
+        return store;
+    }
+
+    //true, если файл - манифест сегментов, а не снимок
+    static boolean isManifest(File file) {
+        if (!file.isFile()) {
+            return false;
+        }
+        byte[] magic = MAGIC.getBytes(StandardCharsets.US_ASCII);
+        try (InputStream in = Files.newInputStream(file.toPath())) {
+            return Arrays.equals(in.readNBytes(magic.length), magic);
+        } catch (IOException e) {
+            throw new ManagerIOException("Ошибка чтения файла " + file, e);
+        }
+    }
+
+    //страницы, у которых есть файл, по возрастанию
+    List<Integer> pages() {
+        return new ArrayList<>(segments.keySet());
+    }
+
+    int records(int page) {
+        return segments.get(page).records();
+    }
+
+    //содержимое сегмента; если оно не совпадает с манифестом, в режиме восстановления всё равно отдаётся
+    //для разбора по записям, а пропавший файл даёт null
+    byte[] read(int page, boolean recover) {
+        Segment segment = segments.get(page);
+        File file = file(page, segment.generation());
+        byte[] bytes;
+        try {
+            bytes = Files.readAllBytes(file.toPath());
+        } catch (IOException e) {
+            if (recover) {
+                return null;
+            }
+            throw new ManagerIOException("Ошибка чтения сегмента " + file, e);
+        }
+        if (!recover && SnapshotIntegrity.crc(bytes, 0, bytes.length) != segment.crc()) {
+            throw SnapshotIntegrity.corrupted("Сегмент " + file + " не совпадает с манифестом");
+        }
+        return bytes;
+    }
+
+    //отмечает страницу задачи с этим id как изменённую
+    void touch(int id) {
+        dirty.add(page(id));
+    }
+
+    //снимает содержимое изменённых страниц и новый манифест; вызывается под монитором менеджера,
+    //а запись на диск выполняет возвращённое действие. null - писать нечего
+    Runnable capture(IntFunction<AbstractTask> tasks, SnapshotFormat format) {
+        if (dirty.isEmpty()) {
+            return null;
+        }
+        List<File> files = new ArrayList<>();
+        List<byte[]> contents = new ArrayList<>();
+        for (int page : dirty) {
+            List<Task> pageTasks = new ArrayList<>();
+            List<Epic> pageEpics = new ArrayList<>();
+            List<SubTask> pageSubTasks = new ArrayList<>();
+            long first = (long) page * pageSize + 1;
+            for (long id = first; id < first + pageSize; id++) {
+                AbstractTask task = tasks.apply((int) id);
+                if (task == null) {
+                    continue;
+                }
+                switch (task.getType()) {
+                    case TASK -> pageTasks.add((Task) task);
+                    case EPIC -> pageEpics.add((Epic) task);
+                    case SUBTASK -> pageSubTasks.add((SubTask) task);
+                }
+            }
+
+            Segment old = segments.remove(page);
+            if (old != null) {
+                garbage.add(file(page, old.generation()));
+            }
+            int records = pageTasks.size() + pageEpics.size() + pageSubTasks.size();
+            if (records == 0) {
+                continue;
+            }
+            byte[] content = FileBackedTaskManager.snapshot(format, pageTasks, pageEpics, pageSubTasks, List.of());
+            Segment segment = new Segment(generation++, records, SnapshotIntegrity.crc(content, 0, content.length));
+            segments.put(page, segment);
+            files.add(file(page, segment.generation()));
+            contents.add(content);
+        }
+        dirty.clear();
+
+        String text = manifestText();
+        List<File> obsolete = garbage;
+        garbage = new ArrayList<>();
+        return () -> {
+            for (int i = 0; i < files.size(); i++) {
+                FileBackedTaskManager.writeDurably(files.get(i), contents.get(i));
+            }
+            FileBackedTaskManager.writeDurably(manifest, text);
+            for (File file : obsolete) {
+                file.delete();
+            }
+        };
+    }
+
+    //удаляет все сегменты - после того как на месте манифеста записан обычный снимок
+    void deleteFiles() {
+        for (File file : segmentFiles()) {
+            file.delete();
+        }
+    }
+
+    private String manifestText() {
+        StringBuilder text = new StringBuilder(MAGIC).append(',').append(pageSize).append(',').append(generation);
+        for (Map.Entry<Integer, Segment> entry : segments.entrySet()) {
+            Segment segment = entry.getValue();
+            text.append('\n').append(entry.getKey()).append(',').append(segment.generation())
+                    .append(',').append(segment.records()).append(',').append(SnapshotIntegrity.hex(segment.crc()));
+        }
+        String body = text.toString();
+        return body + '\n' + CHECKSUM + ',' + SnapshotIntegrity.hex(SnapshotIntegrity.crc(body)) + '\n';
+    }
+
+    private int page(int id) {
+        return Math.floorDiv(id - 1, pageSize);
+    }
+
+    private File file(int page, long generation) {
+        return new File(manifest.getPath() + ".seg" + page + "." + generation);
+    }
+
+    //все файлы сегментов рядом с манифестом, в том числе не попавшие в него
+    private List<File> segmentFiles() {
+        File directory = manifest.getAbsoluteFile().getParentFile();
+        String prefix = manifest.getName() + ".seg";
+        File[] files = directory == null ? null : directory.listFiles((dir, name) -> name.startsWith(prefix));
+        List<File> result = new ArrayList<>();
+        if (files != null) {
+            for (File file : files) {
+                result.add(new File(manifest.getParentFile(), file.getName()));
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,80 @@
+package manager;
+
+import exceptions.ManagerIOException;
+import task.AbstractTask;
+import task.Epic;
+import task.Status;
+import task.SubTask;
+import task.Task;
+import task.Type;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+//переводит файл снимка FileBackedTaskManager из одного формата в другой;
+//журнал и файл истории не меняются - они не зависят от формата снимка.
+//В CSV нельзя перевести задачи со временем или с запятой и переводом строки в тексте - это ManagerIOException
+public class SnapshotConverter {
+    public static void convert(File source, File target, SnapshotFormat format) {
+        List<Task> tasks = new ArrayList<>();
+        Map<Integer, Epic> epics = new LinkedHashMap<>();
+        List<SubTask> subTasks = new ArrayList<>();
+
+        //эпик может стоять в снимке и после своей подзадачи, поэтому сначала подзадача получает
+        //заглушку с id эпика, а связывается после чтения всего файла
+        List<Integer> history = FileBackedTaskManager.readSnapshot(source, SnapshotConverter::placeholder, task -> {
+            switch (task.getType()) {
+                case TASK -> tasks.add((Task) task);
+                case EPIC -> epics.put(task.getId(), (Epic) task);
+                case SUBTASK -> subTasks.add((SubTask) task);
+            }
+        });
+        for (SubTask subTask : subTasks) {
+            if (subTask.getEpic() != null) {
+                subTask.setEpic(epics.get(subTask.getEpic().getId()));
+            }
+        }
+        if (format == SnapshotFormat.CSV) {
+            tasks.forEach(SnapshotConverter::checkCsv);
+            epics.values().forEach(SnapshotConverter::checkCsv);
+            subTasks.forEach(SnapshotConverter::checkCsv);
+        }
+        FileBackedTaskManager.writeDurably(target,
+                FileBackedTaskManager.snapshot(format, tasks, epics.values(), subTasks, history));
+    }
+
+    private static Epic placeholder(int id) {
+        Epic epic = new Epic(null, null, Status.NEW);
+        epic.setId(id);
+        return epic;
+    }
+
+    //в CSV-строке нет экранирования и столбцов времени: такую задачу нельзя записать без потерь,
+    //а запятая или перевод строки в тексте сделали бы файл нечитаемым
+    private static void checkCsv(AbstractTask task) {
+        if (!fitsCsv(task.getName()) || !fitsCsv(task.getDescription())) {
+            throw new ManagerIOException("Задачу с id: " + task.getId()
+                    + " нельзя записать в CSV: в названии или описании есть запятая или перевод строки");
+        }
+        if (task.getType() != Type.EPIC && (task.getStartTime() != null || task.getDuration() != null)) {
+            throw new ManagerIOException("Задачу с id: " + task.getId()
+                    + " нельзя записать в CSV: в нём не хранится время задачи");
+        }
+    }
+
+    private static boolean fitsCsv(String value) {
+        return value == null || value.indexOf(',') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0;
+    }
+
+    //java manager.SnapshotConverter <исходный файл> <новый файл> <CSV|BINARY>
+    public static void main(String[] args) {
+        if (args.length != 3) {
+            System.err.println("Использование: SnapshotConverter <исходный файл> <новый файл> <CSV|BINARY>");
+            System.exit(2);
+        }
+        convert(new File(args[0]), new File(args[1]), SnapshotFormat.valueOf(args[2]));
+    }
+}
@@ -0,0 +1,9 @@
+package manager;
+
+//формат файла снимка; при загрузке формат определяется по содержимому файла
+public enum SnapshotFormat {
+    //текст: заголовок, строка на задачу, пустая строка и история
+    CSV,
+    //двоичный формат BinarySnapshot: компактнее, быстрее разбирается и хранит время задач
+    BINARY
+}
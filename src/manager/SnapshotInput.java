@@ -0,0 +1,76 @@
+package manager;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+//последовательное чтение файла через канал окном фиксированного размера: читатели снимков разбирают
+//данные прямо из окна, а прочитанное место переиспользуется, поэтому файл целиком в памяти не лежит
+final class SnapshotInput {
+    static final int DEFAULT_CAPACITY = 1 << 20;
+
+    private final ReadableByteChannel channel;
+    //окно в режиме чтения: [position, limit) - ещё не разобранные байты
+    private ByteBuffer buffer;
+    private boolean eof;
+
+    SnapshotInput(ReadableByteChannel channel, int capacity) {
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocate(capacity).flip();
+    }
+
+    ByteBuffer buffer() {
+        return buffer;
+    }
+
+    //гарантирует, что в окне есть n непрочитанных байт; false, если файл кончился раньше.
+    //Окно сдвигается, поэтому абсолютные индексы в buffer() после вызова устаревают
+    boolean request(int n) throws IOException {
+        if (buffer.remaining() >= n) {
+            return true;
+        }
+        if (eof) {
+            return false;
+        }
+        if (buffer.capacity() < n) {
+            ByteBuffer larger = ByteBuffer.allocate(Math.max(n, buffer.capacity() * 2));
+            larger.put(buffer);
+            buffer = larger;
+        } else {
+            buffer.compact();
+        }
+        while (buffer.position() < n) {
+            if (channel.read(buffer) < 0) {
+                eof = true;
+                break;
+            }
+        }
+        buffer.flip();
+        return buffer.remaining() >= n;
+    }
+
+    byte get() throws IOException {
+        if (!request(1)) {
+            throw new BufferUnderflowException();
+        }
+        return buffer.get();
+    }
+
+    //индекс '\n', которым кончается текущая строка, или limit, если это последняя строка файла;
+    //подгружает файл, пока строка целиком не окажется в окне
+    int lineEnd() throws IOException {
+        int scanned = 0;
+        while (true) {
+            for (int i = buffer.position() + scanned; i < buffer.limit(); i++) {
+                if (buffer.get(i) == '\n') {
+                    return i;
+                }
+            }
+            scanned = buffer.remaining();
+            if (!request(scanned + 1)) {
+                return buffer.limit();
+            }
+        }
+    }
+}
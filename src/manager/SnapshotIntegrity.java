@@ -0,0 +1,66 @@
+package manager;
+
+import exceptions.SnapshotCorruptedException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+//контрольные суммы записей снимка (CRC32C) и итог чтения снимка
+final class SnapshotIntegrity {
+    //id истории, сколько записей задач встретилось и сколько из них пропущено как повреждённые
+    record ReadResult(List<Integer> history, int records, int corrupt) {
+    }
+
+    private SnapshotIntegrity() {
+    }
+
+    static int crc(byte[] bytes, int offset, int length) {
+        CRC32C crc = new CRC32C();
+        crc.update(bytes, offset, length);
+        return (int) crc.getValue();
+    }
+
+    static int crc(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        return crc(bytes, 0, bytes.length);
+    }
+
+    //сумма строки истории CSV учитывает и число записей, поэтому обрыв файла на границе строки тоже заметен
+    static int historyCrc(byte[] bytes, int offset, int length, int records) {
+        CRC32C crc = new CRC32C();
+        crc.update(bytes, offset, length);
+        crc.update(new byte[]{(byte) (records >>> 24), (byte) (records >>> 16), (byte) (records >>> 8), (byte) records});
+        return (int) crc.getValue();
+    }
+
+    static int historyCrc(String value, int records) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        return historyCrc(bytes, 0, bytes.length, records);
+    }
+
+    static String hex(int crc) {
+        String hex = Integer.toHexString(crc);
+        return "00000000".substring(hex.length()) + hex;
+    }
+
+    //сумма из 8 шестнадцатеричных цифр или -1L, если это не сумма
+    static long parseHex(byte[] bytes, int offset, int length) {
+        if (length != 8) {
+            return -1L;
+        }
+        long value = 0;
+        for (int i = offset; i < offset + length; i++) {
+            int digit = Character.digit(bytes[i], 16);
+            if (digit < 0) {
+                return -1L;
+            }
+            value = (value << 4) | digit;
+        }
+        return value;
+    }
+
+    static SnapshotCorruptedException corrupted(String message) {
+        return new SnapshotCorruptedException(message + " (для загрузки уцелевших записей включите StorageOptions.setRecoveryMode)");
+    }
+}
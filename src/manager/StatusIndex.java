@@ -0,0 +1,97 @@
+package manager;
+
+import task.AbstractTask;
+import task.Status;
+import task.Type;
+import util.IntIntMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+//задачи по типу и статусу: у каждой группы плотный массив, а для id запомнены группа и позиция в нём,
+//поэтому добавление, перенос и удаление - O(1), число задач группы - O(1), выдача группы - O(k).
+//Группа запоминается отдельно: статус могли поменять на месте, и по новому статусу старую группу не найти
+class StatusIndex {
+    private static final Type[] TYPES = Type.values();
+    private static final Status[] STATUSES = Status.values();
+    private static final int GROUPS = TYPES.length * STATUSES.length;
+
+    private final AbstractTask[][] groups = new AbstractTask[GROUPS][];
+    private final int[] sizes = new int[GROUPS];
+    //id -> позиция * GROUPS + группа
+    private final IntIntMap slots = new IntIntMap(-1);
+
+    StatusIndex() {
+        for (int i = 0; i < GROUPS; i++) {
+            groups[i] = new AbstractTask[8];
+        }
+    }
+
+    //добавляет задачу или переносит её в группу нового статуса
+    void put(AbstractTask task) {
+        int id = task.getId();
+        int target = group(task.getType(), task.getStatus());
+        int slot = slots.get(id);
+        if (slot >= 0 && slot % GROUPS == target) {
+            groups[target][slot / GROUPS] = task;
+            return;
+        }
+        if (slot >= 0) {
+            removeAt(slot);
+        }
+        AbstractTask[] members = groups[target];
+        if (sizes[target] == members.length) {
+            members = groups[target] = Arrays.copyOf(members, members.length * 2);
+        }
+        members[sizes[target]] = task;
+        slots.put(id, sizes[target]++ * GROUPS + target);
+    }
+
+    void remove(int id) {
+        int slot = slots.remove(id);
+        if (slot >= 0) {
+            removeAt(slot);
+        }
+    }
+
+    //на место удалённой задачи встаёт последняя задача группы; запись удалённого id убирает вызывающий
+    private void removeAt(int slot) {
+        int group = slot % GROUPS;
+        int position = slot / GROUPS;
+        AbstractTask[] members = groups[group];
+        int last = --sizes[group];
+        if (position != last) {
+            members[position] = members[last];
+            slots.put(members[position].getId(), position * GROUPS + group);
+        }
+        members[last] = null;
+    }
+
+    int count(Type type, Status status) {
+        return sizes[group(type, status)];
+    }
+
+    int count(Type type) {
+        int count = 0;
+        for (Status status : STATUSES) {
+            count += count(type, status);
+        }
+        return count;
+    }
+
+    //копия группы
+    @SuppressWarnings("unchecked")
+    <T extends AbstractTask> List<T> members(Type type, Status status) {
+        int group = group(type, status);
+        List<T> result = new ArrayList<>(sizes[group]);
+        for (int i = 0; i < sizes[group]; i++) {
+            result.add((T) groups[group][i]);
+        }
+        return result;
+    }
+
+    private static int group(Type type, Status status) {
+        return type.ordinal() * STATUSES.length + status.ordinal();
+    }
+}
@@ -0,0 +1,103 @@
+package manager;
+
+//настройки хранения для FileBackedTaskManager
+public class StorageOptions {
+    private PersistenceMode mode = PersistenceMode.SNAPSHOT;
+    private SnapshotFormat format = SnapshotFormat.CSV;
+    //размер журнала в байтах, после которого он сворачивается в новый снимок
+    private long compactionThreshold = 1024 * 1024;
+    private DurabilityPolicy durability = DurabilityPolicy.perOperation();
+    //как часто фоновый поток сбрасывает изменившуюся историю просмотров
+    private long historyFlushMillis = 1000;
+    //сколько потоков разбирают снимок и пересчитывают эпики при загрузке
+    private int restoreParallelism = Runtime.getRuntime().availableProcessors();
+    //в режиме SEGMENTED: сколько подряд идущих id хранится в одном сегменте
+    private int segmentSize = 1024;
+    //загружать уцелевшие записи повреждённого или оборванного снимка вместо ошибки
+    private boolean recoveryMode;
+
+    public PersistenceMode getMode() {
+        return mode;
+    }
+
+    public void setMode(PersistenceMode mode) {
+        if (mode == null) {
+            throw new NullPointerException("mode == null!!");
+        }
+        this.mode = mode;
+    }
+
+    public SnapshotFormat getFormat() {
+        return format;
+    }
+
+    public void setFormat(SnapshotFormat format) {
+        if (format == null) {
+            throw new NullPointerException("format == null!!");
+        }
+        this.format = format;
+    }
+
+    public long getCompactionThreshold() {
+        return compactionThreshold;
+    }
+
+    public void setCompactionThreshold(long compactionThreshold) {
+        if (compactionThreshold <= 0) {
+            throw new IllegalArgumentException("Порог сжатия журнала должен быть больше нуля");
+        }
+        this.compactionThreshold = compactionThreshold;
+    }
+
+    public DurabilityPolicy getDurability() {
+        return durability;
+    }
+
+    public void setDurability(DurabilityPolicy durability) {
+        if (durability == null) {
+            throw new NullPointerException("durability == null!!");
+        }
+        this.durability = durability;
+    }
+
+    public long getHistoryFlushMillis() {
+        return historyFlushMillis;
+    }
+
+    public void setHistoryFlushMillis(long historyFlushMillis) {
+        if (historyFlushMillis <= 0) {
+            throw new IllegalArgumentException("Период записи истории должен быть больше нуля");
+        }
+        this.historyFlushMillis = historyFlushMillis;
+    }
+
+    public int getRestoreParallelism() {
+        return restoreParallelism;
+    }
+
+    public void setRestoreParallelism(int restoreParallelism) {
+        if (restoreParallelism <= 0) {
+            throw new IllegalArgumentException("Число потоков загрузки должно быть больше нуля");
+        }
+        this.restoreParallelism = restoreParallelism;
+    }
+
+    public boolean isRecoveryMode() {
+        return recoveryMode;
+    }
+
+    public void setRecoveryMode(boolean recoveryMode) {
+        this.recoveryMode = recoveryMode;
+    }
+
+    public int getSegmentSize() {
+        return segmentSize;
+    }
+
+    public void setSegmentSize(int segmentSize) {
+        if (segmentSize <= 0) {
+            throw new IllegalArgumentException("Размер сегмента должен быть больше нуля");
+        }
+        this.segmentSize = segmentSize;
+    }
+}
@@ -0,0 +1,172 @@
+package manager;
+
+import exceptions.ManagerIOException;
+import task.AbstractTask;
+import task.Epic;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.IntFunction;
+
+//журнал изменений: каждая мутация менеджера дописывается в конец файла одной строкой
+//T,<задача> - создание/обновление: задача в кодировке BinarySnapshot, в Base64, поэтому сохраняются время
+//и любые символы в названии; D,<id> - удаление, C,<TYPE> - очистка типа.
+//Только старыми версиями пишутся P,<CSV-строка задачи> (без времени и запятых в тексте)
+//и H,<id,...> - история (теперь история хранится в HistoryStore)
+class TaskJournal implements Closeable {
+    static final String TASK = "T";
+    static final String PUT = "P";
+    static final String DELETE = "D";
+    static final String CLEAR = "C";
+    static final String HISTORY = "H";
+
+    private final File file;
+    //журнал, который в данный момент сворачивается в снимок
+    private final File rotated;
+    private FileOutputStream out;
+    private BufferedWriter writer;
+    private long size;
+
+    TaskJournal(File snapshot) {
+        this.file = journalFile(snapshot);
+        this.rotated = rotatedFile(snapshot);
+        this.size = file.length();
+        open();
+    }
+
+    static File journalFile(File snapshot) {
+        return new File(snapshot.getPath() + ".journal");
+    }
+
+    static File rotatedFile(File snapshot) {
+        return new File(snapshot.getPath() + ".journal.old");
+    }
+
+    //записи журнала в порядке применения: сначала недосвёрнутый журнал, затем текущий
+    static List<String> readRecords(File snapshot) {
+        List<String> records = new ArrayList<>();
+        for (File f : List.of(rotatedFile(snapshot), journalFile(snapshot))) {
+            if (!f.exists()) {
+                continue;
+            }
+            try {
+                records.addAll(Files.readAllLines(f.toPath()));
+            } catch (IOException e) {
+                throw new ManagerIOException("Ошибка чтения журнала " + f, e);
+            }
+        }
+        return records;
+    }
+
+    static boolean exists(File snapshot) {
+        return journalFile(snapshot).exists() || rotatedFile(snapshot).exists();
+    }
+
+    static void deleteFiles(File snapshot) {
+        journalFile(snapshot).delete();
+        rotatedFile(snapshot).delete();
+    }
+
+    static String record(String type, String payload) {
+        return type + "," + payload;
+    }
+
+    static String task(AbstractTask task) {
+        return record(TASK, Base64.getEncoder().encodeToString(BinarySnapshot.encode(task)));
+    }
+
+    static AbstractTask readTask(String payload, IntFunction<Epic> epics) {
+        byte[] bytes;
+        try {
+            bytes = Base64.getDecoder().decode(payload);
+        } catch (IllegalArgumentException e) {
+            throw new ManagerIOException("Повреждённая запись задачи в журнале", e);
+        }
+        return BinarySnapshot.decode(bytes, epics);
+    }
+
+    //дописывает запись в буфер; на диск она попадёт после flush() или sync()
+    void append(String record) {
+        try {
+            writer.write(record);
+            writer.newLine();
+        } catch (IOException e) {
+            throw new ManagerIOException("Ошибка записи в журнал", e);
+        }
+        size += record.getBytes(StandardCharsets.UTF_8).length + 1;
+    }
+
+    void flush() {
+        try {
+            writer.flush();
+        } catch (IOException e) {
+            throw new ManagerIOException("Ошибка записи в журнал", e);
+        }
+    }
+
+    //сбрасывает буфер и дожидается записи на устройство
+    void sync() {
+        try {
+            writer.flush();
+            out.getFD().sync();
+        } catch (IOException e) {
+            throw new ManagerIOException("Ошибка записи в журнал", e);
+        }
+    }
+
+    long size() {
+        return size;
+    }
+
+    //откладывает текущий журнал для сжатия и начинает новый;
+    //если прошлое сжатие не удалось, записи дописываются к уже отложенному журналу
+    void rotate() {
+        close();
+        try {
+            if (rotated.exists()) {
+                Files.write(rotated.toPath(), Files.readAllBytes(file.toPath()), StandardOpenOption.APPEND);
+                Files.delete(file.toPath());
+            } else {
+                Files.move(file.toPath(), rotated.toPath());
+            }
+        } catch (IOException e) {
+            throw new ManagerIOException("Не удалось отложить журнал " + file, e);
+        } finally {
+            open();
+        }
+        size = 0;
+    }
+
+    //вызывается после того, как снимок со всеми записями отложенного журнала записан
+    void compacted() {
+        rotated.delete();
+    }
+
+    private void open() {
+        try {
+            out = new FileOutputStream(file, true);
+            writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new ManagerIOException("Ошибка открытия журнала " + file, e);
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            writer.close();
+        } catch (IOException e) {
+            throw new ManagerIOException("Ошибка закрытия журнала", e);
+        }
+    }
+}
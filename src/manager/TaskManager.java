@@ -1,12 +1,19 @@
 package manager;
 
+import events.Subscription;
+import events.TaskEvent;
 import task.AbstractTask;
 import task.Epic;
+import task.Status;
 import task.SubTask;
 import task.Task;
+import task.Type;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Queue;
+import java.util.function.Consumer;
 
 public interface TaskManager {
     //получение списка задач
@@ -14,6 +21,34 @@ public interface TaskManager {
     List<Task> getTasks();
     List<Epic> getEpics();
 
+    //живые представления только для чтения, без копирования (для потоков - viewTasks().stream())
+    Collection<SubTask> viewSubTasks();
+    Collection<Task> viewTasks();
+    Collection<Epic> viewEpics();
+    Collection<SubTask> viewSubTasksInEpic(Epic epic);
+
+    //постраничное получение: не больше limit задач, начиная с позиции offset
+    List<SubTask> getSubTasks(int offset, int limit);
+    List<Task> getTasks(int offset, int limit);
+    List<Epic> getEpics(int offset, int limit);
+
+    //выборка по статусу из вторичного индекса: копия за O(k), где k - число найденных задач
+    List<SubTask> getSubTasks(Status status);
+    List<Task> getTasks(Status status);
+    List<Epic> getEpics(Status status);
+    //число задач типа и число задач типа с данным статусом за O(1)
+    int count(Type type);
+    int count(Type type, Status status);
+
+    //полнотекстовый поиск по названию и описанию: слова через пробел должны встретиться все,
+    //группы слов через OR - любая из групп, слово со * на конце ищется как префикс.
+    //Не больше limit задач любого типа по убыванию релевантности; в историю не попадают
+    List<AbstractTask> search(String query, int limit);
+
+    //события о создании, обновлении, удалении задач и о смене статуса эпика; доставляются в отдельном потоке
+    //пачками не больше maxBatch, изменение не ждёт подписчика. Подписка закрывается через close()
+    Subscription subscribe(Consumer<List<TaskEvent>> listener, int maxBatch);
+
     //удаление всех задач в списке
     public void deleteAllSubTasks();
     public void deleteAllTasks();
@@ -23,8 +58,12 @@ public interface TaskManager {
     public SubTask getIdSubtask(int id);
     public Task getIdTask(int id);
     public Epic getIdEpic(int id);
+    //задача, подзадача или эпик - тип определяется по id, просмотр попадает в историю
+    public AbstractTask getById(int id);
+    //задача любого типа или null; просмотр в историю не попадает
+    public AbstractTask findById(int id);
 
-    //создание задачи --- СДЕЛАНО проверка на null
+    //создание задачи --- СДЕЛАНО проверка на null, пересекающиеся по времени задачи отклоняются (TaskTimeOverlapException)
     public boolean createSubTask(SubTask subTask);
     public boolean createTask(Task task);
     public boolean createEpic(Epic epic);
@@ -39,9 +78,31 @@ public interface TaskManager {
     public SubTask deleteSubTaskById(int id);
     public Task deleteTaskById(int id);
     public Epic deleteEpicById(int id);
+    public AbstractTask deleteById(int id);
+
+    //пакетные изменения: статус каждого затронутого эпика пересчитывается один раз в конце пакета,
+    //а FileBackedTaskManager сохраняет весь пакет одной записью.
+    //Создание по порядку, подзадача может ссылаться на эпик, созданный раньше в том же пакете;
+    //если задача пакета не проходит проверку, уже созданные задачи пакета удаляются
+    public void createAll(Collection<? extends AbstractTask> tasks);
+    //если задачи пакета нет или она не проходит проверку, уже обновлённые задачи возвращаются к прежним
+    public void updateAll(Collection<? extends AbstractTask> tasks);
+    //все id проверяются до удаления; подзадачи, удалённые вместе со своим эпиком раньше в пакете, пропускаются
+    public List<AbstractTask> deleteAllById(Collection<Integer> ids);
+    //выполняет work над этим менеджером одним пакетом; это не транзакция - при исключении сделанные изменения остаются
+    public void batch(Consumer<TaskManager> work);
 
     //все подзадачи определённого эпика --- СДЕЛАНО возвращает подзадачи эпика
     public List<SubTask> returnSubTasksInEpic (Epic epic);
 
     public List<AbstractTask> getHistory ();
+    //обход истории от старых просмотров к новым без копирования списка
+    public void forEachInHistory(Consumer<? super AbstractTask> action);
+
+    //задачи и подзадачи, отсортированные по времени начала; задачи без времени не входят
+    public List<AbstractTask> getPrioritizedTasks();
+    //не больше limit задач из getPrioritizedTasks, начинающихся не раньше from
+    public List<AbstractTask> getPrioritizedTasks(LocalDateTime from, int limit);
+    //задачи и подзадачи, время выполнения которых пересекается с [from, to)
+    public List<AbstractTask> getOverlappingTasks(LocalDateTime from, LocalDateTime to);
 }
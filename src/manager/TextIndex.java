@@ -0,0 +1,397 @@
+package manager;
+
+import task.AbstractTask;
+import util.IntObjectMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+//обратный индекс по словам названия и описания: слово -> список вхождений, отсортированный по id.
+//Вхождение - один long: id задачи в старших 32 битах, вес слова в задаче в младших.
+//Словарь упорядочен, поэтому поиск по префиксу - это обход диапазона слов.
+//Изменение задачи трогает только слова, которые в ней появились, пропали или сменили вес.
+//Удаление не сдвигает список, а оставляет метку (вес 0); список сжимается, когда меток становится больше
+//половины, поэтому удаление - O(log n) в среднем. Новое слово у старой задачи вставляется в середину списка
+//со сдвигом хвоста - O(n) для частого слова; новые задачи получают растущие id и дописываются в конец
+class TextIndex {
+    //слово из названия весит больше, чем из описания
+    private static final int NAME_WEIGHT = 3;
+    private static final Matches EMPTY = new Matches(new int[0], new int[0], 0);
+
+    private final TreeMap<String, Postings> terms = new TreeMap<>();
+    //id -> текст и вхождения задачи, чтобы изменить или убрать её без повторного разбора старого текста
+    private final IntObjectMap<Document> documents = new IntObjectMap<>();
+
+    //добавляет задачу или переиндексирует её после изменения
+    void put(AbstractTask task) {
+        int id = task.getId();
+        Document old = documents.get(id);
+        if (old != null && Objects.equals(old.name, task.getName())
+                && Objects.equals(old.description, task.getDescription())) {
+            return;
+        }
+        Map<String, Integer> weights = weights(task);
+        //слова старого текста: пропавшие убираются, у оставшихся запоминается прежний вес
+        Map<String, Integer> previous = new HashMap<>();
+        if (old != null) {
+            for (int i = 0; i < old.postings.length; i++) {
+                if (weights.containsKey(old.postings[i].term)) {
+                    previous.put(old.postings[i].term, old.weights[i]);
+                } else {
+                    delete(old.postings[i], id);
+                }
+            }
+        }
+        Document document = new Document(task.getName(), task.getDescription(), weights.size());
+        int i = 0;
+        for (Map.Entry<String, Integer> entry : weights.entrySet()) {
+            Postings list = postings(entry.getKey());
+            //вес не изменился - список слова не трогается
+            if (!entry.getValue().equals(previous.get(entry.getKey()))) {
+                list.insert(id, entry.getValue());
+            }
+            document.add(i++, list, entry.getValue());
+        }
+        documents.put(id, document);
+    }
+
+    void remove(int id) {
+        Document document = documents.remove(id);
+        if (document == null) {
+            return;
+        }
+        for (Postings list : document.postings) {
+            delete(list, id);
+        }
+    }
+
+    private void delete(Postings list, int id) {
+        list.delete(id);
+        if (list.live() == 0) {
+            terms.remove(list.term);
+        }
+    }
+
+    //индекс заново по всем задачам: вхождения дописываются в конец без поиска места,
+    //а каждый список сортируется один раз в конце
+    void build(Collection<? extends AbstractTask> tasks) {
+        terms.clear();
+        documents.clear();
+        for (AbstractTask task : tasks) {
+            Map<String, Integer> weights = weights(task);
+            Document document = new Document(task.getName(), task.getDescription(), weights.size());
+            int i = 0;
+            for (Map.Entry<String, Integer> entry : weights.entrySet()) {
+                Postings list = postings(entry.getKey());
+                list.append(task.getId(), entry.getValue());
+                document.add(i++, list, entry.getValue());
+            }
+            documents.put(task.getId(), document);
+        }
+        for (Postings list : terms.values()) {
+            list.sort();
+        }
+    }
+
+    //слова через пробел должны встретиться все (AND), группы слов через OR - любая из групп,
+    //слово со * на конце ищется как префикс. Возвращает не больше limit id по убыванию релевантности
+    int[] search(String query, int limit) {
+        Matches found = EMPTY;
+        Matches group = null;
+        for (String word : query.trim().split("\\s+")) {
+            if (word.equals("OR")) {
+                found = union(found, group);
+                group = null;
+                continue;
+            }
+            boolean prefix = word.endsWith("*");
+            List<String> parts = tokens(prefix ? word.substring(0, word.length() - 1) : word);
+            for (int i = 0; i < parts.size(); i++) {
+                Matches matches = prefix && i == parts.size() - 1 ? prefix(parts.get(i)) : term(parts.get(i));
+                group = group == null ? matches : intersect(group, matches);
+            }
+        }
+        return top(union(found, group), limit);
+    }
+
+    //слова текста в нижнем регистре; словом считается непрерывная последовательность букв и цифр
+    static List<String> tokens(String text) {
+        List<String> result = new ArrayList<>();
+        if (text == null) {
+            return result;
+        }
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean letter = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (letter && start < 0) {
+                start = i;
+            } else if (!letter && start >= 0) {
+                result.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        return result;
+    }
+
+    private static Map<String, Integer> weights(AbstractTask task) {
+        Map<String, Integer> weights = new HashMap<>();
+        for (String token : tokens(task.getName())) {
+            weights.merge(token, NAME_WEIGHT, Integer::sum);
+        }
+        for (String token : tokens(task.getDescription())) {
+            weights.merge(token, 1, Integer::sum);
+        }
+        return weights;
+    }
+
+    private Postings postings(String term) {
+        Postings list = terms.get(term);
+        if (list == null) {
+            list = new Postings(term);
+            terms.put(term, list);
+        }
+        return list;
+    }
+
+    //задачи со словом; вклад слова - его вес в задаче, умноженный на редкость слова (idf)
+    private Matches term(String term) {
+        Postings list = terms.get(term);
+        if (list == null) {
+            return EMPTY;
+        }
+        int idf = Math.max(1, (int) Math.round(100 * Math.log(1 + (double) documents.size() / list.live())));
+        int[] ids = new int[list.live()];
+        int[] scores = new int[ids.length];
+        int size = 0;
+        for (int i = 0; i < list.size; i++) {
+            int weight = Postings.weight(list.entries[i]);
+            if (weight != 0) {
+                ids[size] = Postings.id(list.entries[i]);
+                scores[size++] = weight * idf;
+            }
+        }
+        return new Matches(ids, scores, size);
+    }
+
+    //объединение всех слов с префиксом: списки сливаются попарно, как в сортировке слиянием
+    private Matches prefix(String prefix) {
+        List<Matches> parts = new ArrayList<>();
+        for (String term : terms.subMap(prefix, prefix + Character.MAX_VALUE).keySet()) {
+            parts.add(term(term));
+        }
+        if (parts.isEmpty()) {
+            return EMPTY;
+        }
+        while (parts.size() > 1) {
+            List<Matches> merged = new ArrayList<>((parts.size() + 1) / 2);
+            for (int i = 0; i < parts.size(); i += 2) {
+                merged.add(i + 1 < parts.size() ? union(parts.get(i), parts.get(i + 1)) : parts.get(i));
+            }
+            parts = merged;
+        }
+        return parts.get(0);
+    }
+
+    private static Matches intersect(Matches a, Matches b) {
+        int[] ids = new int[Math.min(a.size, b.size)];
+        int[] scores = new int[ids.length];
+        int size = 0;
+        for (int i = 0, j = 0; i < a.size && j < b.size; ) {
+            if (a.ids[i] < b.ids[j]) {
+                i++;
+            } else if (a.ids[i] > b.ids[j]) {
+                j++;
+            } else {
+                ids[size] = a.ids[i];
+                scores[size++] = a.scores[i++] + b.scores[j++];
+            }
+        }
+        return new Matches(ids, scores, size);
+    }
+
+    //b может быть null - пустая группа запроса
+    private static Matches union(Matches a, Matches b) {
+        if (b == null || b.size == 0) {
+            return a;
+        } else if (a.size == 0) {
+            return b;
+        }
+        int[] ids = new int[a.size + b.size];
+        int[] scores = new int[ids.length];
+        int size = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.size || j < b.size) {
+            if (j == b.size || (i < a.size && a.ids[i] < b.ids[j])) {
+                ids[size] = a.ids[i];
+                scores[size++] = a.scores[i++];
+            } else if (i == a.size || a.ids[i] > b.ids[j]) {
+                ids[size] = b.ids[j];
+                scores[size++] = b.scores[j++];
+            } else {
+                ids[size] = a.ids[i];
+                scores[size++] = a.scores[i++] + b.scores[j++];
+            }
+        }
+        return new Matches(ids, scores, size);
+    }
+
+    //по убыванию веса, при равном весе - по возрастанию id; ключ сортировки упакован в long
+    private static int[] top(Matches matches, int limit) {
+        long[] order = new long[matches.size];
+        for (int i = 0; i < matches.size; i++) {
+            order[i] = ((long) (Integer.MAX_VALUE - matches.scores[i]) << 32) | (matches.ids[i] & 0xFFFFFFFFL);
+        }
+        Arrays.sort(order);
+        int[] result = new int[Math.min(limit, order.length)];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = (int) order[i];
+        }
+        return result;
+    }
+
+    //найденные id по возрастанию и их вес
+    private record Matches(int[] ids, int[] scores, int size) {
+    }
+
+    //текст задачи, по которому она проиндексирована, и её слова с весами
+    private static final class Document {
+        private final String name;
+        private final String description;
+        private Postings[] postings;
+        private int[] weights;
+
+        Document(String name, String description, int terms) {
+            this.name = name;
+            this.description = description;
+            postings = new Postings[terms];
+            weights = new int[terms];
+        }
+
+        void add(int i, Postings list, int weight) {
+            postings[i] = list;
+            weights[i] = weight;
+        }
+    }
+
+    //вхождения одного слова, упорядоченные по id; после build могут быть временно не упорядочены.
+    //Вхождение с весом 0 - метка удалённой задачи
+    private static final class Postings {
+        private final String term;
+        private long[] entries = new long[2];
+        private int size;
+        private int deleted;
+        private boolean sorted = true;
+
+        Postings(String term) {
+            this.term = term;
+        }
+
+        static long entry(int id, int weight) {
+            return ((long) id << 32) | (weight & 0xFFFFFFFFL);
+        }
+
+        static int id(long entry) {
+            return (int) (entry >> 32);
+        }
+
+        static int weight(long entry) {
+            return (int) entry;
+        }
+
+        void append(int id, int weight) {
+            ensure();
+            if (size > 0 && id(entries[size - 1]) >= id) {
+                sorted = false;
+            }
+            entries[size++] = entry(id, weight);
+        }
+
+        //новые задачи получают растущие id, поэтому обычно это дописывание в конец;
+        //вхождение той же задачи (и её метка) заменяется на месте
+        void insert(int id, int weight) {
+            if (size == 0 || id(entries[size - 1]) < id) {
+                append(id, weight);
+                return;
+            }
+            int position = find(id);
+            if (position >= 0) {
+                if (weight(entries[position]) == 0) {
+                    deleted--;
+                }
+                entries[position] = entry(id, weight);
+                return;
+            }
+            position = -position - 1;
+            ensure();
+            System.arraycopy(entries, position, entries, position + 1, size - position);
+            entries[position] = entry(id, weight);
+            size++;
+        }
+
+        //оставляет метку вместо сдвига; сжатие раз в size/2 удалений даёт O(1) в среднем на удаление
+        void delete(int id) {
+            int position = find(id);
+            if (position < 0 || weight(entries[position]) == 0) {
+                return;
+            }
+            entries[position] = entry(id, 0);
+            if (++deleted > size / 2) {
+                compact();
+            }
+        }
+
+        //число вхождений без меток
+        int live() {
+            return size - deleted;
+        }
+
+        private void compact() {
+            int live = 0;
+            for (int i = 0; i < size; i++) {
+                if (weight(entries[i]) != 0) {
+                    entries[live++] = entries[i];
+                }
+            }
+            size = live;
+            deleted = 0;
+        }
+
+        void sort() {
+            if (!sorted) {
+                Arrays.sort(entries, 0, size);
+                sorted = true;
+            }
+        }
+
+        private int find(int id) {
+            int low = 0;
+            int high = size - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                int current = id(entries[middle]);
+                if (current < id) {
+                    low = middle + 1;
+                } else if (current > id) {
+                    high = middle - 1;
+                } else {
+                    return middle;
+                }
+            }
+            return -(low + 1);
+        }
+
+        private void ensure() {
+            if (size == entries.length) {
+                entries = Arrays.copyOf(entries, entries.length * 2);
+            }
+        }
+    }
+}
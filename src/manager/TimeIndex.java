@@ -0,0 +1,86 @@
+package manager;
+
+import task.AbstractTask;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+//задачи и подзадачи со временем начала, упорядоченные по началу, затем по id;
+//задачи без времени начала в индекс не попадают
+class TimeIndex {
+    //ключ запоминается отдельно: задачу могли перенести на месте, и по её новому времени старый ключ не найти
+    record Key(LocalDateTime start, int id) implements Comparable<Key> {
+        @Override
+        public int compareTo(Key other) {
+            int byStart = start.compareTo(other.start);
+            return byStart != 0 ? byStart : Integer.compare(id, other.id);
+        }
+    }
+
+    private final NavigableMap<Key, AbstractTask> order;
+    private final Map<Integer, Key> keys;
+
+    TimeIndex() {
+        this(new TreeMap<>(), new HashMap<>());
+    }
+
+    private TimeIndex(NavigableMap<Key, AbstractTask> order, Map<Integer, Key> keys) {
+        this.order = order;
+        this.keys = keys;
+    }
+
+    //вариант для ConcurrentTaskManager: изменения одной задачи атомарны, чтение не блокируется
+    static TimeIndex concurrent() {
+        return new TimeIndex(new ConcurrentSkipListMap<>(), new ConcurrentHashMap<>());
+    }
+
+    //добавляет задачу или переставляет её после изменения времени
+    void put(AbstractTask task) {
+        keys.compute(task.getId(), (id, old) -> {
+            if (old != null) {
+                order.remove(old);
+            }
+            if (task.getStartTime() == null) {
+                return null;
+            }
+            Key key = new Key(task.getStartTime(), id);
+            order.put(key, task);
+            return key;
+        });
+    }
+
+    void remove(int id) {
+        keys.computeIfPresent(id, (key, old) -> {
+            order.remove(old);
+            return null;
+        });
+    }
+
+    void clear() {
+        order.clear();
+        keys.clear();
+    }
+
+    List<AbstractTask> all() {
+        return new ArrayList<>(order.values());
+    }
+
+    //не больше limit задач, начинающихся не раньше from
+    List<AbstractTask> from(LocalDateTime from, int limit) {
+        List<AbstractTask> result = new ArrayList<>(Math.min(limit, order.size()));
+        for (AbstractTask task : order.tailMap(new Key(from, Integer.MIN_VALUE), true).values()) {
+            if (result.size() >= limit) {
+                break;
+            }
+            result.add(task);
+        }
+        return result;
+    }
+}
@@ -57,7 +57,11 @@ public abstract class AbstractTask {
         this.status = status;
     }
 
+    //null, если у задачи не задано время начала или длительность
     public LocalDateTime getEndTime() {
+        if (startTime == null || duration == null) {
+            return null;
+        }
         return startTime.plus(duration);
     }
 
@@ -76,4 +80,6 @@ public abstract class AbstractTask {
     public void setStartTime(LocalDateTime startTime) {
         this.startTime = startTime;
     }
+
+    public abstract Type getType();
 }
@@ -1,32 +1,133 @@
 package task;
 
+import util.IntObjectMap;
+
 import java.time.Duration;
 import java.time.LocalDateTime;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 
 public class Epic extends AbstractTask{
-    private Map<Integer, SubTask> subTasks = new HashMap<>();
-
-    private LocalDateTime endTime;
+    private final IntObjectMap<SubTask> subTasks = new IntObjectMap<>();
+    //сколько подзадач в каждом статусе, индекс - Status.ordinal()
+    private final int[] statusCounts = new int[Status.values().length];
+    //мультимножества начал и концов подзадач (время -> сколько подзадач) и суммарная длительность
+    private final TreeMap<LocalDateTime, Integer> starts = new TreeMap<>();
+    private final TreeMap<LocalDateTime, Integer> ends = new TreeMap<>();
+    private Duration totalDuration = Duration.ZERO;
 
     public Epic(String name, String description, Status status) {
         super(name, description, status);
     }
 
+    //только для чтения: подзадачи меняются через addSubTask/removeSubTask, чтобы счётчики не разошлись
     public Map<Integer, SubTask> getSubTasks() {
-        return subTasks;
+        return Collections.unmodifiableMap(subTasks);
     }
 
+    //заменяет все подзадачи: счётчики статусов и время пересчитываются заново. Копия берётся до очистки,
+    //потому что передать могут и getSubTasks() этого же эпика
     public void setSubTasks(Map<Integer, SubTask> subTasks) {
-        this.subTasks = subTasks;
+        List<SubTask> replacement = new ArrayList<>(subTasks.values());
+        clearSubTasks();
+        for (SubTask subTask : replacement) {
+            addSubTask(subTask);
+        }
     }
 
     public void setTask(SubTask subTask) {
         if(subTask == null) {
             throw new NullPointerException("SubTask == null!!!");
         }
-        subTasks.put(subTask.getId(), subTask);
+        addSubTask(subTask);
+    }
+
+    //добавляет или заменяет подзадачу; счётчики статусов меняются за O(1), время - за O(log n)
+    public void addSubTask(SubTask subTask) {
+        SubTask previous = subTasks.put(subTask.getId(), subTask);
+        if (previous != null) {
+            uncount(previous);
+        }
+        count(subTask);
+    }
+
+    public SubTask removeSubTask(int id) {
+        SubTask removed = subTasks.remove(id);
+        if (removed != null) {
+            uncount(removed);
+        }
+        return removed;
+    }
+
+    public void clearSubTasks() {
+        for (SubTask subTask : subTasks.values()) {
+            subTask.countedStatus = null;
+        }
+        subTasks.clear();
+        Arrays.fill(statusCounts, 0);
+        starts.clear();
+        ends.clear();
+        totalDuration = Duration.ZERO;
+    }
+
+    //запоминает в подзадаче, с какими значениями она учтена, чтобы потом вычесть именно их
+    private void count(SubTask subTask) {
+        subTask.countedStatus = subTask.getStatus();
+        subTask.countedStart = subTask.getStartTime();
+        subTask.countedEnd = subTask.getEndTime();
+        subTask.countedDuration = subTask.getDuration();
+
+        statusCounts[subTask.countedStatus.ordinal()]++;
+        if (subTask.countedStart != null) {
+            starts.merge(subTask.countedStart, 1, Integer::sum);
+        }
+        if (subTask.countedEnd != null) {
+            ends.merge(subTask.countedEnd, 1, Integer::sum);
+        }
+        if (subTask.countedDuration != null) {
+            totalDuration = totalDuration.plus(subTask.countedDuration);
+        }
+    }
+
+    private void uncount(SubTask subTask) {
+        if (subTask.countedStatus == null) {
+            return;
+        }
+        statusCounts[subTask.countedStatus.ordinal()]--;
+        if (subTask.countedStart != null) {
+            starts.computeIfPresent(subTask.countedStart, (time, n) -> n == 1 ? null : n - 1);
+        }
+        if (subTask.countedEnd != null) {
+            ends.computeIfPresent(subTask.countedEnd, (time, n) -> n == 1 ? null : n - 1);
+        }
+        if (subTask.countedDuration != null) {
+            totalDuration = totalDuration.minus(subTask.countedDuration);
+        }
+        subTask.countedStatus = null;
+    }
+
+    public int countSubTasks(Status status) {
+        return statusCounts[status.ordinal()];
+    }
+
+    //статус по счётчикам: все NEW (или подзадач нет) - NEW, все DONE - DONE, иначе IN_Progress
+    public Status calculateStatus() {
+        int total = subTasks.size();
+        if (total == 0 || countSubTasks(Status.NEW) == total) {
+            return Status.NEW;
+        } else if (countSubTasks(Status.DONE) == total) {
+            return Status.DONE;
+        }
+        return Status.IN_Progress;
+    }
+
+    @Override
+    public Type getType() {
+        return Type.EPIC;
     }
 
     @Override
@@ -39,34 +140,21 @@ public class Epic extends AbstractTask{
                 '}';
     }
 
+    //конец самой поздней подзадачи или null, если у подзадач нет времени
     @Override
     public LocalDateTime getEndTime() {
-        for(SubTask sT : subTasks.values()) {
-            LocalDateTime localDateTime = sT.getEndTime();
-            if (localDateTime.isAfter(endTime)) {
-                endTime = localDateTime;
-            }
-        }
-        return endTime;
+        return ends.isEmpty() ? null : ends.lastKey();
     }
 
+    //сумма длительностей подзадач
     @Override
     public Duration getDuration() {
-        for(SubTask sT : subTasks.values()) {
-            duration.plus(sT.getDuration());
-        }
-        return duration;
+        return totalDuration;
     }
 
+    //начало самой ранней подзадачи или null, если у подзадач нет времени
     @Override
     public LocalDateTime getStartTime() {
-        for(SubTask sT : subTasks.values()) {
-            LocalDateTime localDateTime = sT.getStartTime();
-            if (localDateTime.isBefore(startTime)) {
-                startTime = localDateTime;
-            }
-        }
-        return startTime;
+        return starts.isEmpty() ? null : starts.firstKey();
     }
-
 }
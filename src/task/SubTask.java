@@ -1,13 +1,26 @@
 package task;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
+
 public class SubTask extends AbstractTask {
     protected Epic epic;
+    //статус и время, с которыми подзадачу учитывает её эпик (см. Epic.addSubTask)
+    Status countedStatus;
+    LocalDateTime countedStart;
+    LocalDateTime countedEnd;
+    Duration countedDuration;
 
 //    public SubTask(Epic epic, String name, String description, int id, Status status) {
 //        super(name, description, id, status);
 //        this.epic = epic;
 //    }
 
+    @Override
+    public Type getType() {
+        return Type.SUBTASK;
+    }
+
     @Override
     public String toString() {
         return "SubTask{" +
@@ -1,6 +1,11 @@
 package task;
 
 public class Task extends AbstractTask{
+    @Override
+    public Type getType() {
+        return Type.TASK;
+    }
+
     @Override
     public String toString() {
         return "Task{" +
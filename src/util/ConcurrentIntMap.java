@@ -0,0 +1,7 @@
+package util;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+//потокобезопасный IntMap для ConcurrentTaskManager: ключи упаковываются, как в обычном ConcurrentHashMap
+public class ConcurrentIntMap<V> extends ConcurrentHashMap<Integer, V> implements IntMap<V> {
+}
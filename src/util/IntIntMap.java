@@ -0,0 +1,186 @@
+package util;
+
+import java.util.Arrays;
+
+//словарь int -> int с открытой адресацией: ключи и значения лежат в двух массивах,
+//поэтому get/put/remove не упаковывают ключи и не создают объектов, пока не нужно расширение
+public class IntIntMap {
+    private static final int FREE = 0;
+    private static final float LOAD_FACTOR = 0.5f;
+
+    //значение, которое возвращается для отсутствующего ключа
+    private final int missing;
+    private int[] keys;
+    private int[] values;
+    private int mask;
+    private int size;
+    private int threshold;
+    //ключ 0 занят под пустую ячейку, поэтому хранится отдельно
+    private boolean hasFreeKey;
+    private int freeValue;
+
+    public IntIntMap(int missing) {
+        this(missing, 16);
+    }
+
+    public IntIntMap(int missing, int expectedSize) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("expectedSize < 0!!");
+        }
+        this.missing = missing;
+        allocate(tableSize(expectedSize));
+    }
+
+    public int get(int key) {
+        if (key == FREE) {
+            return hasFreeKey ? freeValue : missing;
+        }
+        for (int pos = mix(key) & mask; ; pos = (pos + 1) & mask) {
+            int k = keys[pos];
+            if (k == FREE) {
+                return missing;
+            } else if (k == key) {
+                return values[pos];
+            }
+        }
+    }
+
+    public boolean containsKey(int key) {
+        if (key == FREE) {
+            return hasFreeKey;
+        }
+        for (int pos = mix(key) & mask; ; pos = (pos + 1) & mask) {
+            int k = keys[pos];
+            if (k == FREE) {
+                return false;
+            } else if (k == key) {
+                return true;
+            }
+        }
+    }
+
+    //возвращает прежнее значение или missing
+    public int put(int key, int value) {
+        if (key == FREE) {
+            int previous = hasFreeKey ? freeValue : missing;
+            if (!hasFreeKey) {
+                hasFreeKey = true;
+                size++;
+            }
+            freeValue = value;
+            return previous;
+        }
+        int pos = mix(key) & mask;
+        for (; keys[pos] != FREE; pos = (pos + 1) & mask) {
+            if (keys[pos] == key) {
+                int previous = values[pos];
+                values[pos] = value;
+                return previous;
+            }
+        }
+        keys[pos] = key;
+        values[pos] = value;
+        if (++size > threshold) {
+            rehash(keys.length * 2);
+        }
+        return missing;
+    }
+
+    //возвращает удалённое значение или missing
+    public int remove(int key) {
+        if (key == FREE) {
+            if (!hasFreeKey) {
+                return missing;
+            }
+            hasFreeKey = false;
+            size--;
+            return freeValue;
+        }
+        for (int pos = mix(key) & mask; ; pos = (pos + 1) & mask) {
+            int k = keys[pos];
+            if (k == FREE) {
+                return missing;
+            } else if (k == key) {
+                int previous = values[pos];
+                size--;
+                shiftKeys(pos);
+                return previous;
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, FREE);
+        hasFreeKey = false;
+        size = 0;
+    }
+
+    //сдвигает назад ключи той же цепочки, чтобы после удаления не оставалось «надгробий»
+    private void shiftKeys(int pos) {
+        while (true) {
+            int last = pos;
+            pos = (pos + 1) & mask;
+            int k;
+            while (true) {
+                k = keys[pos];
+                if (k == FREE) {
+                    keys[last] = FREE;
+                    return;
+                }
+                int slot = mix(k) & mask;
+                if (last <= pos ? last >= slot || slot > pos : last >= slot && slot > pos) {
+                    break;
+                }
+                pos = (pos + 1) & mask;
+            }
+            keys[last] = k;
+            values[last] = values[pos];
+        }
+    }
+
+    private void rehash(int newCapacity) {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(newCapacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            int k = oldKeys[i];
+            if (k != FREE) {
+                int pos = mix(k) & mask;
+                while (keys[pos] != FREE) {
+                    pos = (pos + 1) & mask;
+                }
+                keys[pos] = k;
+                values[pos] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+        threshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    static int tableSize(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(2, (int) Math.ceil(expectedSize / LOAD_FACTOR)) - 1) << 1;
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Слишком большой размер: " + expectedSize);
+        }
+        return capacity;
+    }
+
+    //перемешивает биты, чтобы подряд идущие id не ложились в соседние ячейки одной цепочкой
+    static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,23 @@
+package util;
+
+import java.util.Map;
+
+//Map с int-ключами: перегрузки с int выбираются компилятором раньше упаковывающих методов Map,
+//поэтому в специализированной реализации обращение по id не создаёт Integer
+public interface IntMap<V> extends Map<Integer, V> {
+    default V get(int key) {
+        return get((Object) key);
+    }
+
+    default boolean containsKey(int key) {
+        return containsKey((Object) key);
+    }
+
+    default V put(int key, V value) {
+        return put((Integer) key, value);
+    }
+
+    default V remove(int key) {
+        return remove((Object) key);
+    }
+}
@@ -0,0 +1,277 @@
+package util;
+
+import java.util.AbstractCollection;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+//словарь int -> V с открытой адресацией: вместо HashMap.Node и Integer на запись - ячейка в двух массивах.
+//Итераторы не поддерживают remove(), изменять словарь во время обхода нельзя
+public class IntObjectMap<V> extends AbstractMap<Integer, V> implements IntMap<V> {
+    private static final int FREE = 0;
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private int[] keys;
+    private Object[] values;
+    private int mask;
+    private int size;
+    private int threshold;
+    //ключ 0 занят под пустую ячейку, поэтому хранится отдельно
+    private boolean hasFreeKey;
+    private V freeValue;
+
+    public IntObjectMap() {
+        this(16);
+    }
+
+    public IntObjectMap(int expectedSize) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("expectedSize < 0!!");
+        }
+        allocate(IntIntMap.tableSize(expectedSize));
+    }
+
+    @Override
+    public V get(int key) {
+        if (key == FREE) {
+            return hasFreeKey ? freeValue : null;
+        }
+        int pos = find(key);
+        return pos < 0 ? null : value(pos);
+    }
+
+    @Override
+    public boolean containsKey(int key) {
+        return key == FREE ? hasFreeKey : find(key) >= 0;
+    }
+
+    @Override
+    public V put(int key, V value) {
+        if (key == FREE) {
+            V previous = freeValue;
+            if (!hasFreeKey) {
+                hasFreeKey = true;
+                size++;
+            }
+            freeValue = value;
+            return previous;
+        }
+        int pos = IntIntMap.mix(key) & mask;
+        for (; keys[pos] != FREE; pos = (pos + 1) & mask) {
+            if (keys[pos] == key) {
+                V previous = value(pos);
+                values[pos] = value;
+                return previous;
+            }
+        }
+        keys[pos] = key;
+        values[pos] = value;
+        if (++size > threshold) {
+            rehash(keys.length * 2);
+        }
+        return null;
+    }
+
+    @Override
+    public V remove(int key) {
+        if (key == FREE) {
+            if (!hasFreeKey) {
+                return null;
+            }
+            V previous = freeValue;
+            hasFreeKey = false;
+            freeValue = null;
+            size--;
+            return previous;
+        }
+        int pos = find(key);
+        if (pos < 0) {
+            return null;
+        }
+        V previous = value(pos);
+        size--;
+        shiftKeys(pos);
+        return previous;
+    }
+
+    //упаковывающие методы Map переводятся на примитивные
+    @Override
+    public V get(Object key) {
+        return key instanceof Integer id ? get(id.intValue()) : null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return key instanceof Integer id && containsKey(id.intValue());
+    }
+
+    @Override
+    public V put(Integer key, V value) {
+        return put(key.intValue(), value);
+    }
+
+    @Override
+    public V remove(Object key) {
+        return key instanceof Integer id ? remove(id.intValue()) : null;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(keys, FREE);
+        Arrays.fill(values, null);
+        hasFreeKey = false;
+        freeValue = null;
+        size = 0;
+    }
+
+    //обход значений без создания Map.Entry
+    @Override
+    public Collection<V> values() {
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<V> iterator() {
+                return new Cursor<>() {
+                    @Override
+                    V current() {
+                        return position < 0 ? freeValue : value(position);
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    @Override
+    public Set<Entry<Integer, V>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<Integer, V>> iterator() {
+                return new Cursor<>() {
+                    @Override
+                    Entry<Integer, V> current() {
+                        return position < 0
+                                ? new SimpleImmutableEntry<>(FREE, freeValue)
+                                : new SimpleImmutableEntry<>(keys[position], value(position));
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    //сначала ключ 0 (position == -1), затем занятые ячейки таблицы
+    private abstract class Cursor<T> implements Iterator<T> {
+        int position = -2;
+        private int next = advance(-2);
+
+        abstract T current();
+
+        private int advance(int from) {
+            if (from < -1 && hasFreeKey) {
+                return -1;
+            }
+            for (int i = Math.max(from + 1, 0); i < keys.length; i++) {
+                if (keys[i] != FREE) {
+                    return i;
+                }
+            }
+            return keys.length;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next < keys.length;
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            position = next;
+            next = advance(next);
+            return current();
+        }
+    }
+
+    private int find(int key) {
+        for (int pos = IntIntMap.mix(key) & mask; ; pos = (pos + 1) & mask) {
+            int k = keys[pos];
+            if (k == FREE) {
+                return -1;
+            } else if (k == key) {
+                return pos;
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private V value(int pos) {
+        return (V) values[pos];
+    }
+
+    //сдвигает назад ключи той же цепочки, чтобы после удаления не оставалось «надгробий»
+    private void shiftKeys(int pos) {
+        while (true) {
+            int last = pos;
+            pos = (pos + 1) & mask;
+            int k;
+            while (true) {
+                k = keys[pos];
+                if (k == FREE) {
+                    keys[last] = FREE;
+                    values[last] = null;
+                    return;
+                }
+                int slot = IntIntMap.mix(k) & mask;
+                if (last <= pos ? last >= slot || slot > pos : last >= slot && slot > pos) {
+                    break;
+                }
+                pos = (pos + 1) & mask;
+            }
+            keys[last] = k;
+            values[last] = values[pos];
+        }
+    }
+
+    private void rehash(int newCapacity) {
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(newCapacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            int k = oldKeys[i];
+            if (k != FREE) {
+                int pos = IntIntMap.mix(k) & mask;
+                while (keys[pos] != FREE) {
+                    pos = (pos + 1) & mask;
+                }
+                keys[pos] = k;
+                values[pos] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+        threshold = (int) (capacity * LOAD_FACTOR);
+    }
+}
@@ -0,0 +1,141 @@
+package events;
+
+import org.junit.jupiter.api.Test;
+import task.Status;
+import task.Task;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventBusTest {
+    private static Task task(int id) {
+        Task task = new Task("task" + id, "desc", Status.NEW);
+        task.setId(id);
+        return task;
+    }
+
+    //события приходят по порядку и пачками не больше maxBatch, несколько публикующих потоков ничего не теряют
+    @Test
+    void shouldDeliverAllEventsInOrderToEverySubscriber() throws InterruptedException {
+        EventBus bus = new EventBus(64, BackPressure.BLOCK);
+        List<Long> first = Collections.synchronizedList(new ArrayList<>());
+        List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<>());
+        List<Long> second = Collections.synchronizedList(new ArrayList<>());
+        Subscription a = bus.subscribe(batch -> {
+            batchSizes.add(batch.size());
+            batch.forEach(event -> first.add(event.sequence()));
+        }, 16);
+        Subscription b = bus.subscribe(batch -> batch.forEach(event -> second.add(event.sequence())), 1);
+
+        List<Thread> producers = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Thread producer = new Thread(() -> {
+                for (int i = 0; i < 5_000; i++) {
+                    bus.publish(ChangeType.CREATED, task(i), null);
+                }
+            });
+            producer.start();
+            producers.add(producer);
+        }
+        for (Thread producer : producers) {
+            producer.join();
+        }
+        bus.close();
+
+        assertEquals(20_000, first.size());
+        assertEquals(20_000, second.size());
+        for (int i = 0; i < first.size(); i++) {
+            assertEquals(i, first.get(i));
+            assertEquals(i, second.get(i));
+        }
+        assertTrue(batchSizes.stream().allMatch(size -> size <= 16));
+        assertEquals(0, a.getLost() + b.getLost() + bus.getRejected());
+    }
+
+    //DROP_OLDEST: занятый подписчик пропускает затёртые события, но не меньше, чем затёрто
+    @Test
+    void dropOldestShouldSkipOverwrittenEvents() throws InterruptedException {
+        EventBus bus = new EventBus(8, BackPressure.DROP_OLDEST);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Long> received = Collections.synchronizedList(new ArrayList<>());
+        Subscription subscription = bus.subscribe(batch -> {
+            batch.forEach(event -> received.add(event.sequence()));
+            started.countDown();
+            awaitQuietly(release);
+        }, 100);
+
+        bus.publish(ChangeType.CREATED, task(1), null);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 100; i++) {
+            bus.publish(ChangeType.UPDATED, task(1), Status.NEW);
+        }
+        release.countDown();
+        subscription.close();
+
+        assertEquals(101, subscription.getDelivered() + subscription.getLost());
+        assertTrue(subscription.getLost() > 0);
+        assertEquals(100L, received.get(received.size() - 1));
+    }
+
+    //DROP_NEWEST: буфер не затирается, лишние события не публикуются
+    @Test
+    void dropNewestShouldRejectEventsWhenFull() throws InterruptedException {
+        EventBus bus = new EventBus(8, BackPressure.DROP_NEWEST);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Long> received = Collections.synchronizedList(new ArrayList<>());
+        Subscription subscription = bus.subscribe(batch -> {
+            batch.forEach(event -> received.add(event.sequence()));
+            started.countDown();
+            awaitQuietly(release);
+        }, 100);
+
+        bus.publish(ChangeType.CREATED, task(1), null);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 100; i++) {
+            bus.publish(ChangeType.UPDATED, task(1), Status.NEW);
+        }
+        release.countDown();
+        subscription.close();
+
+        assertEquals(92, bus.getRejected());
+        assertEquals(9, received.size());
+        for (int i = 0; i < received.size(); i++) {
+            assertEquals(i, received.get(i));
+        }
+        assertEquals(0, subscription.getLost());
+    }
+
+    //исключение подписчика не останавливает доставку
+    @Test
+    void failingListenerShouldKeepReceiving() {
+        EventBus bus = new EventBus(16, BackPressure.BLOCK);
+        List<TaskEvent> received = Collections.synchronizedList(new ArrayList<>());
+        Subscription subscription = bus.subscribe(batch -> {
+            received.addAll(batch);
+            throw new IllegalStateException("сбой подписчика");
+        }, 1);
+
+        bus.publish(ChangeType.CREATED, task(1), null);
+        bus.publish(ChangeType.DELETED, task(1), Status.NEW);
+        subscription.close();
+
+        assertEquals(2, received.size());
+        assertEquals(2, subscription.getFailures());
+        assertEquals(ChangeType.DELETED, received.get(1).change());
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
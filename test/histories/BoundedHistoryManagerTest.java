@@ -0,0 +1,98 @@
+package histories;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import task.Status;
+import task.Task;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoundedHistoryManagerTest {
+    private Task task1;
+    private Task task2;
+    private Task task3;
+
+    //часы, которые двигаются только вручную
+    private static class ManualClock extends Clock {
+        private long millis;
+
+        void advance(Duration duration) {
+            millis += duration.toMillis();
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis);
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        task1 = new Task("Task1", "Description", Status.NEW);
+        task2 = new Task("Task2", "Description", Status.NEW);
+        task3 = new Task("Task3", "Description", Status.NEW);
+
+        task1.setId(1);
+        task2.setId(2);
+        task3.setId(3);
+    }
+
+    @Test
+    void addShouldEvictLeastRecentlyViewed() {
+        HistoryManager historyManager = new BoundedHistoryManager(2);
+        historyManager.add(task1);
+        historyManager.add(task2);
+        historyManager.add(task1);
+        historyManager.add(task3);
+
+        assertEquals(List.of(task1, task3), historyManager.getHistory());
+    }
+
+    @Test
+    void getHistoryShouldDropExpiredEntries() {
+        ManualClock clock = new ManualClock();
+        HistoryManager historyManager = new BoundedHistoryManager(EvictionPolicy.expireAfter(Duration.ofMinutes(10)), clock);
+
+        historyManager.add(task1);
+        clock.advance(Duration.ofMinutes(6));
+        historyManager.add(task2);
+        clock.advance(Duration.ofMinutes(6));
+
+        assertEquals(List.of(task2), historyManager.getHistory());
+
+        //повторный просмотр продлевает жизнь записи
+        historyManager.add(task2);
+        clock.advance(Duration.ofMinutes(9));
+        assertEquals(List.of(task2), historyManager.getHistory());
+    }
+
+    @Test
+    void removeShouldKeepOrder() {
+        HistoryManager historyManager = new BoundedHistoryManager(EvictionPolicy.lru(3).or(EvictionPolicy.expireAfter(Duration.ofHours(1))));
+        historyManager.add(task1);
+        historyManager.add(task2);
+        historyManager.add(task3);
+
+        historyManager.remove(2);
+        historyManager.remove(42);
+
+        assertEquals(List.of(task1, task3), historyManager.getHistory());
+    }
+}
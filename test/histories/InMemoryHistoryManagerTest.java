@@ -5,7 +5,11 @@ import org.junit.jupiter.api.Test;
 import task.AbstractTask;
 import task.Task;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Random;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -106,4 +110,25 @@ class InMemoryHistoryManagerTest {
         assertEquals(task3, history.get(1));
         assertEquals(task1, history.get(2));
     }
-}
\ No newline at end of file
+
+    @Test
+    void getHistoryShouldMatchLinkedHashMapAfterManyOperations() {
+        Map<Integer, AbstractTask> expected = new LinkedHashMap<>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 10_000; i++) {
+            int id = random.nextInt(200);
+            if (random.nextInt(3) == 0) {
+                historyManager.remove(id);
+                expected.remove(id);
+            } else {
+                Task viewed = new Task("Task" + id, "Description", task.Status.NEW);
+                viewed.setId(id);
+                historyManager.add(viewed);
+                expected.remove(id);
+                expected.put(id, viewed);
+            }
+        }
+        assertEquals(new ArrayList<>(expected.values()), historyManager.getHistory());
+    }
+}
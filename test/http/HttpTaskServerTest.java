@@ -0,0 +1,204 @@
+package http;
+
+import manager.ConcurrentTaskManager;
+import manager.InMemoryTaskManager;
+import manager.TaskManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import task.Epic;
+import task.Status;
+import task.SubTask;
+import task.Task;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HttpTaskServerTest {
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    private HttpTaskServer server;
+    private TaskManager manager;
+
+    private void start(TaskManager manager) throws IOException {
+        this.manager = manager;
+        server = new HttpTaskServer(manager, 0);
+        server.start();
+    }
+
+    @BeforeAll
+    static void noDelay() {
+        HttpTaskServer.enableTcpNoDelay();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close();
+    }
+
+    private HttpResponse<String> send(String method, String path, String body) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + server.getPort() + path))
+                .method(method, body == null ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Object> array(HttpResponse<String> response) {
+        return (List<Object>) JsonParser.parse(response.body());
+    }
+
+    //создание, чтение, обновление и удаление через HTTP доходят до менеджера
+    @Test
+    void shouldCreateReadUpdateAndDeleteTasks() throws Exception {
+        start(new InMemoryTaskManager());
+
+        HttpResponse<String> created = send("POST", "/epics", "{\"name\":\"Переезд\",\"description\":\"Офис\"}");
+        assertEquals(201, created.statusCode());
+        long epicId = (Long) JsonParser.parseObject(created.body()).get("id");
+
+        created = send("POST", "/subtasks", "{\"name\":\"Коробки\",\"description\":\"Купить \\\"большие\\\"\",\"status\":\"DONE\","
+                + "\"epic\":" + epicId + ",\"startTime\":\"2024-05-01T10:00\",\"duration\":\"PT30M\"}");
+        assertEquals(201, created.statusCode());
+        Map<String, Object> subTask = JsonParser.parseObject(created.body());
+        assertEquals("Купить \"большие\"", subTask.get("description"));
+        assertEquals("2024-05-01T10:30", subTask.get("endTime"));
+
+        assertEquals(Status.DONE, manager.getIdEpic((int) epicId).getStatus());
+        assertEquals(1, array(send("GET", "/epics/" + epicId + "/subtasks", null)).size());
+        assertEquals(1, array(send("GET", "/prioritized", null)).size());
+
+        HttpResponse<String> updated = send("POST", "/epics", "{\"id\":" + epicId + ",\"name\":\"Переезд 2\"}");
+        assertEquals(200, updated.statusCode());
+        assertEquals("DONE", JsonParser.parseObject(updated.body()).get("status"));
+        assertEquals(1, manager.getIdEpic((int) epicId).getSubTasks().size());
+
+        assertEquals(200, send("DELETE", "/epics/" + epicId, null).statusCode());
+        assertTrue(array(send("GET", "/subtasks", null)).isEmpty());
+        assertEquals(404, send("GET", "/epics/" + epicId, null).statusCode());
+    }
+
+    //ошибки менеджера и запроса превращаются в коды ответа
+    @Test
+    void shouldMapErrorsToStatusCodes() throws Exception {
+        start(new InMemoryTaskManager());
+        Task task = new Task("Встреча", "desc", Status.NEW);
+        task.setStartTime(LocalDateTime.of(2024, 5, 1, 10, 0));
+        task.setDuration(Duration.ofHours(1));
+        manager.createTask(task);
+
+        assertEquals(404, send("GET", "/tasks/100", null).statusCode());
+        assertEquals(404, send("POST", "/subtasks", "{\"name\":\"x\",\"epic\":100}").statusCode());
+        assertEquals(406, send("POST", "/tasks", "{\"name\":\"x\",\"startTime\":\"2024-05-01T10:30\",\"duration\":\"PT1H\"}").statusCode());
+        assertEquals(400, send("POST", "/tasks", "{\"name\":").statusCode());
+        assertEquals(400, send("POST", "/tasks", "{\"name\":\"x\",\"status\":\"LATER\"}").statusCode());
+        assertEquals(405, send("PUT", "/tasks", "{}").statusCode());
+        assertEquals(1, manager.getTasks().size());
+    }
+
+    //"id": null - тоже создание: задача создаётся один раз и возвращается с кодом 201
+    @Test
+    void nullIdShouldCreateTask() throws Exception {
+        start(new InMemoryTaskManager());
+        HttpResponse<String> created = send("POST", "/tasks", "{\"id\":null,\"name\":\"t\"}");
+        assertEquals(201, created.statusCode(), created.body());
+        assertEquals(1, manager.getTasks().size());
+        assertEquals((long) manager.getTasks().get(0).getId(), JsonParser.parseObject(created.body()).get("id"));
+    }
+
+    //обновлённый эпик остаётся эпиком своих подзадач: удаление подзадачи убирает её из него и пересчитывает статус
+    @Test
+    void epicUpdateShouldKeepSubTasksLinked() throws Exception {
+        start(new ConcurrentTaskManager());
+        long epicId = (Long) JsonParser.parseObject(send("POST", "/epics", "{\"name\":\"e\"}").body()).get("id");
+        long subTaskId = (Long) JsonParser.parseObject(send("POST", "/subtasks",
+                "{\"name\":\"s\",\"epic\":" + epicId + ",\"status\":\"DONE\"}").body()).get("id");
+
+        HttpResponse<String> updated = send("POST", "/epics", "{\"id\":" + epicId + ",\"name\":\"e2\"}");
+        assertEquals(200, updated.statusCode());
+        assertEquals("DONE", JsonParser.parseObject(updated.body()).get("status"));
+        Epic epic = manager.getIdEpic((int) epicId);
+        assertSame(epic, manager.getIdSubtask((int) subTaskId).getEpic());
+
+        assertEquals(200, send("DELETE", "/subtasks/" + subTaskId, null).statusCode());
+        assertTrue(array(send("GET", "/epics/" + epicId + "/subtasks", null)).isEmpty());
+        Map<String, Object> read = JsonParser.parseObject(send("GET", "/epics/" + epicId, null).body());
+        assertEquals("e2", read.get("name"));
+        assertEquals("NEW", read.get("status"));
+        assertTrue(epic.getSubTasks().isEmpty());
+    }
+
+    //большой список, выборка по статусу, постраничный вывод и история
+    @Test
+    void shouldStreamListsAndHistory() throws Exception {
+        start(new ConcurrentTaskManager());
+        Epic epic = new Epic("epic", "desc", Status.NEW);
+        manager.createEpic(epic);
+        for (int i = 0; i < 5_000; i++) {
+            manager.createSubTask(new SubTask(epic, "subTask" + i, "desc", i % 2 == 0 ? Status.DONE : Status.NEW));
+        }
+        manager.getIdEpic(epic.getId());
+
+        assertEquals(5_000, array(send("GET", "/subtasks", null)).size());
+        assertEquals(2_500, array(send("GET", "/subtasks?status=DONE", null)).size());
+        assertEquals(5, array(send("GET", "/subtasks?offset=4995&limit=100", null)).size());
+        List<Object> history = array(send("GET", "/history", null));
+        assertEquals(1, history.size());
+        assertEquals((long) epic.getId(), ((Map<?, ?>) history.get(0)).get("id"));
+    }
+
+    //эпики пишутся по снимку под их замком: у каждого эпика окно из подряд идущих получасовых подзадач
+    //сдвигается вперёд, и в любом согласованном состоянии от начала до конца эпика ровно его длительность
+    @Test
+    void epicListShouldBeConsistentWithConcurrentSubTaskChanges() throws Exception {
+        start(new ConcurrentTaskManager());
+        List<Thread> writers = new ArrayList<>();
+        for (int w = 0; w < 2; w++) {
+            Epic epic = new Epic("epic" + w, "desc", Status.NEW);
+            manager.createEpic(epic);
+            LocalDateTime base = LocalDateTime.of(2024 + w * 100, 1, 1, 0, 0);
+            writers.add(Thread.ofPlatform().start(() -> {
+                ArrayDeque<Integer> window = new ArrayDeque<>();
+                for (int slot = 0; slot < 20_000; slot++) {
+                    SubTask subTask = new SubTask(epic, "subTask", "desc", Status.DONE);
+                    subTask.setStartTime(base.plusMinutes(30L * slot));
+                    subTask.setDuration(Duration.ofMinutes(30));
+                    manager.createSubTask(subTask);
+                    window.add(subTask.getId());
+                    if (window.size() > 10) {
+                        manager.deleteSubTaskById(window.poll());
+                    }
+                }
+            }));
+        }
+        int requests = 0;
+        while (requests < 10 || writers.stream().anyMatch(Thread::isAlive)) {
+            requests++;
+            HttpResponse<String> response = send("GET", "/epics", null);
+            assertEquals(200, response.statusCode());
+            for (Object item : array(response)) {
+                Map<?, ?> epic = (Map<?, ?>) item;
+                if (epic.get("startTime") == null) {
+                    assertNull(epic.get("endTime"), response.body());
+                    continue;
+                }
+                Duration span = Duration.between(LocalDateTime.parse((String) epic.get("startTime")),
+                        LocalDateTime.parse((String) epic.get("endTime")));
+                assertEquals(span, Duration.parse((String) epic.get("duration")), response.body());
+            }
+        }
+        for (Thread writer : writers) {
+            writer.join();
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package json;
+
+import org.junit.jupiter.api.Test;
+import task.AbstractTask;
+import task.Epic;
+import task.Status;
+import task.SubTask;
+import task.Task;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TaskJsonCodecTest {
+    private static String write(List<? extends AbstractTask> tasks) throws IOException {
+        StringWriter out = new StringWriter();
+        try (TaskJsonWriter writer = new TaskJsonWriter(out)) {
+            writer.writeAll(tasks);
+        }
+        return out.toString();
+    }
+
+    //все поля всех типов переживают запись и чтение, подзадача связывается с эпиком
+    @Test
+    void shouldRoundTripAllTypes() throws IOException {
+        Task task = new Task("Встреча", "Обсудить \"план\"\n\tи \\ сроки\u0001", Status.IN_Progress);
+        task.setId(1);
+        task.setStartTime(LocalDateTime.of(2024, 5, 1, 10, 0));
+        task.setDuration(Duration.ofMinutes(90));
+        Epic epic = new Epic("Переезд", null, Status.NEW);
+        epic.setId(2);
+        SubTask subTask = new SubTask(epic, "Коробки", "Купить", 3, Status.DONE);
+        subTask.setStartTime(LocalDateTime.of(2024, 5, 2, 9, 15, 30, 500_000_000));
+        subTask.setDuration(Duration.ofSeconds(45, 1000));
+        epic.addSubTask(subTask);
+
+        String json = write(List.of(task, epic, subTask));
+        List<AbstractTask> read = new TaskJsonReader(new StringReader(json)).readAll();
+
+        assertEquals(3, read.size());
+        Task readTask = (Task) read.get(0);
+        assertEquals(task.getName(), readTask.getName());
+        assertEquals(task.getDescription(), readTask.getDescription());
+        assertEquals(Status.IN_Progress, readTask.getStatus());
+        assertEquals(task.getStartTime(), readTask.getStartTime());
+        assertEquals(task.getDuration(), readTask.getDuration());
+        Epic readEpic = (Epic) read.get(1);
+        assertNull(readEpic.getDescription());
+        SubTask readSubTask = (SubTask) read.get(2);
+        assertEquals(3, readSubTask.getId());
+        assertSame(readEpic, readSubTask.getEpic());
+        assertSame(readSubTask, readEpic.getSubTasks().get(3));
+        assertEquals(subTask.getStartTime(), readSubTask.getStartTime());
+        assertEquals(subTask.getDuration(), readSubTask.getDuration());
+        assertEquals(subTask.getEndTime(), readEpic.getEndTime());
+        assertEquals(json, write(read));
+    }
+
+    //время и длительность пишутся так же, как их toString, и читаются обратно
+    @Test
+    void timeShouldMatchIsoFormat() throws IOException {
+        LocalDateTime[] times = {LocalDateTime.of(2024, 1, 2, 3, 4), LocalDateTime.of(2024, 1, 2, 3, 4, 5),
+                LocalDateTime.of(2024, 1, 2, 3, 4, 0, 120_000_000), LocalDateTime.of(2024, 1, 2, 3, 4, 5, 123_456_000),
+                LocalDateTime.of(2024, 1, 2, 3, 4, 5, 1), LocalDateTime.of(12024, 1, 1, 0, 0)};
+        Duration[] durations = {Duration.ZERO, Duration.ofHours(25), Duration.ofMinutes(61), Duration.ofMillis(1500),
+                Duration.ofNanos(7), Duration.ofSeconds(3600 * 3 + 7), Duration.ofMinutes(-5)};
+        for (int i = 0; i < times.length; i++) {
+            Task task = new Task("t", "d", Status.NEW);
+            task.setStartTime(times[i]);
+            task.setDuration(durations[i]);
+            String json = write(List.of(task));
+            assertTrue(json.contains("\"startTime\":\"" + times[i] + "\""), json);
+            assertTrue(json.contains("\"duration\":\"" + durations[i] + "\""), json);
+            assertTrue(json.contains("\"endTime\":\"" + task.getEndTime() + "\""), json);
+
+            AbstractTask read = new TaskJsonReader(new StringReader(json)).read();
+            assertEquals(times[i], read.getStartTime());
+            assertEquals(durations[i], read.getDuration());
+        }
+    }
+
+    //подзадача раньше эпика, поток по одному символу, лишние поля и пробелы
+    @Test
+    void shouldReadIncrementallyInAnyOrder() throws IOException {
+        String json = " [ {\"type\":\"SUBTASK\",\"id\":5,\"name\":\"a\\u0062c\",\"extra\":{\"x\":[1,\"]\"]},"
+                + "\"status\":\"NEW\",\"epic\":4} ,\n{\"id\":4,\"type\":\"EPIC\",\"name\":\"epic\",\"endTime\":null} ] ";
+        Reader slow = new StringReader(json) {
+            @Override
+            public int read(char[] buffer, int offset, int length) throws IOException {
+                return super.read(buffer, offset, Math.min(length, 1));
+            }
+        };
+        TaskJsonReader reader = new TaskJsonReader(slow);
+
+        SubTask subTask = (SubTask) reader.read();
+        assertEquals("abc", subTask.getName());
+        assertNull(subTask.getEpic());
+        Epic epic = (Epic) reader.read();
+        assertSame(epic, subTask.getEpic());
+        assertEquals(1, epic.getSubTasks().size());
+        assertNull(reader.read());
+        assertNull(reader.read());
+
+        assertThrows(IllegalArgumentException.class,
+                () -> new TaskJsonReader(new StringReader("[{\"type\":\"TASK\",\"status\":\"LATER\"}]")).readAll());
+        assertThrows(IllegalArgumentException.class,
+                () -> new TaskJsonReader(new StringReader("[{\"type\":\"TASK\"}")).readAll());
+        assertThrows(IllegalArgumentException.class,
+                () -> new TaskJsonReader(new StringReader("{\"name\":\"no type\"}")).read());
+    }
+}
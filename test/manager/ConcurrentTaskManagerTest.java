@@ -0,0 +1,172 @@
+package manager;
+
+import exceptions.EpicNotFoundException;
+import org.junit.jupiter.api.Test;
+import task.*;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrentTaskManagerTest extends TaskManagerTest<ConcurrentTaskManager> {
+    private static final int THREADS = 8;
+
+    @Override
+    protected ConcurrentTaskManager createTaskManager() {
+        return new ConcurrentTaskManager();
+    }
+
+    //запускает задачу одновременно в нескольких потоках
+    private void runConcurrently(ThreadBody body) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            futures.add(executor.submit(() -> {
+                start.await();
+                body.run(thread);
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+    }
+
+    private interface ThreadBody {
+        void run(int thread) throws Exception;
+    }
+
+    //id уникальны при одновременном создании задач
+    @Test
+    void createTaskShouldGenerateUniqueIdsConcurrently() throws Exception {
+        int perThread = 2_000;
+        runConcurrently(thread -> {
+            for (int i = 0; i < perThread; i++) {
+                taskManager.createTask(new Task("t" + thread + "-" + i, "desc", Status.NEW));
+            }
+        });
+
+        Set<Integer> ids = new HashSet<>();
+        for (Task t : taskManager.getTasks()) {
+            ids.add(t.getId());
+        }
+        assertEquals(THREADS * perThread + 1, ids.size());
+    }
+
+    //статусы эпиков сходятся при одновременной работе с подзадачами разных эпиков
+    @Test
+    void subTaskUpdatesShouldKeepEpicStatusConsistent() throws Exception {
+        Epic[] epics = new Epic[THREADS];
+        for (int i = 0; i < THREADS; i++) {
+            epics[i] = new Epic("epic" + i, "desc", Status.NEW);
+            taskManager.createEpic(epics[i]);
+        }
+        int perThread = 500;
+
+        runConcurrently(thread -> {
+            for (int i = 0; i < perThread; i++) {
+                Epic target = epics[(thread + i) % THREADS];
+                SubTask st = new SubTask(target, "s", "desc", Status.NEW);
+                taskManager.createSubTask(st);
+
+                SubTask done = new SubTask(target, "s", "desc", Status.DONE);
+                done.setId(st.getId());
+                taskManager.updateSubTask(done);
+            }
+        });
+
+        assertEquals(THREADS * perThread + 1, taskManager.getSubTasks().size());
+        for (Epic e : epics) {
+            assertEquals(Status.DONE, e.getStatus());
+            assertEquals(perThread, taskManager.returnSubTasksInEpic(e).size());
+        }
+    }
+
+    //одновременные просмотры не создают дублей в истории
+    @Test
+    void historyShouldStayWithoutDuplicatesConcurrently() throws Exception {
+        List<Task> created = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            Task t = new Task("t" + i, "desc", Status.NEW);
+            taskManager.createTask(t);
+            created.add(t);
+        }
+
+        runConcurrently(thread -> {
+            for (int i = 0; i < 5_000; i++) {
+                taskManager.getIdTask(created.get((i * 7 + thread) % created.size()).getId());
+            }
+        });
+
+        List<AbstractTask> history = taskManager.getHistory();
+        Set<Integer> ids = new HashSet<>();
+        for (AbstractTask t : history) {
+            ids.add(t.getId());
+        }
+        assertEquals(created.size(), history.size());
+        assertEquals(created.size(), ids.size());
+    }
+
+    //очистка типа вперемешку с созданием не оставляет в индексах задач, которых нет в хранилищах
+    @Test
+    void clearAllShouldKeepIndexesConsistentWithConcurrentCreates() throws Exception {
+        LocalDateTime base = LocalDateTime.of(2024, 1, 1, 0, 0);
+        AtomicInteger slot = new AtomicInteger();
+        for (int round = 0; round < 20; round++) {
+            runConcurrently(thread -> {
+                for (int i = 0; i < 200; i++) {
+                    if (thread == 0 && i % 20 == 0) {
+                        taskManager.deleteAllTasks();
+                    } else if (thread == 1 && i % 20 == 0) {
+                        taskManager.deleteAllEpics();
+                    } else if (thread % 2 == 0) {
+                        Task task = new Task("stress", "desc", Status.DONE);
+                        task.setStartTime(base.plusMinutes(slot.getAndIncrement() * 10L));
+                        task.setDuration(Duration.ofMinutes(1));
+                        taskManager.createTask(task);
+                    } else {
+                        Epic epic = new Epic("stress", "desc", Status.NEW);
+                        taskManager.createEpic(epic);
+                        SubTask subTask = new SubTask(epic, "stress", "desc", Status.DONE);
+                        subTask.setStartTime(base.plusMinutes(slot.getAndIncrement() * 10L));
+                        subTask.setDuration(Duration.ofMinutes(1));
+                        try {
+                            taskManager.createSubTask(subTask);
+                        } catch (EpicNotFoundException e) {
+                            //эпик уже удалён очисткой из другого потока
+                        }
+                    }
+                }
+            });
+
+            int tasks = taskManager.getTasks().size();
+            int epics = taskManager.getEpics().size();
+            int subTasks = taskManager.getSubTasks().size();
+            assertEquals(tasks, taskManager.count(Type.TASK));
+            assertEquals(epics, taskManager.count(Type.EPIC));
+            assertEquals(subTasks, taskManager.count(Type.SUBTASK));
+            assertEquals(tasks + subTasks, taskManager.getPrioritizedTasks().size());
+            for (AbstractTask found : taskManager.search("stress", Integer.MAX_VALUE)) {
+                assertSame(found, taskManager.findById(found.getId()));
+            }
+            //задачи из setUp удалены первыми же очистками, остались только созданные здесь
+            assertEquals(tasks + epics + subTasks, taskManager.search("stress", Integer.MAX_VALUE).size());
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package manager;
 
+import exceptions.HistoryIsEmpty;
 import exceptions.ManagerIOException;
+import exceptions.SnapshotCorruptedException;
 import histories.HistoryManager;
 import histories.InMemoryHistoryManager;
 import org.junit.jupiter.api.Test;
@@ -8,13 +10,26 @@ import org.junit.jupiter.api.io.TempDir;
 import task.AbstractTask;
 import task.Epic;
 import task.Status;
+import task.SubTask;
 import task.Task;
+import task.Type;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -155,6 +170,28 @@ class FileBackedTaskManagerTest {
         assertEquals(Status.DONE, epic.getStatus());
     }
 
+    //подзадача, эпика которой нет в файле, удаляется вместе со всеми индексами
+    @Test
+    void deleteSubTaskByIdShouldRemoveSubTaskWithoutEpic() throws IOException {
+        File file = tempDir.resolve("orphan.csv").toFile();
+        Files.writeString(file.toPath(), """
+            id,type,name,status,description,epic
+            2,SUBTASK,Orphan,DONE,Sub description,1
+
+            2""");
+
+        FileBackedTaskManager manager = FileBackedTaskManager.loadFromFile(file);
+        assertNull(manager.getSubTasks().get(0).getEpic());
+
+        assertEquals(2, manager.deleteSubTaskById(2).getId());
+        assertTrue(manager.getSubTasks().isEmpty());
+        assertNull(manager.findById(2));
+        assertThrows(HistoryIsEmpty.class, manager::getHistory);
+        assertTrue(manager.search("Orphan", 10).isEmpty());
+        assertEquals(0, manager.count(Type.SUBTASK, Status.DONE));
+        assertTrue(FileBackedTaskManager.loadFromFile(file).getSubTasks().isEmpty());
+    }
+
     //Тест попытки загрузки из несуществующего файла
     @Test
     void loadFromFileShouldLoadUnexistedFile() {
@@ -201,6 +238,7 @@ class FileBackedTaskManagerTest {
         manager1.getIdTask(task2.getId());
 
         System.out.println("История после добавления тасков: " + manager1.getHistory());
+        manager1.flush();
 
         FileBackedTaskManager manager2 = FileBackedTaskManager.loadFromFile(file);
 
@@ -210,4 +248,473 @@ class FileBackedTaskManagerTest {
         assertEquals(epic1.getId(), history.get(1).getId());
         assertEquals(task2.getId(), history.get(2).getId());
     }
-}
\ No newline at end of file
+
+    //Журнал: изменения дописываются в журнал и применяются поверх снимка при загрузке
+    @Test
+    void journalModeShouldReplayJournalOnLoad() throws IOException {
+        File file = tempDir.resolve("journal.csv").toFile();
+        StorageOptions options = new StorageOptions();
+        options.setMode(PersistenceMode.JOURNAL);
+
+        FileBackedTaskManager manager1 = new FileBackedTaskManager(file, options);
+        Task task1 = new Task("task1", "desc1", Status.NEW);
+        Task task2 = new Task("task2", "desc2", Status.NEW);
+        Epic epic1 = new Epic("epic1", "desc3", Status.NEW);
+        manager1.createTask(task1);
+        manager1.createTask(task2);
+        manager1.createEpic(epic1);
+        manager1.createSubTask(new SubTask(epic1, "sub1", "desc4", Status.DONE));
+
+        Task updated = new Task("task1-updated", "desc1", Status.DONE);
+        updated.setId(task1.getId());
+        manager1.updateTask(updated);
+        manager1.deleteTaskById(task2.getId());
+        manager1.close();
+
+        assertTrue(new File(file.getPath() + ".journal").length() > 0);
+
+        FileBackedTaskManager manager2 = FileBackedTaskManager.loadFromFile(file, options);
+        assertEquals(1, manager2.getTasks().size());
+        assertEquals("task1-updated", manager2.getTasks().get(0).getName());
+        assertEquals(Status.DONE, manager2.getEpics().get(0).getStatus());
+        assertEquals(1, manager2.getSubTasks().size());
+
+        //после загрузки новые id не пересекаются со старыми
+        Task task3 = new Task("task3", "desc", Status.NEW);
+        manager2.createTask(task3);
+        assertTrue(task3.getId() > manager2.getSubTasks().get(0).getId());
+        manager2.close();
+    }
+
+    //Журнал: запись задачи хранит время и запятые в тексте при любом формате снимка
+    @Test
+    void journalShouldKeepTimeAndCommas() {
+        for (SnapshotFormat format : SnapshotFormat.values()) {
+            File file = tempDir.resolve("journal-" + format).toFile();
+            StorageOptions options = new StorageOptions();
+            options.setMode(PersistenceMode.JOURNAL);
+            options.setFormat(format);
+
+            FileBackedTaskManager manager1 = new FileBackedTaskManager(file, options);
+            Task task = new Task("a, b", "в магазине, у дома\nзавтра", Status.IN_Progress);
+            task.setStartTime(LocalDateTime.of(2024, 1, 1, 10, 0));
+            task.setDuration(Duration.ofMinutes(45));
+            Epic epic = new Epic("эпик, важный", "desc", Status.NEW);
+            manager1.createTask(task);
+            manager1.createEpic(epic);
+            SubTask subTask = new SubTask(epic, "sub, 1", null, Status.DONE);
+            subTask.setStartTime(LocalDateTime.of(2024, 1, 2, 9, 30, 15));
+            subTask.setDuration(Duration.ofSeconds(90));
+            manager1.createSubTask(subTask);
+            manager1.close();
+
+            FileBackedTaskManager manager2 = FileBackedTaskManager.loadFromFile(file, options);
+            Task loaded = manager2.getIdTask(task.getId());
+            assertEquals("a, b", loaded.getName());
+            assertEquals("в магазине, у дома\nзавтра", loaded.getDescription());
+            assertEquals(task.getStartTime(), loaded.getStartTime());
+            assertEquals(task.getDuration(), loaded.getDuration());
+            SubTask loadedSubTask = manager2.getIdSubtask(subTask.getId());
+            assertEquals("sub, 1", loadedSubTask.getName());
+            assertNull(loadedSubTask.getDescription());
+            assertEquals(subTask.getStartTime(), loadedSubTask.getStartTime());
+            Epic loadedEpic = manager2.getIdEpic(epic.getId());
+            assertEquals("эпик, важный", loadedEpic.getName());
+            assertSame(loadedEpic, loadedSubTask.getEpic());
+            assertEquals(Status.DONE, loadedEpic.getStatus());
+            assertEquals(subTask.getEndTime(), loadedEpic.getEndTime());
+            manager2.close();
+        }
+    }
+
+    //Журнал: после превышения порога журнал сворачивается в снимок
+    @Test
+    void journalModeShouldCompactJournalIntoSnapshot() throws IOException {
+        File file = tempDir.resolve("compaction.csv").toFile();
+        StorageOptions options = new StorageOptions();
+        options.setMode(PersistenceMode.JOURNAL);
+        options.setCompactionThreshold(64);
+
+        FileBackedTaskManager manager1 = new FileBackedTaskManager(file, options);
+        for (int i = 0; i < 50; i++) {
+            manager1.createTask(new Task("task" + i, "desc", Status.NEW));
+        }
+        manager1.close();
+
+        assertTrue(Files.readAllLines(file.toPath()).size() > 2);
+        assertFalse(new File(file.getPath() + ".journal.old").exists());
+
+        FileBackedTaskManager manager2 = FileBackedTaskManager.loadFromFile(file);
+        assertEquals(50, manager2.getTasks().size());
+    }
+
+    //Ручная запись: изменения попадают в файл только после flush()
+    @Test
+    void manualDurabilityShouldWriteOnlyOnFlush() {
+        File file = tempDir.resolve("manual.csv").toFile();
+        StorageOptions options = new StorageOptions();
+        options.setDurability(DurabilityPolicy.manual());
+
+        FileBackedTaskManager manager1 = new FileBackedTaskManager(file, options);
+        for (int i = 0; i < 100; i++) {
+            manager1.createTask(new Task("task" + i, "desc", Status.NEW));
+        }
+        assertFalse(file.exists());
+
+        manager1.flush();
+        assertEquals(100, FileBackedTaskManager.loadFromFile(file).getTasks().size());
+        manager1.close();
+    }
+
+    //Групповая запись: фоновый поток пишет пачками, close() дописывает остаток
+    @Test
+    void groupCommitShouldPersistAllChangesAfterClose() {
+        File file = tempDir.resolve("group.csv").toFile();
+        StorageOptions options = new StorageOptions();
+        options.setMode(PersistenceMode.JOURNAL);
+        options.setDurability(DurabilityPolicy.groupCommit(16, 5));
+
+        FileBackedTaskManager manager1 = new FileBackedTaskManager(file, options);
+        Epic epic1 = new Epic("epic1", "desc", Status.NEW);
+        manager1.createEpic(epic1);
+        for (int i = 0; i < 1000; i++) {
+            manager1.createSubTask(new SubTask(epic1, "sub" + i, "desc", Status.DONE));
+        }
+        manager1.close();
+
+        FileBackedTaskManager manager2 = FileBackedTaskManager.loadFromFile(file);
+        assertEquals(1000, manager2.getSubTasks().size());
+        assertEquals(Status.DONE, manager2.getEpics().get(0).getStatus());
+    }
+
+    //Чтение истории не пишет на диск, изменения истории сохраняются фоновым потоком
+    @Test
+    void getHistoryShouldNotWriteToDisk() throws Exception {
+        File file = tempDir.resolve("history.csv").toFile();
+        StorageOptions options = new StorageOptions();
+        options.setHistoryFlushMillis(10);
+
+        FileBackedTaskManager manager1 = new FileBackedTaskManager(file, options);
+        Task task1 = new Task("task1", "desc1", Status.NEW);
+        manager1.createTask(task1);
+        long modified = file.lastModified();
+        String content = Files.readString(file.toPath());
+
+        manager1.getIdTask(task1.getId());
+        manager1.getHistory();
+        assertEquals(content, Files.readString(file.toPath()));
+        assertEquals(modified, file.lastModified());
+
+        File historyFile = new File(file.getPath() + ".history");
+        for (int i = 0; i < 100 && !historyFile.exists(); i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(String.valueOf(task1.getId()), Files.readString(historyFile.toPath()));
+
+        FileBackedTaskManager manager2 = FileBackedTaskManager.loadFromFile(file);
+        assertEquals(1, manager2.getHistory().size());
+        manager1.close();
+    }
+
+    //Двоичный снимок хранит время задач и запятые в названиях, загрузка сама узнаёт формат
+    @Test
+    void binarySnapshotShouldKeepTimeAndCommas() {
+        File file = tempDir.resolve("tasks.bin").toFile();
+        StorageOptions options = new StorageOptions();
+        options.setFormat(SnapshotFormat.BINARY);
+
+        FileBackedTaskManager manager1 = new FileBackedTaskManager(file, options);
+        Task task = new Task("купить хлеб, молоко", "в магазине, у дома", Status.IN_Progress);
+        task.setStartTime(LocalDateTime.of(2024, 3, 1, 10, 0));
+        task.setDuration(Duration.ofMinutes(90));
+        Epic epic = new Epic("epic", null, Status.NEW);
+        manager1.createTask(task);
+        manager1.createEpic(epic);
+        manager1.createSubTask(new SubTask(epic, "subTask", "desc", Status.DONE));
+        manager1.close();
+
+        FileBackedTaskManager manager2 = FileBackedTaskManager.loadFromFile(file);
+        Task loaded = manager2.getIdTask(task.getId());
+        assertEquals("купить хлеб, молоко", loaded.getName());
+        assertEquals("в магазине, у дома", loaded.getDescription());
+        assertEquals(Status.IN_Progress, loaded.getStatus());
+        assertEquals(task.getStartTime(), loaded.getStartTime());
+        assertEquals(task.getDuration(), loaded.getDuration());
+        assertNull(manager2.getIdEpic(epic.getId()).getDescription());
+        assertEquals(Status.DONE, manager2.getIdEpic(epic.getId()).getStatus());
+        assertEquals(1, manager2.getIdEpic(epic.getId()).getSubTasks().size());
+    }
+
+    //CSV -> BINARY -> CSV даёт тот же файл
+    @Test
+    void snapshotConverterShouldRoundTrip() throws IOException {
+        File csv = tempDir.resolve("tasks.csv").toFile();
+        File binary = tempDir.resolve("tasks.bin").toFile();
+        File back = tempDir.resolve("back.csv").toFile();
+
+        FileBackedTaskManager manager = new FileBackedTaskManager(csv);
+        Epic epic = new Epic("epic", "desc", Status.NEW);
+        manager.createTask(new Task("task", "desc", Status.NEW));
+        manager.createEpic(epic);
+        manager.createSubTask(new SubTask(epic, "subTask", "desc", Status.IN_Progress));
+        manager.close();
+
+        SnapshotConverter.convert(csv, binary, SnapshotFormat.BINARY);
+        SnapshotConverter.convert(binary, back, SnapshotFormat.CSV);
+
+        assertTrue(Files.readString(binary.toPath(), StandardCharsets.ISO_8859_1).startsWith("TMSB"));
+        assertEquals(Files.readString(csv.toPath()), Files.readString(back.toPath()));
+        assertEquals(Status.IN_Progress, FileBackedTaskManager.loadFromFile(binary).getEpics().get(0).getStatus());
+    }
+
+    //Конвертер связывает подзадачу с эпиком, стоящим после неё, и не пишет в CSV то, что CSV не может хранить
+    @Test
+    void snapshotConverterShouldLinkLateEpicAndRejectLossyCsv() throws IOException {
+        File csv = tempDir.resolve("order.csv").toFile();
+        File binary = tempDir.resolve("order.bin").toFile();
+        File back = tempDir.resolve("back.csv").toFile();
+        Files.writeString(csv.toPath(), """
+            id,type,name,status,description,epic
+            2,SUBTASK,SubTask,DONE,Description,1
+            1,EPIC,Epic,NEW,Description,
+            """);
+
+        SnapshotConverter.convert(csv, binary, SnapshotFormat.BINARY);
+        SnapshotConverter.convert(binary, back, SnapshotFormat.CSV);
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(back);
+        assertSame(loaded.getIdEpic(1), loaded.getIdSubtask(2).getEpic());
+
+        File commas = tempDir.resolve("commas.bin").toFile();
+        StorageOptions options = new StorageOptions();
+        options.setFormat(SnapshotFormat.BINARY);
+        FileBackedTaskManager manager = new FileBackedTaskManager(commas, options);
+        manager.createTask(new Task("a, b", "desc", Status.NEW));
+        manager.close();
+        assertThrows(ManagerIOException.class, () -> SnapshotConverter.convert(commas, back, SnapshotFormat.CSV));
+
+        File timed = tempDir.resolve("timed.bin").toFile();
+        manager = new FileBackedTaskManager(timed, options);
+        Task task = new Task("task", "desc", Status.NEW);
+        task.setStartTime(LocalDateTime.of(2024, 1, 1, 10, 0));
+        task.setDuration(Duration.ofMinutes(30));
+        manager.createTask(task);
+        manager.close();
+        assertThrows(ManagerIOException.class, () -> SnapshotConverter.convert(timed, back, SnapshotFormat.CSV));
+        //неудачная конвертация не портит уже записанный файл
+        assertEquals(1, FileBackedTaskManager.loadFromFile(back).getSubTasks().size());
+    }
+
+    //Чтение окном меньше строки файла: строки и записи собираются из нескольких подгрузок, CRLF тоже понимается
+    @Test
+    void snapshotReadersShouldWorkWithSmallWindow() throws IOException {
+        Epic epic = new Epic("эпик с длинным названием", "описание", Status.NEW);
+        epic.setId(1);
+        SubTask subTask = new SubTask(epic, "подзадача", "описание подзадачи", 2, Status.DONE);
+        Task task = new Task("задача", "описание задачи", Status.IN_Progress);
+        task.setId(3);
+
+        for (SnapshotFormat format : SnapshotFormat.values()) {
+            byte[] bytes = FileBackedTaskManager.snapshot(format, List.of(task), List.of(epic), List.of(subTask), List.of(3, 1));
+            if (format == SnapshotFormat.CSV) {
+                bytes = new String(bytes, StandardCharsets.UTF_8).replace(System.lineSeparator(), "\r\n")
+                        .getBytes(StandardCharsets.UTF_8);
+            }
+            SnapshotInput input = new SnapshotInput(Channels.newChannel(new ByteArrayInputStream(bytes)), 4);
+            List<AbstractTask> loaded = new ArrayList<>();
+            Map<Integer, Epic> epics = new HashMap<>();
+            IntFunction<Epic> lookup = epics::get;
+            Consumer<AbstractTask> sink = t -> {
+                loaded.add(t);
+                if (t instanceof Epic e) {
+                    epics.put(e.getId(), e);
+                }
+            };
+
+            List<Integer> history = (BinarySnapshot.isBinary(input)
+                    ? BinarySnapshot.read(input, false, lookup, sink)
+                    : CsvSnapshotReader.read(input, false, lookup, sink)).history();
+
+            assertEquals(List.of(3, 1), history, format.name());
+            assertEquals(3, loaded.size());
+            assertEquals("описание задачи", loaded.get(0).getDescription());
+            assertEquals("эпик с длинным названием", loaded.get(1).getName());
+            assertSame(loaded.get(1), ((SubTask) loaded.get(2)).getEpic());
+            assertEquals(Status.DONE, loaded.get(2).getStatus());
+        }
+    }
+
+    //Параллельная загрузка мелкими кусками даёт то же состояние, что и загрузка в один поток
+    @Test
+    void parallelLoadShouldMatchSequentialLoad() {
+        File file = tempDir.resolve("parallel.csv").toFile();
+        StorageOptions options = new StorageOptions();
+        options.setDurability(DurabilityPolicy.manual());
+        FileBackedTaskManager manager = new FileBackedTaskManager(file, options);
+        Epic epic = null;
+        for (int i = 0; i < 500; i++) {
+            if (i % 7 == 0) {
+                epic = new Epic("epic" + i, "desc", Status.NEW);
+                manager.createEpic(epic);
+            } else {
+                manager.createSubTask(new SubTask(epic, "subTask" + i, "desc", i % 3 == 0 ? Status.DONE : Status.NEW));
+            }
+        }
+        manager.getIdEpic(epic.getId());
+        manager.close();
+
+        StorageOptions parallel = new StorageOptions();
+        parallel.setRestoreParallelism(4);
+        StorageOptions sequential = new StorageOptions();
+        sequential.setRestoreParallelism(1);
+        FileBackedTaskManager expected = FileBackedTaskManager.loadFromFile(file, sequential, 1 << 20);
+        FileBackedTaskManager actual = FileBackedTaskManager.loadFromFile(file, parallel, 256);
+
+        assertEquals(expected.getSubTasks().size(), actual.getSubTasks().size());
+        assertEquals(expected.getHistory().get(0).getId(), actual.getHistory().get(0).getId());
+        for (Epic e : expected.getEpics()) {
+            Epic loaded = actual.getIdEpic(e.getId());
+            assertEquals(e.getStatus(), loaded.getStatus());
+            assertEquals(e.getSubTasks().keySet(), loaded.getSubTasks().keySet());
+        }
+        assertEquals(expected.search("subtask1*", 1000).stream().map(AbstractTask::getId).toList(),
+                actual.search("subtask1*", 1000).stream().map(AbstractTask::getId).toList());
+        assertEquals(1, actual.search("epic7", 10).size());
+        for (Status status : Status.values()) {
+            assertEquals(expected.count(Type.EPIC, status), actual.count(Type.EPIC, status));
+            assertEquals(actual.getSubTasks().stream().filter(t -> t.getStatus() == status).count(),
+                    actual.count(Type.SUBTASK, status));
+        }
+    }
+
+    //Подзадача, записанная раньше своего эпика, всё равно к нему привязывается
+    @Test
+    void loadFromFileShouldLinkSubTaskBeforeEpic() throws IOException {
+        File file = tempDir.resolve("order.csv").toFile();
+        Files.writeString(file.toPath(), """
+            id,type,name,status,description,epic
+            2,SUBTASK,SubTask,DONE,Description,1
+            1,EPIC,Epic,NEW,Description,
+            """);
+
+        FileBackedTaskManager manager = FileBackedTaskManager.loadFromFile(file);
+        Epic epic = manager.getIdEpic(1);
+
+        assertSame(epic, manager.getIdSubtask(2).getEpic());
+        assertEquals(Status.DONE, epic.getStatus());
+    }
+
+    //Испорченная запись CSV-снимка: обычная загрузка падает, режим восстановления пропускает только её
+    @Test
+    void corruptedCsvRecordShouldFailOrBeSkippedInRecoveryMode() throws IOException {
+        File file = tempDir.resolve("corrupted.csv").toFile();
+        FileBackedTaskManager manager = new FileBackedTaskManager(file);
+        manager.createTask(new Task("first", "desc", Status.NEW));
+        manager.createTask(new Task("second", "desc", Status.NEW));
+        manager.getIdTask(2);
+        manager.close();
+        Files.writeString(file.toPath(), Files.readString(file.toPath()).replace("first", "fixed"));
+
+        assertThrows(SnapshotCorruptedException.class, () -> FileBackedTaskManager.loadFromFile(file));
+
+        StorageOptions options = new StorageOptions();
+        options.setRecoveryMode(true);
+        FileBackedTaskManager recovered = FileBackedTaskManager.loadFromFile(file, options);
+        assertEquals(1, recovered.getCorruptRecords());
+        assertEquals(List.of(2), recovered.getTasks().stream().map(Task::getId).toList());
+        assertEquals(2, recovered.getHistory().get(0).getId());
+    }
+
+    //Оборванный снимок любого формата: обычная загрузка падает, режим восстановления поднимает уцелевшие задачи
+    @Test
+    void tornSnapshotShouldBeSalvagedInRecoveryMode() throws IOException {
+        for (SnapshotFormat format : SnapshotFormat.values()) {
+            File file = tempDir.resolve("torn." + format).toFile();
+            StorageOptions options = new StorageOptions();
+            options.setFormat(format);
+            FileBackedTaskManager manager = new FileBackedTaskManager(file, options);
+            for (int i = 0; i < 10; i++) {
+                manager.createTask(new Task("task" + i, "desc", Status.NEW));
+            }
+            manager.close();
+            byte[] bytes = Files.readAllBytes(file.toPath());
+            Files.write(file.toPath(), Arrays.copyOf(bytes, bytes.length * 2 / 3));
+
+            assertThrows(SnapshotCorruptedException.class, () -> FileBackedTaskManager.loadFromFile(file, options),
+                    format.name());
+
+            options.setRecoveryMode(true);
+            List<Task> tasks = FileBackedTaskManager.loadFromFile(file, options).getTasks();
+            assertFalse(tasks.isEmpty(), format.name());
+            assertTrue(tasks.size() < 10, format.name());
+            for (Task task : tasks) {
+                assertEquals("task" + (task.getId() - 1), task.getName());
+            }
+        }
+    }
+
+    //В режиме SEGMENTED изменение задачи переписывает только её сегмент, а загрузка собирает все сегменты по манифесту
+    @Test
+    void segmentedModeShouldRewriteOnlyChangedSegment() {
+        File file = tempDir.resolve("segments.csv").toFile();
+        StorageOptions options = new StorageOptions();
+        options.setMode(PersistenceMode.SEGMENTED);
+        options.setSegmentSize(4);
+        FileBackedTaskManager manager = new FileBackedTaskManager(file, options);
+        Epic epic = new Epic("epic", "desc", Status.NEW);
+        manager.createEpic(epic);
+        for (int i = 0; i < 9; i++) {
+            manager.createSubTask(new SubTask(epic, "subTask" + i, "desc", Status.NEW));
+        }
+        List<String> before = segmentFiles(file);
+
+        SubTask changed = new SubTask(epic, "changed", "desc", 6, Status.DONE);
+        manager.updateSubTask(changed);
+        List<String> after = segmentFiles(file);
+        manager.close();
+
+        assertEquals(3, before.size());
+        //страница с id 5..8 и страница эпика получили новые файлы, страница с id 9..10 осталась прежней
+        assertEquals(before.get(2), after.get(2));
+        assertNotEquals(before.get(0), after.get(0));
+        assertNotEquals(before.get(1), after.get(1));
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(file, options);
+        assertEquals(9, loaded.getSubTasks().size());
+        assertEquals("changed", loaded.getIdSubtask(6).getName());
+        assertEquals(Status.IN_Progress, loaded.getIdEpic(1).getStatus());
+        assertSame(loaded.getIdEpic(1), loaded.getIdSubtask(10).getEpic());
+    }
+
+    //Пакет сохраняется одним проходом в конце, в том числе откат неудачного пакета
+    @Test
+    void batchShouldPersistWholeBatchOnce() {
+        for (PersistenceMode mode : PersistenceMode.values()) {
+            File file = tempDir.resolve("batch-" + mode + ".csv").toFile();
+            StorageOptions options = new StorageOptions();
+            options.setMode(mode);
+            FileBackedTaskManager manager = new FileBackedTaskManager(file, options);
+            List<AbstractTask> batch = new ArrayList<>();
+            Epic epic = new Epic("epic", "desc", Status.NEW);
+            batch.add(epic);
+            for (int i = 0; i < 1000; i++) {
+                batch.add(new SubTask(epic, "subTask" + i, "desc", Status.DONE));
+            }
+            manager.createAll(batch);
+            Epic missing = new Epic("missing", "desc", Status.NEW);
+            missing.setId(5000);
+            assertThrows(RuntimeException.class, () -> manager.createAll(List.of(
+                    new Task("rolled back", "desc", Status.NEW), new SubTask(missing, "invalid", "desc", Status.NEW))));
+            manager.close();
+
+            FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(file, options);
+            assertEquals(1000, loaded.getSubTasks().size(), mode.name());
+            assertTrue(loaded.getTasks().isEmpty(), mode.name());
+            assertEquals(Status.DONE, loaded.getIdEpic(epic.getId()).getStatus(), mode.name());
+        }
+    }
+
+    private static List<String> segmentFiles(File manifest) {
+        String[] names = manifest.getParentFile().list((dir, name) -> name.startsWith(manifest.getName() + ".seg"));
+        return Arrays.stream(names).sorted().toList();
+    }
+}
@@ -1,12 +1,23 @@
 package manager;
 
+import events.ChangeType;
+import events.Subscription;
+import events.TaskEvent;
 import exceptions.HistoryIsEmpty;
 import exceptions.TaskNotExistsException;
+import exceptions.TaskTimeOverlapException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import task.*;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Random;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -47,6 +58,25 @@ abstract class TaskManagerTest<T extends TaskManager> {
         assertEquals(subTask, createdSubTask);
         assertEquals(epic.getId(), createdSubTask.getEpic().getId());
     }
+    //getById сам определяет тип и записывает просмотр в историю
+    @Test
+    void getByIdShouldReturnAnyTypeAndAddToHistory() {
+        assertEquals(task, taskManager.getById(task.getId()));
+        assertEquals(epic, taskManager.getById(epic.getId()));
+        assertEquals(subTask, taskManager.getById(subTask.getId()));
+
+        assertEquals(List.of(task, epic, subTask), taskManager.getHistory());
+        assertThrows(TaskNotExistsException.class, () -> taskManager.getById(999));
+    }
+    //удаление эпика через deleteById убирает и его подзадачи из индекса id
+    @Test
+    void deleteByIdShouldRemoveEpicWithSubTasks() {
+        assertEquals(epic, taskManager.deleteById(epic.getId()));
+
+        assertThrows(TaskNotExistsException.class, () -> taskManager.getById(subTask.getId()));
+        assertEquals(task, taskManager.deleteById(task.getId()));
+        assertThrows(TaskNotExistsException.class, () -> taskManager.deleteById(task.getId()));
+    }
 
     //НЕПРАВИЛЬНЫЙ ID
     @Test
@@ -187,4 +217,338 @@ abstract class TaskManagerTest<T extends TaskManager> {
         List<AbstractTask> history = taskManager.getHistory();
         assertEquals(1, history.size());
     }
-}
\ No newline at end of file
+
+    //ПРИОРИТЕТНЫЙ СПИСОК
+    @Test
+    void getPrioritizedTasksShouldSortByStartTime() {
+        LocalDateTime base = LocalDateTime.of(2025, 1, 1, 10, 0);
+        Task late = new Task("Late", "Description", Status.NEW);
+        late.setStartTime(base.plusHours(3));
+        late.setDuration(Duration.ofMinutes(10));
+        Task early = new Task("Early", "Description", Status.NEW);
+        early.setStartTime(base);
+        early.setDuration(Duration.ofMinutes(10));
+        SubTask middle = new SubTask(epic, "Middle", "Description", Status.NEW);
+        middle.setStartTime(base.plusHours(1));
+        middle.setDuration(Duration.ofMinutes(10));
+
+        taskManager.createTask(late);
+        taskManager.createTask(early);
+        taskManager.createSubTask(middle);
+
+        assertEquals(List.of(early, middle, late), taskManager.getPrioritizedTasks());
+        assertEquals(List.of(middle), taskManager.getPrioritizedTasks(base.plusMinutes(1), 1));
+    }
+    @Test
+    void getPrioritizedTasksShouldFollowUpdatesAndDeletes() {
+        LocalDateTime base = LocalDateTime.of(2025, 1, 1, 10, 0);
+        Task first = new Task("First", "Description", Status.NEW);
+        first.setStartTime(base);
+        first.setDuration(Duration.ofMinutes(10));
+        Task second = new Task("Second", "Description", Status.NEW);
+        second.setStartTime(base.plusHours(1));
+        second.setDuration(Duration.ofMinutes(10));
+        taskManager.createTask(first);
+        taskManager.createTask(second);
+
+        //перенос задачи на месте и обновление
+        first.setStartTime(base.plusHours(2));
+        taskManager.updateTask(first);
+        assertEquals(List.of(second, first), taskManager.getPrioritizedTasks());
+
+        taskManager.deleteTaskById(second.getId());
+        assertEquals(List.of(first), taskManager.getPrioritizedTasks());
+        assertTrue(taskManager.getPrioritizedTasks(base.plusHours(3), 10).isEmpty());
+    }
+
+    //ПЕРЕСЕЧЕНИЕ ПО ВРЕМЕНИ
+    private Task timedTask(String name, LocalDateTime start, int minutes) {
+        Task t = new Task(name, "Description", Status.NEW);
+        t.setStartTime(start);
+        t.setDuration(Duration.ofMinutes(minutes));
+        return t;
+    }
+    @Test
+    void createTaskShouldRejectOverlappingTask() {
+        LocalDateTime base = LocalDateTime.of(2025, 1, 1, 10, 0);
+        taskManager.createTask(timedTask("First", base, 60));
+
+        assertThrows(TaskTimeOverlapException.class,
+                () -> taskManager.createTask(timedTask("Inside", base.plusMinutes(30), 10)));
+        assertThrows(TaskTimeOverlapException.class,
+                () -> taskManager.createTask(timedTask("Covering", base.minusMinutes(10), 120)));
+
+        SubTask overlapping = new SubTask(epic, "Sub", "Description", Status.NEW);
+        overlapping.setStartTime(base.minusMinutes(30));
+        overlapping.setDuration(Duration.ofMinutes(31));
+        assertThrows(TaskTimeOverlapException.class, () -> taskManager.createSubTask(overlapping));
+
+        //впритык - не пересечение
+        assertTrue(taskManager.createTask(timedTask("After", base.plusMinutes(60), 10)));
+        assertEquals(2, taskManager.getPrioritizedTasks().size());
+    }
+    @Test
+    void updateTaskShouldCheckOverlapExceptItself() {
+        LocalDateTime base = LocalDateTime.of(2025, 1, 1, 10, 0);
+        Task first = timedTask("First", base, 60);
+        Task second = timedTask("Second", base.plusHours(2), 60);
+        taskManager.createTask(first);
+        taskManager.createTask(second);
+
+        first.setDuration(Duration.ofMinutes(90));
+        assertTrue(taskManager.updateTask(first));
+
+        Task moved = timedTask("Moved", base.plusMinutes(150), 10);
+        moved.setId(first.getId());
+        assertThrows(TaskTimeOverlapException.class, () -> taskManager.updateTask(moved));
+    }
+    @Test
+    void getOverlappingTasksShouldReturnTasksInWindow() {
+        LocalDateTime base = LocalDateTime.of(2025, 1, 1, 10, 0);
+        Task first = timedTask("First", base, 60);
+        Task second = timedTask("Second", base.plusHours(2), 60);
+        Task third = timedTask("Third", base.plusHours(4), 60);
+        taskManager.createTask(first);
+        taskManager.createTask(second);
+        taskManager.createTask(third);
+
+        assertEquals(List.of(first, second), taskManager.getOverlappingTasks(base.plusMinutes(30), base.plusHours(2).plusMinutes(1)));
+        assertEquals(List.of(third), taskManager.getOverlappingTasks(base.plusHours(5).minusMinutes(1), base.plusHours(6)));
+        assertTrue(taskManager.getOverlappingTasks(base.plusHours(1), base.plusHours(2)).isEmpty());
+    }
+
+    //ПРЕДСТАВЛЕНИЯ БЕЗ КОПИРОВАНИЯ
+    @Test
+    void viewTasksShouldBeLiveAndReadOnly() {
+        Collection<Task> view = taskManager.viewTasks();
+        assertEquals(1, view.size());
+
+        taskManager.createTask(new Task("Second", "Description", Status.NEW));
+        assertEquals(2, view.size());
+        assertThrows(UnsupportedOperationException.class, () -> view.remove(task));
+        assertEquals(1, taskManager.viewSubTasksInEpic(epic).size());
+    }
+    @Test
+    void getTasksWithPageShouldReturnOnlyPage() {
+        for (int i = 0; i < 9; i++) {
+            taskManager.createTask(new Task("Task" + i, "Description", Status.NEW));
+        }
+        List<Task> all = taskManager.getTasks();
+
+        assertEquals(all.subList(0, 4), taskManager.getTasks(0, 4));
+        assertEquals(all.subList(8, 10), taskManager.getTasks(8, 4));
+        assertTrue(taskManager.getTasks(20, 4).isEmpty());
+    }
+    @Test
+    void forEachInHistoryShouldVisitInOrder() {
+        taskManager.getIdTask(task.getId());
+        taskManager.getIdEpic(epic.getId());
+
+        List<AbstractTask> visited = new ArrayList<>();
+        taskManager.forEachInHistory(visited::add);
+        assertEquals(List.of(task, epic), visited);
+    }
+
+    //ПАКЕТЫ
+    //эпик и его подзадачи создаются одним пакетом, статус эпика считается в конце пакета
+    @Test
+    void createAllShouldCreateEpicWithSubTasks() {
+        Epic batchEpic = new Epic("BatchEpic", "Description", Status.NEW);
+        SubTask first = new SubTask(batchEpic, "First", "Description", 0, Status.DONE);
+        SubTask second = new SubTask(batchEpic, "Second", "Description", 0, Status.DONE);
+
+        taskManager.createAll(List.of(batchEpic, first, second));
+
+        assertEquals(Status.DONE, taskManager.getIdEpic(batchEpic.getId()).getStatus());
+        assertEquals(2, taskManager.returnSubTasksInEpic(batchEpic).size());
+    }
+    //ошибка в середине пакета откатывает уже созданные задачи пакета
+    @Test
+    void createAllShouldRollBackOnInvalidTask() {
+        Epic missing = new Epic("Missing", "Description", Status.NEW);
+        missing.setId(999);
+        Task created = new Task("Created", "Description", Status.NEW);
+        SubTask invalid = new SubTask(missing, "Invalid", "Description", 0, Status.NEW);
+
+        assertThrows(RuntimeException.class, () -> taskManager.createAll(List.of(created, invalid)));
+
+        assertEquals(List.of(task), taskManager.getTasks());
+        assertEquals(1, taskManager.getSubTasks().size());
+    }
+    @Test
+    void updateAllShouldRollBackWhenTaskIsMissing() {
+        Task updated = new Task("Updated", "Description", Status.DONE);
+        updated.setId(task.getId());
+        Task missing = new Task("Missing", "Description", Status.NEW);
+        missing.setId(999);
+
+        assertThrows(TaskNotExistsException.class, () -> taskManager.updateAll(List.of(updated, missing)));
+        assertSame(task, taskManager.getIdTask(task.getId()));
+
+        SubTask done = new SubTask(epic, "Done", "Description", subTask.getId(), Status.DONE);
+        taskManager.updateAll(List.of(updated, done));
+        assertSame(updated, taskManager.getIdTask(task.getId()));
+        assertEquals(Status.DONE, taskManager.getIdEpic(epic.getId()).getStatus());
+    }
+    //подзадача, удалённая вместе с эпиком, пропускается; несуществующий id отклоняет весь пакет
+    @Test
+    void deleteAllByIdShouldValidateBeforeDeleting() {
+        assertThrows(TaskNotExistsException.class, () -> taskManager.deleteAllById(List.of(task.getId(), 999)));
+        assertEquals(1, taskManager.getTasks().size());
+
+        List<AbstractTask> removed = taskManager.deleteAllById(List.of(epic.getId(), subTask.getId(), task.getId()));
+
+        assertEquals(List.of(epic, task), removed);
+        assertTrue(taskManager.getTasks().isEmpty());
+        assertTrue(taskManager.getSubTasks().isEmpty());
+    }
+
+    //ИНДЕКС СТАТУСОВ
+    //индекс следует за созданием, обновлением, удалением и пересчётом статуса эпика
+    @Test
+    void statusIndexShouldFollowChanges() {
+        assertEquals(List.of(task), taskManager.getTasks(Status.NEW));
+        assertEquals(1, taskManager.count(Type.EPIC, Status.NEW));
+
+        SubTask done = new SubTask(epic, "Done", "Description", subTask.getId(), Status.DONE);
+        taskManager.updateSubTask(done);
+        assertEquals(List.of(done), taskManager.getSubTasks(Status.DONE));
+        assertEquals(List.of(epic), taskManager.getEpics(Status.DONE));
+        assertEquals(0, taskManager.count(Type.SUBTASK, Status.NEW));
+
+        taskManager.createSubTask(new SubTask(epic, "Second", "Description", Status.IN_Progress));
+        assertEquals(1, taskManager.count(Type.EPIC, Status.IN_Progress));
+        assertEquals(2, taskManager.count(Type.SUBTASK));
+
+        taskManager.deleteAllSubTasks();
+        assertEquals(0, taskManager.count(Type.SUBTASK));
+        assertEquals(List.of(epic), taskManager.getEpics(Status.NEW));
+
+        taskManager.deleteTaskById(task.getId());
+        assertTrue(taskManager.getTasks(Status.NEW).isEmpty());
+    }
+    //после случайных изменений индекс совпадает с фильтрацией полных списков
+    @Test
+    void statusIndexShouldMatchFilteredLists() {
+        Random random = new Random(42);
+        Status[] values = Status.values();
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            int action = random.nextInt(4);
+            if (action == 0 || ids.isEmpty()) {
+                Task created = new Task("Task" + i, "Description", values[random.nextInt(values.length)]);
+                taskManager.createTask(created);
+                ids.add(created.getId());
+            } else if (action == 1) {
+                SubTask created = new SubTask(epic, "SubTask" + i, "Description", values[random.nextInt(values.length)]);
+                taskManager.createSubTask(created);
+                ids.add(created.getId());
+            } else {
+                int id = ids.get(random.nextInt(ids.size()));
+                AbstractTask old = taskManager.getById(id);
+                if (action == 2 && old instanceof Task) {
+                    Task updated = new Task("Updated", "Description", values[random.nextInt(values.length)]);
+                    updated.setId(id);
+                    taskManager.updateTask(updated);
+                } else if (action == 3) {
+                    taskManager.deleteById(id);
+                    ids.remove(Integer.valueOf(id));
+                }
+            }
+        }
+        for (Status status : values) {
+            assertEquals(taskManager.getTasks().stream().filter(t -> t.getStatus() == status).count(),
+                    taskManager.getTasks(status).size());
+            assertEquals(new HashSet<>(taskManager.getSubTasks().stream().filter(t -> t.getStatus() == status).toList()),
+                    new HashSet<>(taskManager.getSubTasks(status)));
+            assertEquals(taskManager.getEpics().stream().filter(t -> t.getStatus() == status).count(),
+                    taskManager.count(Type.EPIC, status));
+        }
+    }
+
+    //ПОИСК
+    //слово, префикс, AND и OR; совпадение в названии весит больше, чем в описании
+    @Test
+    void searchShouldSupportTermsPrefixesAndRanking() {
+        Task report = new Task("Квартальный отчёт", "Собрать цифры продаж", Status.NEW);
+        Task sales = new Task("Звонок клиенту", "Обсудить отчёт и продажи", Status.NEW);
+        taskManager.createTask(report);
+        taskManager.createTask(sales);
+
+        assertEquals(List.of(report, sales), taskManager.search("ОТЧЁТ", 10));
+        assertEquals(List.of(sales), taskManager.search("отчёт обсудить", 10));
+        assertEquals(List.of(report, sales), taskManager.search("продаж*", 10));
+        assertEquals(List.of(report, sales), taskManager.search("квартальный OR звонок", 10));
+        assertEquals(List.of(report), taskManager.search("отчёт", 1));
+        assertTrue(taskManager.search("нет-такого", 10).isEmpty());
+    }
+    //индекс слов следует за обновлением и удалением
+    @Test
+    void searchShouldFollowUpdatesAndDeletes() {
+        Task renamed = new Task("Renamed", "Description", Status.NEW);
+        renamed.setId(task.getId());
+        taskManager.updateTask(renamed);
+
+        assertEquals(List.of(renamed), taskManager.search("renamed", 10));
+        assertTrue(taskManager.search("testtask", 10).isEmpty());
+        assertEquals(List.of(epic, subTask), taskManager.search("test*", 10));
+
+        taskManager.deleteEpicById(epic.getId());
+        assertEquals(List.of(renamed), taskManager.search("description", 10));
+    }
+
+    //удаления, возврат слова к старой задаче и смена веса слова при частом слове в индексе
+    @Test
+    void searchShouldSurviveManyDeletesAndReinserts() {
+        List<Task> created = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            Task each = new Task("common", "item" + i, Status.NEW);
+            taskManager.createTask(each);
+            created.add(each);
+        }
+        for (int i = 0; i < 100; i += 2) {
+            Task renamed = new Task("other", "item" + i, Status.NEW);
+            renamed.setId(created.get(i).getId());
+            taskManager.updateTask(renamed);
+        }
+        assertEquals(50, taskManager.search("common", 1000).size());
+
+        Task back = new Task("common", "item0", Status.NEW);
+        back.setId(created.get(0).getId());
+        taskManager.updateTask(back);
+        //слово из названия весит больше, чем то же слово из описания
+        Task heavier = new Task("common", "common", Status.NEW);
+        heavier.setId(created.get(1).getId());
+        taskManager.updateTask(heavier);
+
+        List<AbstractTask> found = taskManager.search("common", 1000);
+        assertEquals(51, found.size());
+        assertEquals(heavier, found.get(0));
+        assertTrue(found.contains(back));
+        assertEquals(List.of(created.get(2).getId()),
+                taskManager.search("other item2", 10).stream().map(AbstractTask::getId).toList());
+    }
+
+    //СОБЫТИЯ
+    //изменения и пересчитанный статус эпика приходят подписчику по порядку
+    @Test
+    void subscriberShouldReceiveChangesAndDerivedEpicStatus() {
+        List<TaskEvent> events = Collections.synchronizedList(new ArrayList<>());
+        Subscription subscription = taskManager.subscribe(events::addAll, 8);
+
+        taskManager.updateSubTask(new SubTask(epic, "TestSubTask", "Description", subTask.getId(), Status.DONE));
+        taskManager.deleteTaskById(task.getId());
+        taskManager.deleteEpicById(epic.getId());
+        subscription.close();
+
+        assertEquals(List.of(ChangeType.UPDATED, ChangeType.STATUS_CHANGED, ChangeType.DELETED,
+                ChangeType.DELETED, ChangeType.DELETED), events.stream().map(TaskEvent::change).toList());
+        assertEquals(Status.NEW, events.get(0).previous());
+        assertEquals(Status.DONE, events.get(0).status());
+        assertEquals(epic.getId(), events.get(1).id());
+        assertEquals(Status.DONE, events.get(1).status());
+        assertEquals(Type.TASK, events.get(2).type());
+        assertEquals(subTask.getId(), events.get(3).id());
+        assertEquals(Type.EPIC, events.get(4).type());
+    }
+}
@@ -4,6 +4,10 @@ import manager.InMemoryTaskManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class EpicTest {
@@ -81,4 +85,131 @@ class EpicTest {
 
         assertEquals(Status.IN_Progress, taskManager.getIdEpic(epic.getId()).getStatus());
     }
-}
\ No newline at end of file
+
+    //статус пересчитывается, если подзадачу изменили на месте и передали в updateSubTask
+    @Test
+    void updateSubTaskShouldRecountStatusAfterInPlaceChange() {
+        Epic epic = new Epic("Test epic", "Test description", Status.NEW);
+        taskManager.createEpic(epic);
+
+        SubTask subTask1 = new SubTask(epic, "Test", "Desc", Status.NEW);
+        SubTask subTask2 = new SubTask(epic, "Test", "Desc", Status.DONE);
+        taskManager.createSubTask(subTask1);
+        taskManager.createSubTask(subTask2);
+        assertEquals(Status.IN_Progress, epic.getStatus());
+
+        subTask1.setStatus(Status.DONE);
+        taskManager.updateSubTask(subTask1);
+
+        assertEquals(Status.DONE, epic.getStatus());
+        assertEquals(2, epic.countSubTasks(Status.DONE));
+        assertEquals(0, epic.countSubTasks(Status.NEW));
+    }
+
+    //подзадача, переехавшая в другой эпик, перестаёт влиять на статус старого
+    @Test
+    void updateSubTaskShouldMoveSubTaskBetweenEpics() {
+        Epic epic1 = new Epic("Epic 1", "Desc", Status.NEW);
+        Epic epic2 = new Epic("Epic 2", "Desc", Status.NEW);
+        taskManager.createEpic(epic1);
+        taskManager.createEpic(epic2);
+
+        SubTask subTask = new SubTask(epic1, "Test", "Desc", Status.IN_Progress);
+        taskManager.createSubTask(subTask);
+        assertEquals(Status.IN_Progress, epic1.getStatus());
+
+        SubTask moved = new SubTask(epic2, "Test", "Desc", subTask.getId(), Status.DONE);
+        taskManager.updateSubTask(moved);
+
+        assertTrue(epic1.getSubTasks().isEmpty());
+        assertEquals(Status.NEW, epic1.getStatus());
+        assertEquals(Status.DONE, epic2.getStatus());
+    }
+
+    //удаление подзадачи уменьшает счётчик её статуса
+    @Test
+    void deleteSubTaskByIdShouldRecountStatus() {
+        Epic epic = new Epic("Test epic", "Test description", Status.NEW);
+        taskManager.createEpic(epic);
+
+        SubTask subTask1 = new SubTask(epic, "Test", "Desc", Status.NEW);
+        SubTask subTask2 = new SubTask(epic, "Test", "Desc", Status.DONE);
+        taskManager.createSubTask(subTask1);
+        taskManager.createSubTask(subTask2);
+
+        taskManager.deleteSubTaskById(subTask1.getId());
+        assertEquals(Status.DONE, epic.getStatus());
+    }
+
+    //начало, конец и длительность эпика считаются по подзадачам и меняются вместе с ними
+    @Test
+    void epicTimeShouldFollowSubTasks() {
+        Epic epic = new Epic("Test epic", "Test description", Status.NEW);
+        taskManager.createEpic(epic);
+        LocalDateTime base = LocalDateTime.of(2025, 1, 1, 10, 0);
+
+        SubTask subTask1 = new SubTask(epic, "Test", "Desc", Status.NEW);
+        subTask1.setStartTime(base);
+        subTask1.setDuration(Duration.ofMinutes(30));
+        SubTask subTask2 = new SubTask(epic, "Test", "Desc", Status.NEW);
+        subTask2.setStartTime(base.plusHours(2));
+        subTask2.setDuration(Duration.ofMinutes(45));
+        taskManager.createSubTask(subTask1);
+        taskManager.createSubTask(subTask2);
+
+        assertEquals(base, epic.getStartTime());
+        assertEquals(base.plusHours(2).plusMinutes(45), epic.getEndTime());
+        assertEquals(Duration.ofMinutes(75), epic.getDuration());
+
+        //перенос первой подзадачи позже второй
+        subTask1.setStartTime(base.plusHours(5));
+        taskManager.updateSubTask(subTask1);
+        assertEquals(base.plusHours(2), epic.getStartTime());
+        assertEquals(base.plusHours(5).plusMinutes(30), epic.getEndTime());
+
+        taskManager.deleteSubTaskById(subTask1.getId());
+        assertEquals(base.plusHours(2), epic.getStartTime());
+        assertEquals(base.plusHours(2).plusMinutes(45), epic.getEndTime());
+        assertEquals(Duration.ofMinutes(45), epic.getDuration());
+    }
+
+    //у эпика без подзадач со временем нет начала и конца
+    @Test
+    void epicTimeShouldBeEmptyWithoutTimedSubTasks() {
+        Epic epic = new Epic("Test epic", "Test description", Status.NEW);
+        taskManager.createEpic(epic);
+        taskManager.createSubTask(new SubTask(epic, "Test", "Desc", Status.NEW));
+
+        assertNull(epic.getStartTime());
+        assertNull(epic.getEndTime());
+        assertEquals(Duration.ZERO, epic.getDuration());
+    }
+
+    //замена подзадач пересчитывает время заново, а не добавляет к старому
+    @Test
+    void setSubTasksShouldRecountTime() {
+        Epic epic = new Epic("Test epic", "Test description", Status.NEW);
+        taskManager.createEpic(epic);
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 10, 0);
+        SubTask subTask = new SubTask(epic, "Test", "Desc", Status.DONE);
+        subTask.setStartTime(start);
+        subTask.setDuration(Duration.ofHours(1));
+        taskManager.createSubTask(subTask);
+
+        epic.setSubTasks(new HashMap<>(epic.getSubTasks()));
+        assertEquals(Duration.ofHours(1), epic.getDuration());
+        assertEquals(start, epic.getStartTime());
+        assertEquals(Status.DONE, epic.calculateStatus());
+
+        epic.setSubTasks(epic.getSubTasks());
+        assertEquals(1, epic.getSubTasks().size());
+        assertEquals(Duration.ofHours(1), epic.getDuration());
+
+        epic.removeSubTask(subTask.getId());
+        assertTrue(epic.getSubTasks().isEmpty());
+        assertNull(epic.getStartTime());
+        assertNull(epic.getEndTime());
+        assertEquals(Duration.ZERO, epic.getDuration());
+        assertEquals(0, epic.countSubTasks(Status.DONE));
+    }
+}
@@ -0,0 +1,47 @@
+package util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntIntMapTest {
+    @Test
+    void putGetRemoveShouldWorkWithZeroKey() {
+        IntIntMap map = new IntIntMap(-1);
+
+        assertEquals(-1, map.get(0));
+        assertEquals(-1, map.put(0, 5));
+        assertEquals(5, map.get(0));
+        assertEquals(1, map.size());
+        assertEquals(5, map.remove(0));
+        assertFalse(map.containsKey(0));
+        assertTrue(map.isEmpty());
+    }
+
+    //сверяем с HashMap после множества вставок и удалений, включая расширение таблицы
+    @Test
+    void shouldMatchHashMapAfterManyOperations() {
+        IntIntMap map = new IntIntMap(-1);
+        Map<Integer, Integer> expected = new HashMap<>();
+        Random random = new Random(7);
+
+        for (int i = 0; i < 100_000; i++) {
+            int key = random.nextInt(5_000) - 100;
+            if (random.nextBoolean()) {
+                assertEquals(expected.getOrDefault(key, -1), map.remove(key));
+                expected.remove(key);
+            } else {
+                assertEquals(expected.getOrDefault(key, -1), map.put(key, i));
+                expected.put(key, i);
+            }
+        }
+        assertEquals(expected.size(), map.size());
+        for (int key = -100; key < 4_900; key++) {
+            assertEquals(expected.getOrDefault(key, -1), map.get(key));
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntObjectMapTest {
+    //сверяем с HashMap после множества вставок и удалений, включая ключ 0 и расширение таблицы
+    @Test
+    void shouldMatchHashMapAfterManyOperations() {
+        IntObjectMap<String> map = new IntObjectMap<>();
+        Map<Integer, String> expected = new HashMap<>();
+        Random random = new Random(13);
+
+        for (int i = 0; i < 100_000; i++) {
+            int key = random.nextInt(5_000) - 100;
+            if (random.nextBoolean()) {
+                assertEquals(expected.remove(key), map.remove(key));
+            } else {
+                assertEquals(expected.put(key, "v" + i), map.put(key, "v" + i));
+            }
+        }
+        assertEquals(expected, map);
+        assertEquals(expected.size(), map.values().size());
+        assertTrue(map.values().containsAll(expected.values()));
+    }
+
+    @Test
+    void boxedMethodsShouldUsePrimitiveStore() {
+        Map<Integer, String> map = new IntObjectMap<>();
+        map.put(0, "zero");
+        map.put(42, "answer");
+
+        assertEquals("answer", map.get(42));
+        assertNull(map.get("42"));
+        assertTrue(map.containsKey(0));
+        assertEquals(Map.of(0, "zero", 42, "answer"), new HashMap<>(map));
+    }
+}